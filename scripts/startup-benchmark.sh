@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+#
+# Compares startup time and resident memory of the service in each launch mode.
+#
+#   ./mvnw -Pfast-start package -DskipTests
+#   ./mvnw -Pnative native:compile -DskipTests      # optional, needs GraalVM
+#   scripts/startup-benchmark.sh [runs]
+#
+# Modes whose artifacts are missing are skipped. The application is started with APP_ARGS (default: the dev profile,
+# which needs the database from docker-compose) and stopped once it logs its startup time; RSS is sampled then.
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+APP_ARGS="${APP_ARGS:---spring.profiles.active=dev}"
+JAVA_OPTS="${JAVA_OPTS:-}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-120}"
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+TARGET="$ROOT/target"
+JAR="$(ls "$TARGET"/activity-log-service-*.jar 2>/dev/null | grep -v '\.original$' | head -n 1 || true)"
+FAST_START="$TARGET/fast-start"
+NATIVE="$TARGET/activity-log-service"
+LOG="$(mktemp)"
+trap 'rm -f "$LOG"' EXIT
+
+# Prints "<startup seconds> <rss KiB>" for one run of the given command.
+measure() {
+    local dir="$1"
+    shift
+    (cd "$dir" && exec "$@" $APP_ARGS) >"$LOG" 2>&1 &
+    local pid=$!
+    local deadline=$((SECONDS + TIMEOUT_SECONDS))
+    local line=""
+    while [ -z "$line" ]; do
+        line="$(grep -m 1 -o 'Started Application in [0-9.]* seconds' "$LOG" || true)"
+        if ! kill -0 "$pid" 2>/dev/null || [ "$SECONDS" -ge "$deadline" ]; then
+            kill "$pid" 2>/dev/null || true
+            echo "startup failed, last output:" >&2
+            tail -n 20 "$LOG" >&2
+            return 1
+        fi
+        sleep 0.1
+    done
+    local rss
+    rss="$(ps -o rss= -p "$pid" | tr -d ' ')"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$(echo "$line" | awk '{print $4}') $rss"
+}
+
+run_mode() {
+    local mode="$1"
+    shift
+    local results=""
+    for _ in $(seq "$RUNS"); do
+        results+="$(measure "$@")"$'\n' || return 0
+    done
+    echo -n "$results" | awk -v mode="$mode" \
+        '{ time += $1; rss += $2 } END { printf "%-10s %12.3f %12d\n", mode, time / NR, rss / NR / 1024 }'
+}
+
+printf '%-10s %12s %12s\n' "mode" "startup (s)" "RSS (MiB)"
+if [ -n "$JAR" ]; then
+    run_mode jvm "$TARGET" java $JAVA_OPTS -jar "$JAR"
+    run_mode aot "$TARGET" java $JAVA_OPTS -Dspring.aot.enabled=true -jar "$JAR"
+fi
+if [ -f "$FAST_START/application.jsa" ]; then
+    run_mode aot+cds "$FAST_START" java $JAVA_OPTS -XX:SharedArchiveFile=application.jsa -Xlog:cds=error \
+        -Dspring.aot.enabled=true -jar "$(basename "$JAR")"
+fi
+if [ -x "$NATIVE" ]; then
+    run_mode native "$TARGET" "$NATIVE"
+fi
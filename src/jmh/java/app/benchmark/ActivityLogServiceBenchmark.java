@@ -0,0 +1,63 @@
+package app.benchmark;
+
+import app.model.ActivityLog;
+import app.model.ActivityLogView;
+import app.repository.ActivityLogBatchWriter;
+import app.service.ActivityLogService;
+import app.web.dto.ActivityLogRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write and read paths of {@link ActivityLogService} against the embedded H2 database, with the full Spring
+ * context (transactions, repository proxies, id generation) in place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ActivityLogServiceBenchmark {
+
+    @Param({"100", "1000"})
+    public int historySize;
+
+    private ConfigurableApplicationContext context;
+    private ActivityLogService activityLogService;
+    private UUID readerId;
+    private ActivityLogRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        activityLogService = context.getBean(ActivityLogService.class);
+
+        readerId = UUID.randomUUID();
+        BenchmarkApplication.seed(context.getBean(ActivityLogBatchWriter.class), readerId, historySize);
+
+        request = ActivityLogRequest.builder()
+                .userId(UUID.randomUUID())
+                .action("You have successfully updated recipe: Cornbread Salad")
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ActivityLog logActivity() {
+        return activityLogService.logActivity(request);
+    }
+
+    @Benchmark
+    public List<ActivityLogView> getByUserId() {
+        return activityLogService.getByUserId(readerId);
+    }
+}
@@ -0,0 +1,57 @@
+package app.benchmark;
+
+import app.Application;
+import app.model.ActivityLog;
+import app.model.id.TimeOrderedUuids;
+import app.repository.ActivityLogBatchWriter;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without a web server on the in-memory H2 database of the {@code test} profile.
+ */
+final class BenchmarkApplication {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN", "spring.main.banner-mode=off")
+                .properties(properties)
+                .run();
+    }
+
+    static void seed(ActivityLogBatchWriter batchWriter, UUID userId, int rows) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ActivityLog> batch = new ArrayList<>(SEED_BATCH_SIZE);
+
+        for (int i = 0; i < rows; i++) {
+            batch.add(activityLog(userId, now.minusSeconds(i)));
+            if (batch.size() == SEED_BATCH_SIZE) {
+                batchWriter.insertAll(batch);
+                batch.clear();
+            }
+        }
+        batchWriter.insertAll(batch);
+    }
+
+    static ActivityLog activityLog(UUID userId, LocalDateTime createdOn) {
+        return ActivityLog.builder()
+                .id(TimeOrderedUuids.next())
+                .userId(userId)
+                .action("You have successfully updated recipe: Cornbread Salad")
+                .createdOn(createdOn)
+                .build();
+    }
+}
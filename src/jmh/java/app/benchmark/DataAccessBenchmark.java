@@ -0,0 +1,98 @@
+package app.benchmark;
+
+import app.model.ActivityLog;
+import app.repository.ActivityLogBatchWriter;
+import app.service.ActivityLogService;
+import app.web.dto.ActivityLogRequest;
+import app.web.dto.ActivityLogResponse;
+import app.web.dto.BulkIngestResponse;
+import app.web.mapper.DtoMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Managed entities versus projections and stateless sessions ({@code activity-log.data-access.*}) for the history
+ * reads and the inserts, on the embedded H2 database. Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is the
+ * number of bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DataAccessBenchmark {
+
+    private static final int HISTORY_SIZE = 1000;
+    private static final int BULK_SIZE = 100;
+
+    // entity: managed entities and JDBC batches; lean: projection reads and stateless-session writes.
+    @Param({"entity", "lean"})
+    public String dataAccess;
+
+    private ConfigurableApplicationContext context;
+    private ActivityLogService activityLogService;
+    private UUID readerId;
+    private ActivityLogRequest request;
+    private List<ActivityLogRequest> bulk;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean lean = dataAccess.equals("lean");
+        context = BenchmarkApplication.start(
+                "activity-log.data-access.read-path=" + (lean ? "projection" : "entity"),
+                "activity-log.data-access.write-path=" + (lean ? "stateless" : "entity"),
+                "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                "spring.jpa.properties.hibernate.order_inserts=true");
+        activityLogService = context.getBean(ActivityLogService.class);
+
+        readerId = UUID.randomUUID();
+        BenchmarkApplication.seed(context.getBean(ActivityLogBatchWriter.class), readerId, HISTORY_SIZE);
+
+        request = ActivityLogRequest.builder()
+                .userId(UUID.randomUUID())
+                .action("You have successfully updated recipe: Cornbread Salad")
+                .build();
+        bulk = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            bulk.add(ActivityLogRequest.builder()
+                    .userId(UUID.randomUUID())
+                    .action("You have successfully commented on recipe: Cornbread Salad")
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ActivityLogResponse> getPageByUserId() {
+        return activityLogService.getPageByUserId(readerId, null, 100).items().stream()
+                .map(DtoMapper::fromActivityLogView)
+                .toList();
+    }
+
+    @Benchmark
+    public List<ActivityLogResponse> getByUserId() {
+        return activityLogService.getByUserId(readerId).stream()
+                .map(DtoMapper::fromActivityLogView)
+                .toList();
+    }
+
+    @Benchmark
+    public ActivityLog logActivity() {
+        return activityLogService.logActivity(request);
+    }
+
+    @Benchmark
+    public BulkIngestResponse logActivities() {
+        return activityLogService.logActivities(bulk.iterator());
+    }
+}
@@ -0,0 +1,62 @@
+package app.benchmark;
+
+import app.repository.ActivityLogBatchWriter;
+import app.repository.ActivityLogPurger;
+import app.service.ActivityLogService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to soft delete a user's whole history through {@link ActivityLogService#deleteByUserId}. Every iteration
+ * seeds a fresh user and deletes it once; the flagged rows are purged afterwards so the table does not grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeleteBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ActivityLogService activityLogService;
+    private ActivityLogBatchWriter batchWriter;
+    private ActivityLogPurger purger;
+    private UUID userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        activityLogService = context.getBean(ActivityLogService.class);
+        batchWriter = context.getBean(ActivityLogBatchWriter.class);
+        purger = context.getBean(ActivityLogPurger.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void seedUser() {
+        userId = UUID.randomUUID();
+        BenchmarkApplication.seed(batchWriter, userId, rows);
+    }
+
+    @TearDown(Level.Iteration)
+    public void purgeDeleted() {
+        purger.deleteSoftDeletedBefore(LocalDateTime.now().plusDays(1), Integer.MAX_VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long deleteByUserId() {
+        return activityLogService.deleteByUserId(userId);
+    }
+}
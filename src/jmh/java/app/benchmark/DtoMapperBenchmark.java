@@ -0,0 +1,35 @@
+package app.benchmark;
+
+import app.model.ActivityLog;
+import app.web.dto.ActivityLogResponse;
+import app.web.mapper.DtoMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping one entity to its response DTO through the Lombok builder. Run with {@code -prof gc} to see the
+ * allocation rate per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMapperBenchmark {
+
+    private ActivityLog activityLog;
+
+    @Setup
+    public void setUp() {
+        activityLog = BenchmarkApplication.activityLog(UUID.randomUUID(), LocalDateTime.now());
+    }
+
+    @Benchmark
+    public ActivityLogResponse fromActivityLog() {
+        return DtoMapper.fromActivityLog(activityLog);
+    }
+}
@@ -0,0 +1,98 @@
+package app.benchmark;
+
+import app.model.id.TimeOrderedUuids;
+import app.util.UuidBytes;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Insert throughput into a BINARY(16) primary key with random (v4) versus time-ordered (v7) identifiers.
+ * Uses a file-backed H2 database in MySQL mode so index pages are really written; the table keeps growing across
+ * iterations, which is where random keys start to hurt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class IdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    public String idStrategy;
+
+    @Param({"500000"})
+    public int preloadedRows;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> ids;
+    private UUID userId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ids = "RANDOM".equals(idStrategy) ? UUID::randomUUID : TimeOrderedUuids::next;
+        userId = UUID.randomUUID();
+
+        directory = Files.createTempDirectory("id-insert-benchmark");
+        connection = DriverManager.getConnection(
+                "jdbc:h2:file:" + directory.resolve("db") + ";MODE=MYSQL", "sa", "");
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table activity_log (id binary(16) not null, user_id binary(16) not null, "
+                    + "action varchar(1000) not null, created_on timestamp(6) not null, "
+                    + "is_deleted boolean not null, primary key (id))");
+        }
+        insert = connection.prepareStatement(
+                "insert into activity_log (id, user_id, action, created_on, is_deleted) values (?, ?, ?, ?, ?)");
+
+        for (int i = 0; i < preloadedRows; i += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        byte[] user = UuidBytes.toBytes(userId);
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setBytes(1, UuidBytes.toBytes(ids.get()));
+            insert.setBytes(2, user);
+            insert.setString(3, "You have successfully updated recipe: Cornbread Salad");
+            insert.setTimestamp(4, now);
+            insert.setBoolean(5, false);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+}
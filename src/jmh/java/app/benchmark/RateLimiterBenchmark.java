@@ -0,0 +1,71 @@
+package app.benchmark;
+
+import app.config.RateLimitProperties;
+import app.exception.RateLimitExceededException;
+import app.ingestion.IngestionRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one rate limit check, for a few hot users and for a million distinct ones spread over the bounded bucket
+ * cache, when the event is admitted and when its user's quota is used up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"10", "1000000"})
+    private int users;
+
+    private IngestionRateLimiter generous;
+    private IngestionRateLimiter exhausted;
+    private UUID[] userIds;
+
+    @Setup
+    public void setUp() {
+        // A deep bucket refilling slowly, so buckets are neither used up nor idle long enough to be evicted.
+        generous = limiter(new RateLimitProperties.Limit(1000, 100_000_000));
+        exhausted = limiter(new RateLimitProperties.Limit(0.001, 1));
+        userIds = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = UUID.randomUUID();
+            generous.acquire(userIds[i]);
+            exhausted.acquire(userIds[i]);
+        }
+    }
+
+    @Benchmark
+    public void admitted() {
+        generous.acquire(nextUser());
+    }
+
+    @Benchmark
+    public RateLimitExceededException rejected() {
+        try {
+            exhausted.acquire(nextUser());
+            throw new IllegalStateException("Quota was not used up");
+        } catch (RateLimitExceededException e) {
+            return e;
+        }
+    }
+
+    private UUID nextUser() {
+        return userIds[ThreadLocalRandom.current().nextInt(users)];
+    }
+
+    private static IngestionRateLimiter limiter(RateLimitProperties.Limit user) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(true);
+        properties.setUser(user);
+        properties.setGlobal(new RateLimitProperties.Limit(1_000_000_000, 1_000_000));
+        return new IngestionRateLimiter(properties, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,123 @@
+package app.benchmark;
+
+import app.Application;
+import app.repository.ActivityLogBatchWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@code GET /api/v1/activity-log} over HTTP against a database that answers slowly. Every connection
+ * checkout is held for {@code dbLatencyMs}, and Tomcat gets fewer platform threads than there are concurrent
+ * clients, so with platform threads throughput is capped at {@code tomcatThreads / latency}. With virtual threads
+ * (JDK 21+ only; on older JDKs both runs use platform threads) the cap moves to {@code maxConcurrency / latency}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(200)
+@Fork(1)
+public class RequestThroughputBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"20"})
+    public int dbLatencyMs;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class, SlowDatabaseConfig.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "logging.level.root=WARN",
+                        "spring.main.banner-mode=off",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=50",
+                        "spring.datasource.hikari.maximum-pool-size=100",
+                        "activity-log.database.max-concurrency=100",
+                        "benchmark.db-latency-ms=" + dbLatencyMs)
+                .run();
+
+        UUID userId = UUID.randomUUID();
+        BenchmarkApplication.seed(context.getBean(ActivityLogBatchWriter.class), userId, 20);
+
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create(
+                "http://localhost:" + port + "/api/v1/activity-log?userId=" + userId + "&limit=20")).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getActivityLog() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class SlowDatabaseConfig {
+
+        @Bean
+        static BeanPostProcessor slowDatabasePostProcessor(
+                @Value("${benchmark.db-latency-ms:0}") long latencyMs) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && latencyMs > 0) {
+                        return new SlowDataSource(dataSource, latencyMs);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    // Holds each connection for the configured time before handing it out, like a slow round trip would.
+    static class SlowDataSource extends DelegatingDataSource {
+
+        private final long latencyMs;
+
+        SlowDataSource(DataSource target, long latencyMs) {
+            super(target);
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return connection;
+        }
+    }
+}
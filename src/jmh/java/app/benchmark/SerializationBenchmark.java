@@ -0,0 +1,76 @@
+package app.benchmark;
+
+import app.config.CborConfig;
+import app.web.dto.ActivityLogResponse;
+import app.web.mapper.DtoMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of a {@code GET /api/v1/activity-log} response body as JSON and as CBOR, with the same mapper
+ * settings the application uses. {@code toBytes} buffers the whole body like a non-streaming response,
+ * {@code toStream} writes to a discarding stream and isolates the encoding cost. The body size, plain and gzipped,
+ * is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int size;
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    private ObjectWriter writer;
+    private List<ActivityLogResponse> responses;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Spring Boot writes dates as ISO strings.
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ObjectMapper objectMapper = "cbor".equals(format) ? CborConfig.cborObjectMapper(builder) : builder.build();
+        writer = objectMapper.writerFor(List.class);
+
+        UUID userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        responses = IntStream.range(0, size)
+                .mapToObj(i -> DtoMapper.fromActivityLog(BenchmarkApplication.activityLog(userId, now.minusSeconds(i))))
+                .toList();
+
+        byte[] body = writer.writeValueAsBytes(responses);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(body);
+        }
+        System.out.printf("%n%s, %d items: %d bytes, %d gzipped%n", format, size, body.length, gzipped.size());
+    }
+
+    @Benchmark
+    public byte[] toBytes() throws IOException {
+        return writer.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public void toStream() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), responses);
+    }
+}
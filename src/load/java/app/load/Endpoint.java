@@ -0,0 +1,41 @@
+package app.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.UUID;
+
+/**
+ * The requests of the mix, each for one user.
+ */
+enum Endpoint {
+
+    POST {
+        @Override
+        HttpRequest request(URI base, UUID userId, LoadTestOptions options) {
+            String body = "{\"userId\":\"" + userId + "\",\"action\":\"" + LoadTest.action(userId) + "\"}";
+            return HttpRequest.newBuilder(base.resolve(PATH))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    },
+
+    GET {
+        @Override
+        HttpRequest request(URI base, UUID userId, LoadTestOptions options) {
+            String query = options.pageSize() > 0 ? "&limit=" + options.pageSize() : "";
+            return HttpRequest.newBuilder(base.resolve(PATH + "?userId=" + userId + query)).build();
+        }
+    },
+
+    DELETE {
+        @Override
+        HttpRequest request(URI base, UUID userId, LoadTestOptions options) {
+            return HttpRequest.newBuilder(base.resolve(PATH + "?userId=" + userId)).DELETE().build();
+        }
+    };
+
+    static final String PATH = "/api/v1/activity-log";
+
+    abstract HttpRequest request(URI base, UUID userId, LoadTestOptions options);
+}
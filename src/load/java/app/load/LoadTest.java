@@ -0,0 +1,245 @@
+package app.load;
+
+import app.Application;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the HTTP API with a mix of writes, history reads and deletes across users picked from a Zipf distribution,
+ * and reports throughput and latency per endpoint. Without {@code target} the application is started in-process on
+ * the embedded H2 database of the {@code test} profile.
+ * <p>
+ * Requests are started on a fixed schedule and their latency is measured from the scheduled start rather than from
+ * when a client got to send them, so a stall shows up in the percentiles instead of quietly lowering the rate.
+ */
+public final class LoadTest {
+
+    private static final String[] ACTIONS = {
+            "You have successfully logged in",
+            "You have successfully updated recipe: Cornbread Salad",
+            "You have successfully commented on recipe: Lemon Tart",
+            "You have successfully added recipe: Mushroom Risotto to favorites",
+    };
+    private static final int SEED_CHUNK_SIZE = 1000;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext context = options.target() == null ? start(options) : null;
+        try {
+            URI base = context == null
+                    ? options.target()
+                    : URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            List<UUID> users = new ArrayList<>(options.users());
+            for (int i = 0; i < options.users(); i++) {
+                users.add(UUID.randomUUID());
+            }
+            seed(client, base, users, options);
+
+            ZipfDistribution zipf = new ZipfDistribution(options.users(), options.skew());
+            run(client, base, users, zipf, options, options.warmup());
+            Map<Endpoint, EndpointStats> stats = run(client, base, users, zipf, options, options.duration());
+            report(stats, options);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    static String action(UUID userId) {
+        return ACTIONS[Math.floorMod(userId.hashCode() + ThreadLocalRandom.current().nextInt(2), ACTIONS.length)];
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestOptions options) {
+        return new SpringApplicationBuilder(Application.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN", "spring.main.banner-mode=off")
+                .properties(options.applicationProperties().toArray(String[]::new))
+                .run();
+    }
+
+    // History sizes follow the same skew as the traffic, the busiest user getting max-history events.
+    private static void seed(HttpClient client, URI base, List<UUID> users, LoadTestOptions options)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        StringBuilder chunk = new StringBuilder();
+        int lines = 0;
+        long seeded = 0;
+        for (int rank = 0; rank < users.size(); rank++) {
+            double weight = ZipfDistribution.weight(rank, options.skew());
+            long history = Math.max(1, Math.round(options.maxHistory() * weight));
+            for (long i = 0; i < history; i++) {
+                UUID userId = users.get(rank);
+                chunk.append("{\"userId\":\"").append(userId).append("\",\"action\":\"").append(action(userId))
+                        .append("\"}\n");
+                if (++lines == SEED_CHUNK_SIZE) {
+                    seeded += postBulk(client, base, chunk.toString());
+                    chunk.setLength(0);
+                    lines = 0;
+                }
+            }
+        }
+        if (lines > 0) {
+            seeded += postBulk(client, base, chunk.toString());
+        }
+        System.out.printf("Seeded %,d events for %,d users in %.1fs%n",
+                seeded, users.size(), (System.nanoTime() - started) / 1e9);
+    }
+
+    private static int postBulk(HttpClient client, URI base, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve(Endpoint.PATH + "/bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+        }
+        return (int) body.lines().count();
+    }
+
+    private static Map<Endpoint, EndpointStats> run(HttpClient client, URI base, List<UUID> users,
+                                                    ZipfDistribution zipf, LoadTestOptions options, Duration duration)
+            throws InterruptedException {
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        options.mix().keySet().forEach(endpoint -> stats.put(endpoint, new EndpointStats()));
+        if (duration.isZero()) {
+            return stats;
+        }
+
+        double intervalNanos = 1e9 / options.rate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        AtomicLong next = new AtomicLong();
+        int totalWeight = options.totalWeight();
+
+        ExecutorService clients = Executors.newFixedThreadPool(options.clients());
+        for (int i = 0; i < options.clients(); i++) {
+            clients.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (true) {
+                    long scheduled = start + (long) (next.getAndIncrement() * intervalNanos);
+                    if (scheduled >= end) {
+                        return;
+                    }
+                    waitUntil(scheduled);
+
+                    Endpoint endpoint = options.pick(random.nextInt(totalWeight));
+                    UUID userId = users.get(zipf.sample(random));
+                    boolean succeeded;
+                    try {
+                        HttpResponse<Void> response = client.send(endpoint.request(base, userId, options),
+                                HttpResponse.BodyHandlers.discarding());
+                        succeeded = response.statusCode() < 300;
+                    } catch (IOException e) {
+                        succeeded = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    stats.get(endpoint).record(System.nanoTime() - scheduled, succeeded);
+                }
+            });
+        }
+        clients.shutdown();
+        if (!clients.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS)) {
+            clients.shutdownNow();
+        }
+        stats.values().forEach(endpointStats -> endpointStats.seconds = (System.nanoTime() - start) / 1e9);
+        return stats;
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static void report(Map<Endpoint, EndpointStats> stats, LoadTestOptions options) throws IOException {
+        System.out.printf("%nOffered %.0f requests/s from %d clients over %s%n",
+                options.rate(), options.clients(), options.duration());
+        System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms", "p99.9 ms", "Max ms");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rate", options.rate());
+        result.put("clients", options.clients());
+        result.put("users", options.users());
+        result.put("skew", options.skew());
+        result.put("durationSeconds", options.duration().toSeconds());
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> {
+            Histogram latency = endpointStats.latency;
+            long requests = latency.getTotalCount();
+            double throughput = requests / endpointStats.seconds;
+            System.out.printf("%-8s %,10d %,8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint, requests, endpointStats.errors.sum(), throughput,
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getValueAtPercentile(99.9)), millis(latency.getMaxValue()));
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("requests", requests);
+            values.put("errors", endpointStats.errors.sum());
+            values.put("throughput", throughput);
+            values.put("p50Millis", millis(latency.getValueAtPercentile(50)));
+            values.put("p99Millis", millis(latency.getValueAtPercentile(99)));
+            values.put("p999Millis", millis(latency.getValueAtPercentile(99.9)));
+            values.put("maxMillis", millis(latency.getMaxValue()));
+            endpoints.put(endpoint.name(), values);
+        });
+        result.put("endpoints", endpoints);
+
+        Files.createDirectories(options.result().toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(options.result().toFile(), result);
+        System.out.println("Results written to " + options.result());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static final class EndpointStats {
+
+        // Three significant digits, resized as slower requests come in.
+        private final Histogram latency = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+        private double seconds;
+
+        void record(long nanos, boolean succeeded) {
+            latency.recordValue(nanos);
+            if (!succeeded) {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package app.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Settings of a run, given as {@code name=value}. Names containing a dot, such as
+ * {@code activity-log.ingestion.mode=WRITE_BEHIND}, configure the embedded application instead.
+ */
+record LoadTestOptions(
+        // Base URL of a running service; without it the application is started in-process.
+        URI target,
+        // Requests started per second, whatever the latency.
+        double rate,
+        Duration warmup,
+        Duration duration,
+        // Requests in flight at most; once all are busy the schedule falls behind and latency grows.
+        int clients,
+        int users,
+        // Zipf exponent of both request traffic and history sizes across users.
+        double skew,
+        // Events seeded for the busiest user, the others get fewer by their rank.
+        int maxHistory,
+        // Limit of the history reads, 0 reads the whole history.
+        int pageSize,
+        Map<Endpoint, Integer> mix,
+        Path result,
+        List<String> applicationProperties) {
+
+    static LoadTestOptions parse(String... args) {
+        URI target = null;
+        double rate = 200;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(60);
+        int clients = 64;
+        int users = 10_000;
+        double skew = 1.1;
+        int maxHistory = 2_000;
+        int pageSize = 100;
+        Map<Endpoint, Integer> mix = parseMix("post=90,get=9,delete=1");
+        Path result = Path.of("target", "load-result.json");
+        List<String> applicationProperties = new ArrayList<>();
+
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected name=value but got " + arg);
+            }
+            String name = option.substring(0, separator);
+            String value = option.substring(separator + 1);
+            if (name.contains(".")) {
+                applicationProperties.add(name + "=" + value);
+                continue;
+            }
+            switch (name) {
+                case "target" -> target = URI.create(value);
+                case "rate" -> rate = Double.parseDouble(value);
+                case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> duration = DurationStyle.detectAndParse(value);
+                case "clients" -> clients = Integer.parseInt(value);
+                case "users" -> users = Integer.parseInt(value);
+                case "skew" -> skew = Double.parseDouble(value);
+                case "max-history" -> maxHistory = Integer.parseInt(value);
+                case "page-size" -> pageSize = Integer.parseInt(value);
+                case "mix" -> mix = parseMix(value);
+                case "result" -> result = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if (rate <= 0 || clients < 1 || users < 1) {
+            throw new IllegalArgumentException("rate, clients and users must be positive");
+        }
+        return new LoadTestOptions(target, rate, warmup, duration, clients, users, skew, maxHistory, pageSize,
+                mix, result, List.copyOf(applicationProperties));
+    }
+
+    // Weights such as "post=90,get=9,delete=1"; missing endpoints get no traffic.
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.split("=");
+            mix.put(Endpoint.valueOf(weight[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(weight[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("The mix needs a positive weight: " + value);
+        }
+        return mix;
+    }
+
+    Endpoint pick(int roll) {
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Roll beyond the total weight");
+    }
+
+    int totalWeight() {
+        return mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,400 @@
+package app.archive;
+
+import app.config.ArchiveProperties;
+import app.model.ActivityLog;
+import app.model.ActivityLogCursor;
+import app.model.ActivityLogOrder;
+import app.model.ActivityLogView;
+import app.util.UuidBytes;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Cold history in immutable columnar files on local disk: one directory per archived month and shard, holding one
+ * or more {@link ArchiveSegment} parts. A directory is written under a temporary name and renamed once complete, so
+ * a month is either archived in full or not at all. Users deleted after their rows were archived are recorded in an
+ * append-only tombstone file, and their archived rows up to that moment are no longer returned.
+ */
+@Slf4j
+@Component
+public class ActivityLogArchive {
+
+    private static final String PART_SUFFIX = ".alar";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String TOMBSTONES = "deleted-users";
+    private static final int TOMBSTONE_SIZE = 24;
+
+    private final ArchiveProperties properties;
+    private final Path directory;
+    private final Map<UUID, LocalDateTime> tombstones = new ConcurrentHashMap<>();
+
+    // Newest month first; replaced as a whole whenever a month is added or dropped.
+    private volatile List<ArchivedMonth> months = List.of();
+
+    public ActivityLogArchive(ArchiveProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.directory = Path.of(properties.getDirectory());
+        if (properties.isEnabled()) {
+            try {
+                load();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open the activity log archive in " + directory, e);
+            }
+        }
+
+        Gauge.builder("activitylog.archive.rows", this,
+                        archive -> archive.parts().mapToLong(ArchiveSegment::rowCount).sum())
+                .description("Events held in archive segments")
+                .register(meterRegistry);
+        Gauge.builder("activitylog.archive.size", this,
+                        archive -> archive.parts().mapToLong(ArchiveSegment::size).sum())
+                .description("Bytes of archive segments on disk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Every archived row was created before this; rows at or after it are only in the database.
+     */
+    public LocalDateTime archivedThrough() {
+        List<ArchivedMonth> current = months;
+        return current.isEmpty() ? LocalDateTime.MIN : current.get(0).end();
+    }
+
+    public boolean contains(YearMonth month, String shard) {
+        return months.stream().anyMatch(archived -> archived.month().equals(month) && archived.shard().equals(shard));
+    }
+
+    /**
+     * Up to {@code limit} archived rows of the user created at or after {@code notBefore} and, with a cursor, after
+     * it in history order; newest first.
+     */
+    public List<ActivityLogView> find(UUID userId, LocalDateTime notBefore, ActivityLogCursor after, int limit) {
+        List<ActivityLogView> found = new ArrayList<>();
+        scan(userId, notBefore, after, rows -> {
+            rows.forEach(row -> found.add(ActivityLogView.of(row)));
+            return found.size() < limit;
+        });
+        return found.size() > limit ? found.subList(0, limit) : found;
+    }
+
+    /**
+     * Passes every archived row of the user created at or after {@code notBefore} to {@code consumer}, newest first,
+     * holding no more than one month of them at a time.
+     */
+    public void forEach(UUID userId, LocalDateTime notBefore, Consumer<ActivityLog> consumer) {
+        scan(userId, notBefore, null, rows -> {
+            rows.forEach(consumer);
+            return true;
+        });
+    }
+
+    /**
+     * Hides the user's archived rows from now on and returns how many there were.
+     */
+    public long deleteByUserId(UUID userId) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        long[] count = {0};
+        scan(userId, LocalDateTime.MIN, null, rows -> {
+            count[0] += rows.size();
+            return true;
+        });
+        if (count[0] > 0) {
+            addTombstone(userId, LocalDateTime.now());
+        }
+        return count[0];
+    }
+
+    /**
+     * Merges rows from the table with archived ones, both newest first, into at most {@code limit} rows. A row in
+     * both (its month was archived but not yet deleted from the table) is kept once.
+     */
+    public static List<ActivityLogView> merge(List<ActivityLogView> hot, List<ActivityLogView> archived, int limit) {
+        List<ActivityLogView> merged = new ArrayList<>(Math.min(limit, hot.size() + archived.size()));
+        int h = 0;
+        int a = 0;
+        while (merged.size() < limit && (h < hot.size() || a < archived.size())) {
+            int comparison = h == hot.size() ? 1
+                    : a == archived.size() ? -1
+                    : ActivityLogOrder.VIEWS_NEWEST_FIRST.compare(hot.get(h), archived.get(a));
+            if (comparison <= 0) {
+                merged.add(hot.get(h++));
+                if (comparison == 0) {
+                    a++;
+                }
+            } else {
+                merged.add(archived.get(a++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Starts archiving a month of one shard; nothing becomes visible until {@link MonthWriter#commit()}.
+     */
+    MonthWriter write(YearMonth month, String shard) throws IOException {
+        Path temp = directory.resolve(ArchivedMonth.directoryName(month, shard) + TEMP_SUFFIX);
+        FileSystemUtils.deleteRecursively(temp);
+        Files.createDirectories(temp);
+        return new MonthWriter(month, shard, temp);
+    }
+
+    /**
+     * Deletes the months that ended at or before {@code cutoff}, returning how many there were.
+     */
+    synchronized int dropBefore(LocalDateTime cutoff) throws IOException {
+        List<ArchivedMonth> kept = new ArrayList<>();
+        int dropped = 0;
+        for (ArchivedMonth archived : months) {
+            if (archived.end().isAfter(cutoff)) {
+                kept.add(archived);
+            } else {
+                dropped++;
+            }
+        }
+        if (dropped == 0) {
+            return 0;
+        }
+        List<ArchivedMonth> current = months;
+        months = List.copyOf(kept);
+        for (ArchivedMonth archived : current) {
+            if (!kept.contains(archived)) {
+                // Readers still holding a part keep their mapping; the space is freed once it is collected.
+                FileSystemUtils.deleteRecursively(directory.resolve(archived.directoryName()));
+                log.info("Dropped archived activity logs of {} on shard {}", archived.month(), archived.shard());
+            }
+        }
+        return dropped;
+    }
+
+    // Hands the rows of each month to the consumer until it returns false. Months of several shards, left behind
+    // when users were moved by a rebalance, are merged before they are passed on.
+    private void scan(UUID userId, LocalDateTime notBefore, ActivityLogCursor after,
+                      Predicate<List<ActivityLog>> consumer) {
+        if (!isEnabled()) {
+            return;
+        }
+        LocalDateTime deletedOn = tombstones.get(userId);
+        List<ArchivedMonth> current = months;
+        int index = 0;
+        while (index < current.size()) {
+            YearMonth month = current.get(index).month();
+            List<ActivityLog> rows = new ArrayList<>();
+            for (; index < current.size() && current.get(index).month().equals(month); index++) {
+                ArchivedMonth archived = current.get(index);
+                if (!archived.end().isAfter(notBefore)) {
+                    return;
+                }
+                if (after != null && archived.start().isAfter(after.createdOn())) {
+                    continue;
+                }
+                for (ArchiveSegment part : archived.parts()) {
+                    part.read(userId, notBefore, row -> {
+                        if ((deletedOn == null || row.getCreatedOn().isAfter(deletedOn))
+                                && (after == null || isOlder(row, after))) {
+                            rows.add(row);
+                        }
+                    });
+                }
+            }
+            rows.sort(ActivityLogOrder.NEWEST_FIRST);
+            if (!rows.isEmpty() && !consumer.test(rows)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean isOlder(ActivityLog row, ActivityLogCursor cursor) {
+        int comparison = row.getCreatedOn().compareTo(cursor.createdOn());
+        return comparison < 0 || comparison == 0 && UuidBytes.compareUnsigned(row.getId(), cursor.id()) < 0;
+    }
+
+    private Stream<ArchiveSegment> parts() {
+        return months.stream().flatMap(archived -> archived.parts().stream());
+    }
+
+    private synchronized void add(ArchivedMonth archived) {
+        List<ArchivedMonth> updated = new ArrayList<>(months);
+        updated.add(archived);
+        updated.sort(ArchivedMonth.NEWEST_FIRST);
+        months = List.copyOf(updated);
+    }
+
+    private synchronized void addTombstone(UUID userId, LocalDateTime deletedOn) {
+        ByteBuffer record = ByteBuffer.allocate(TOMBSTONE_SIZE)
+                .putLong(userId.getMostSignificantBits())
+                .putLong(userId.getLeastSignificantBits())
+                .putLong(ArchiveSegment.toMicros(deletedOn))
+                .flip();
+        try (FileChannel channel = FileChannel.open(directory.resolve(TOMBSTONES),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(record);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        tombstones.merge(userId, deletedOn, (first, second) -> first.isAfter(second) ? first : second);
+    }
+
+    private void load() throws IOException {
+        Files.createDirectories(directory);
+        List<ArchivedMonth> loaded = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.sorted().toList()) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // Left by a run that stopped before the month was complete; it is archived again.
+                    FileSystemUtils.deleteRecursively(path);
+                } else if (Files.isDirectory(path)) {
+                    loaded.add(open(path, name));
+                }
+            }
+        }
+        loaded.sort(ArchivedMonth.NEWEST_FIRST);
+        months = List.copyOf(loaded);
+
+        Path tombstoneFile = directory.resolve(TOMBSTONES);
+        if (Files.exists(tombstoneFile)) {
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(tombstoneFile));
+            while (records.remaining() >= TOMBSTONE_SIZE) {
+                UUID userId = new UUID(records.getLong(), records.getLong());
+                tombstones.merge(userId, ArchiveSegment.fromMicros(records.getLong()),
+                        (first, second) -> first.isAfter(second) ? first : second);
+            }
+        }
+        log.info("Opened activity log archive with {} months and {} deleted users", months.size(), tombstones.size());
+    }
+
+    private static ArchivedMonth open(Path path, String name) throws IOException {
+        int separator = name.indexOf('_');
+        YearMonth month;
+        try {
+            month = YearMonth.parse(name.substring(0, Math.max(separator, 0)));
+        } catch (DateTimeParseException e) {
+            throw new IOException("Unexpected directory in the archive: " + path, e);
+        }
+        List<ArchiveSegment> parts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(path)) {
+            for (Path file : files.filter(file -> file.toString().endsWith(PART_SUFFIX)).sorted().toList()) {
+                parts.add(ArchiveSegment.open(file));
+            }
+        }
+        return new ArchivedMonth(month, name.substring(separator + 1), List.copyOf(parts));
+    }
+
+    /**
+     * Collects a month of one shard, user by user, into parts of at most {@code max-part-size}.
+     */
+    final class MonthWriter implements AutoCloseable {
+
+        private final YearMonth month;
+        private final String shard;
+        private final Path temp;
+        private ArchiveSegmentWriter part;
+        private int partCount;
+        private long rowCount;
+        private boolean committed;
+
+        private MonthWriter(YearMonth month, String shard, Path temp) {
+            this.month = month;
+            this.shard = shard;
+            this.temp = temp;
+        }
+
+        void append(UUID userId, List<ActivityLog> rows) throws IOException {
+            if (part == null) {
+                part = new ArchiveSegmentWriter(temp.resolve(String.format("part-%05d%s", partCount++, PART_SUFFIX)));
+            }
+            part.append(userId, rows);
+            rowCount += rows.size();
+            if (part.size() >= Math.min(properties.getMaxPartSize().toBytes(), Integer.MAX_VALUE)) {
+                part.close();
+                part = null;
+            }
+        }
+
+        long rowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Makes the month visible to readers, returning false if it held no rows.
+         */
+        boolean commit() throws IOException {
+            if (part != null) {
+                part.close();
+                part = null;
+            }
+            if (rowCount == 0) {
+                return false;
+            }
+            Path target = directory.resolve(ArchivedMonth.directoryName(month, shard));
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            add(open(target, target.getFileName().toString()));
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (part != null) {
+                part.close();
+            }
+            if (!committed) {
+                FileSystemUtils.deleteRecursively(temp);
+            }
+        }
+    }
+
+    private record ArchivedMonth(YearMonth month, String shard, List<ArchiveSegment> parts) {
+
+        static final Comparator<ArchivedMonth> NEWEST_FIRST = Comparator.comparing(ArchivedMonth::month).reversed()
+                .thenComparing(ArchivedMonth::shard);
+
+        static String directoryName(YearMonth month, String shard) {
+            return month + "_" + shard;
+        }
+
+        String directoryName() {
+            return directoryName(month, shard);
+        }
+
+        LocalDateTime start() {
+            return month.atDay(1).atStartOfDay();
+        }
+
+        LocalDateTime end() {
+            return month.plusMonths(1).atDay(1).atStartOfDay();
+        }
+    }
+}
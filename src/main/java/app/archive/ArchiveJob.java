@@ -0,0 +1,132 @@
+package app.archive;
+
+import app.config.ArchiveProperties;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.repository.ActivityLogArchiveSource;
+import app.retention.RetentionPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Periodically moves whole months that are older than {@code activity-log.archive.after} from each shard into the
+ * archive. A month's rows are deleted from the table only after its segments are on disk, and a month found in the
+ * archive already (the previous run stopped in between) only has its rows deleted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "activity-log.archive", name = "enabled", havingValue = "true")
+public class ArchiveJob {
+
+    private final ArchiveProperties properties;
+    private final ActivityLogArchive archive;
+    private final ActivityLogArchiveSource source;
+    private final RetentionPolicy retentionPolicy;
+    private final Shards shards;
+
+    private final Counter archivedCounter;
+
+    public ArchiveJob(ArchiveProperties properties,
+                      ActivityLogArchive archive,
+                      ActivityLogArchiveSource source,
+                      RetentionPolicy retentionPolicy,
+                      Shards shards,
+                      MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.archive = archive;
+        this.source = source;
+        this.retentionPolicy = retentionPolicy;
+        this.shards = shards;
+
+        this.archivedCounter = Counter.builder("activitylog.archive.archived")
+                .description("Rows moved from the database into archive segments")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${activity-log.archive.interval:6h}",
+            fixedDelayString = "${activity-log.archive.interval:6h}")
+    public void archive() {
+        LocalDateTime now = LocalDateTime.now();
+        shards.forEach(shard -> archive(shard, now));
+
+        try {
+            int dropped = archive.dropBefore(retentionPolicy.visibleSince());
+            if (dropped > 0) {
+                log.info("Dropped {} expired archive months", dropped);
+            }
+        } catch (IOException e) {
+            log.warn("Could not drop expired archive months", e);
+        }
+    }
+
+    private void archive(String shard, LocalDateTime now) {
+        LocalDateTime oldest = source.findOldestCreatedOn();
+        if (oldest == null) {
+            return;
+        }
+
+        // Months already past retention are left to the purge.
+        LocalDateTime visibleSince = retentionPolicy.visibleSince();
+        YearMonth month = YearMonth.from(oldest.isBefore(visibleSince) ? visibleSince : oldest);
+        YearMonth end = YearMonth.from(now.minus(properties.getAfter()));
+        for (; month.isBefore(end); month = month.plusMonths(1)) {
+            try {
+                archive(shard, month);
+            } catch (IOException | UncheckedIOException e) {
+                log.error("Could not archive activity logs of {} on shard {}, retrying next run", month, shard, e);
+                return;
+            }
+        }
+    }
+
+    private void archive(String shard, YearMonth month) throws IOException {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        if (!archive.contains(month, shard)) {
+            try (ActivityLogArchive.MonthWriter writer = archive.write(month, shard)) {
+                List<ActivityLog> rows = new ArrayList<>();
+                source.forEachCreatedBetween(from, to, row -> {
+                    if (!rows.isEmpty() && !rows.get(0).getUserId().equals(row.getUserId())) {
+                        append(writer, rows);
+                    }
+                    rows.add(row);
+                });
+                if (!rows.isEmpty()) {
+                    append(writer, rows);
+                }
+                if (!writer.commit()) {
+                    return;
+                }
+                archivedCounter.increment(writer.rowCount());
+                log.info("Archived {} activity logs of {} on shard {}", writer.rowCount(), month, shard);
+            }
+        }
+
+        int chunkSize = properties.getDeleteChunkSize();
+        int deleted;
+        do {
+            deleted = source.deleteCreatedBetween(from, to, chunkSize);
+        } while (deleted == chunkSize);
+    }
+
+    private static void append(ActivityLogArchive.MonthWriter writer, List<ActivityLog> rows) {
+        try {
+            writer.append(rows.get(0).getUserId(), rows);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rows.clear();
+    }
+}
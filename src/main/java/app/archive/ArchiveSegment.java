@@ -0,0 +1,162 @@
+package app.archive;
+
+import app.model.ActivityLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * One immutable, memory-mapped archive part holding the rows of many users:
+ * <pre>
+ * header      magic, version, row and user counts, dictionary size, oldest and newest creation time,
+ *             dictionary and index offsets
+ * blocks      per user, newest row first: 16-byte ids, creation times in microseconds as varints (the first one
+ *             whole, then the distance to the row before), action dictionary codes as varints
+ * dictionary  the distinct actions of the part, each a varint length and UTF-8 bytes
+ * index       one fixed-size entry per user, sorted by userId: userId, block offset, row count and the offset of
+ *             the action codes within the block
+ * </pre>
+ * A lookup is a binary search over the index followed by decoding one block, straight from the mapping.
+ */
+final class ArchiveSegment {
+
+    static final int MAGIC = 0x414c4152;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int INDEX_ENTRY_SIZE = 32;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long rowCount;
+    private final int userCount;
+    private final LocalDateTime oldest;
+    private final LocalDateTime newest;
+    private final int indexOffset;
+    private final String[] actions;
+
+    private ArchiveSegment(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+            throw new IOException("Not an archive segment: " + path);
+        }
+        this.rowCount = buffer.getLong(8);
+        this.userCount = buffer.getInt(16);
+        this.oldest = fromMicros(buffer.getLong(24));
+        this.newest = fromMicros(buffer.getLong(32));
+        this.indexOffset = Math.toIntExact(buffer.getLong(48));
+
+        ByteBuffer dictionary = buffer.duplicate().position(Math.toIntExact(buffer.getLong(40)));
+        this.actions = new String[buffer.getInt(20) + 1];
+        for (int code = 1; code < actions.length; code++) {
+            byte[] bytes = new byte[(int) readVarLong(dictionary)];
+            dictionary.get(bytes);
+            actions[code] = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ArchiveSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long rowCount() {
+        return rowCount;
+    }
+
+    long size() {
+        return buffer.capacity();
+    }
+
+    LocalDateTime oldest() {
+        return oldest;
+    }
+
+    LocalDateTime newest() {
+        return newest;
+    }
+
+    /**
+     * Passes the user's rows created at or after {@code notBefore} to {@code consumer}, newest first.
+     */
+    void read(UUID userId, LocalDateTime notBefore, Consumer<ActivityLog> consumer) {
+        int entry = find(userId);
+        if (entry < 0) {
+            return;
+        }
+        int blockOffset = Math.toIntExact(buffer.getLong(entry + 16));
+        int rows = buffer.getInt(entry + 24);
+        ByteBuffer times = buffer.duplicate().position(blockOffset + rows * 16);
+        ByteBuffer codes = buffer.duplicate().position(blockOffset + buffer.getInt(entry + 28));
+
+        long micros = 0;
+        for (int row = 0; row < rows; row++) {
+            long value = readVarLong(times);
+            micros = row == 0 ? value : micros - value;
+            LocalDateTime createdOn = fromMicros(micros);
+            if (createdOn.isBefore(notBefore)) {
+                return;
+            }
+            int idOffset = blockOffset + row * 16;
+            UUID id = new UUID(buffer.getLong(idOffset), buffer.getLong(idOffset + 8));
+            consumer.accept(new ActivityLog(id, userId, actions[(int) readVarLong(codes)], null, createdOn));
+        }
+    }
+
+    // Offset of the user's index entry, or -1. Entries are in the unsigned byte order of UuidBytes.compareUnsigned.
+    private int find(UUID userId) {
+        int low = 0;
+        int high = userCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = indexOffset + middle * INDEX_ENTRY_SIZE;
+            int comparison = Long.compareUnsigned(buffer.getLong(entry), userId.getMostSignificantBits());
+            if (comparison == 0) {
+                comparison = Long.compareUnsigned(buffer.getLong(entry + 8), userId.getLeastSignificantBits());
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    // Stored times keep microseconds, like the database column.
+    static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1000, ZoneOffset.UTC);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
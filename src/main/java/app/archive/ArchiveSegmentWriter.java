@@ -0,0 +1,157 @@
+package app.archive;
+
+import app.model.ActivityLog;
+import app.util.UuidBytes;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes one archive part in the layout described by {@link ArchiveSegment}. Users are added one at a time with all
+ * of their rows, newest first; the dictionary and the index are kept in memory and written on {@link #close()}.
+ */
+final class ArchiveSegmentWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final OutputStream out;
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> actions = new ArrayList<>();
+    private final List<IndexEntry> index = new ArrayList<>();
+
+    private long position = ArchiveSegment.HEADER_SIZE;
+    private long rowCount;
+    private long oldestMicros = Long.MAX_VALUE;
+    private long newestMicros = Long.MIN_VALUE;
+
+    ArchiveSegmentWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        channel.position(ArchiveSegment.HEADER_SIZE);
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+    }
+
+    /**
+     * Bytes written so far, for rolling over to a new part.
+     */
+    long size() {
+        return position;
+    }
+
+    long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Adds the block of one user: every id, then the creation times, the first one whole and the others as the
+     * distance to the row before, then the dictionary codes of the actions.
+     */
+    void append(UUID userId, List<ActivityLog> rows) throws IOException {
+        block.reset();
+        for (ActivityLog row : rows) {
+            block.write(UuidBytes.toBytes(row.getId()));
+        }
+
+        long previous = -1;
+        for (ActivityLog row : rows) {
+            long micros = ArchiveSegment.toMicros(row.getCreatedOn());
+            writeVarLong(block, previous < 0 ? micros : previous - micros);
+            previous = micros;
+            oldestMicros = Math.min(oldestMicros, micros);
+            newestMicros = Math.max(newestMicros, micros);
+        }
+
+        int actionsOffset = block.size();
+        for (ActivityLog row : rows) {
+            writeVarLong(block, code(row.getAction()));
+        }
+
+        index.add(new IndexEntry(userId, position, rows.size(), actionsOffset));
+        block.writeTo(out);
+        position += block.size();
+        rowCount += rows.size();
+    }
+
+    /**
+     * Writes the dictionary, the index and finally the header, and forces the file to disk.
+     */
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            long dictionaryOffset = position;
+            ByteArrayOutputStream dictionaryBytes = new ByteArrayOutputStream();
+            for (String action : actions) {
+                byte[] bytes = action.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(dictionaryBytes, bytes.length);
+                dictionaryBytes.write(bytes);
+            }
+            dictionaryBytes.writeTo(out);
+            position += dictionaryBytes.size();
+
+            long indexOffset = position;
+            index.sort((first, second) -> UuidBytes.compareUnsigned(first.userId(), second.userId()));
+            ByteBuffer entry = ByteBuffer.allocate(ArchiveSegment.INDEX_ENTRY_SIZE);
+            for (IndexEntry indexEntry : index) {
+                entry.clear();
+                entry.putLong(indexEntry.userId().getMostSignificantBits())
+                        .putLong(indexEntry.userId().getLeastSignificantBits())
+                        .putLong(indexEntry.offset())
+                        .putInt(indexEntry.rows())
+                        .putInt(indexEntry.actionsOffset());
+                out.write(entry.array());
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(ArchiveSegment.HEADER_SIZE)
+                    .putInt(ArchiveSegment.MAGIC)
+                    .putShort(ArchiveSegment.VERSION)
+                    .putShort((short) 0)
+                    .putLong(rowCount)
+                    .putInt(index.size())
+                    .putInt(actions.size())
+                    .putLong(oldestMicros)
+                    .putLong(newestMicros)
+                    .putLong(dictionaryOffset)
+                    .putLong(indexOffset)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+    }
+
+    // 0 stands for a missing action, dictionary entries start at 1.
+    private long code(String action) {
+        if (action == null) {
+            return 0;
+        }
+        return dictionary.computeIfAbsent(action, key -> {
+            actions.add(key);
+            return actions.size();
+        });
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private record IndexEntry(UUID userId, long offset, int rows, int actionsOffset) {
+    }
+}
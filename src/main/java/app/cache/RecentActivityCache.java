@@ -0,0 +1,169 @@
+package app.cache;
+
+import app.config.CacheProperties;
+import app.model.ActivityLog;
+import app.model.ActivityLogOrder;
+import app.model.ActivityLogView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the newest {@code recent-events} entries of recently read users, newest first. Writes are applied to
+ * cached heads in place and deletions drop the user, so reads never need to wait for the TTL to see them.
+ * When disabled every call goes straight to the loader.
+ */
+@Component
+public class RecentActivityCache {
+
+    private static final int STRIPES = 1024;
+
+    private final CacheProperties properties;
+    private final Cache<UUID, Entry> cache;
+
+    // Bumped on every write to a user; a load only stores its result if no write raced with it.
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STRIPES);
+
+    public RecentActivityCache(CacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        if (!properties.isEnabled()) {
+            this.cache = null;
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxUsers())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "activitylog.recent");
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public List<ActivityLogView> getAll(UUID userId, Supplier<List<ActivityLogView>> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+
+        Entry entry = cache.getIfPresent(userId);
+        if (entry != null && entry.complete()) {
+            return entry.items();
+        }
+
+        long stamp = writeStamps.get(stripe(userId));
+        List<ActivityLogView> activityLogs = loader.get();
+        store(userId, Entry.of(activityLogs, properties.getRecentEvents()), stamp);
+        return activityLogs;
+    }
+
+    /**
+     * Returns up to {@code count} of the user's newest entries. The loader is asked for a number of rows and is
+     * only called on a miss, or for every call when {@code count} is larger than what is kept per user.
+     */
+    public List<ActivityLogView> getRecent(UUID userId, int count, IntFunction<List<ActivityLogView>> loader) {
+        if (!cachesRecent(count)) {
+            return loader.apply(count);
+        }
+        int recentEvents = properties.getRecentEvents();
+
+        Entry entry = cache.getIfPresent(userId);
+        if (entry == null || !entry.covers(count)) {
+            long stamp = writeStamps.get(stripe(userId));
+            // One row past the window tells whether the cached head is the whole history.
+            entry = Entry.of(loader.apply(recentEvents + 1), recentEvents);
+            store(userId, entry, stamp);
+        }
+
+        List<ActivityLogView> items = entry.items();
+        return items.size() <= count ? items : items.subList(0, count);
+    }
+
+    /**
+     * Whether {@link #getRecent} keeps what its loader returns for {@code count} rows.
+     */
+    public boolean cachesRecent(int count) {
+        return cache != null && properties.isServeFirstPage() && count <= properties.getRecentEvents();
+    }
+
+    public void append(ActivityLog activityLog) {
+        if (cache == null) {
+            return;
+        }
+
+        ActivityLogView view = ActivityLogView.of(activityLog);
+        writeStamps.incrementAndGet(stripe(view.userId()));
+        cache.asMap().computeIfPresent(view.userId(),
+                (userId, entry) -> entry.with(view, properties.getRecentEvents()));
+    }
+
+    public void invalidate(UUID userId) {
+        if (cache == null) {
+            return;
+        }
+
+        writeStamps.incrementAndGet(stripe(userId));
+        cache.invalidate(userId);
+    }
+
+    private void store(UUID userId, Entry entry, long stamp) {
+        int stripe = stripe(userId);
+        cache.asMap().compute(userId, (key, existing) -> writeStamps.get(stripe) == stamp ? entry : existing);
+    }
+
+    private static int stripe(UUID userId) {
+        return (userId.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    private record Entry(List<ActivityLogView> items, boolean complete) {
+
+        static Entry of(List<ActivityLogView> activityLogs, int max) {
+            return activityLogs.size() > max
+                    ? new Entry(List.copyOf(activityLogs.subList(0, max)), false)
+                    : new Entry(List.copyOf(activityLogs), true);
+        }
+
+        boolean covers(int count) {
+            return complete || items.size() >= count;
+        }
+
+        Entry with(ActivityLogView activityLog, int max) {
+            for (ActivityLogView item : items) {
+                if (item.id().equals(activityLog.id())) {
+                    return this;
+                }
+            }
+
+            int position = Collections.binarySearch(items, activityLog, ActivityLogOrder.VIEWS_NEWEST_FIRST);
+            position = position < 0 ? -position - 1 : position;
+            if (!complete && position == items.size()) {
+                // Older than anything cached, and the rows behind the window are unknown.
+                return this;
+            }
+
+            List<ActivityLogView> updated = new ArrayList<>(items.size() + 1);
+            updated.addAll(items);
+            updated.add(position, activityLog);
+
+            boolean stillComplete = complete;
+            if (updated.size() > max) {
+                updated.remove(updated.size() - 1);
+                stillComplete = false;
+            }
+            return new Entry(List.copyOf(updated), stillComplete);
+        }
+    }
+}
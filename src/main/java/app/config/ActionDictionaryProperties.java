@@ -0,0 +1,21 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.action-dictionary")
+public class ActionDictionaryProperties {
+
+    // When off new events are stored inline; existing codes are still resolved.
+    private boolean enabled = false;
+
+    // Distinct actions kept in the dictionary, anything past this stays inline.
+    private int maxEntries = 10_000;
+
+    // Sightings of an action before it gets a code, so one-off values stay inline.
+    private int admitAfter = 3;
+
+    // Not-yet-admitted actions whose sightings are counted.
+    private long maxCandidates = 10_000;
+}
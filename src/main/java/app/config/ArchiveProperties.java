@@ -0,0 +1,31 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.archive")
+public class ArchiveProperties {
+
+    private boolean enabled = false;
+
+    // Segment files; every instance serving reads needs the same contents, so share it or run a single instance.
+    private String directory = "activity-log-archive";
+
+    // Events are archived a calendar month at a time, once the whole month is older than this.
+    private Duration after = Duration.ofDays(90);
+
+    private Duration interval = Duration.ofHours(6);
+
+    // A month is split into parts of about this size, each mapped into memory on its own (at most 2GB).
+    private DataSize maxPartSize = DataSize.ofMegabytes(512);
+
+    // Rows read per round trip while a month is archived.
+    private int fetchSize = 1000;
+
+    // Archived rows deleted from the table per statement, each one commits on its own.
+    private int deleteChunkSize = 5000;
+}
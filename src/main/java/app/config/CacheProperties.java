@@ -0,0 +1,24 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.cache")
+public class CacheProperties {
+
+    private boolean enabled = false;
+
+    // Users whose recent activity is kept.
+    private long maxUsers = 10_000;
+
+    // Most recent events kept per user.
+    private int recentEvents = 200;
+
+    private Duration ttl = Duration.ofMinutes(5);
+
+    // Also answer the first page of GET /api/v1/activity-log from the cached head.
+    private boolean serveFirstPage = true;
+}
@@ -0,0 +1,30 @@
+package app.config;
+
+import app.web.EpochMicrosModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Answers requests with {@code Accept: application/cbor} in CBOR. UUIDs are written as 16 raw bytes, which Jackson
+ * does on its own for formats with native binary values, and timestamps as integer epoch microseconds.
+ */
+@Configuration
+public class CborConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(cborObjectMapper(builder));
+    }
+
+    // Starts from the application's JSON settings, so both encodings expose the same properties.
+    public static ObjectMapper cborObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder
+                .factory(new CBORFactory())
+                .postConfigurer(objectMapper -> objectMapper.registerModule(new EpochMicrosModule()))
+                .build();
+    }
+}
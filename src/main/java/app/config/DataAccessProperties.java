@@ -0,0 +1,26 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.data-access")
+public class DataAccessProperties {
+
+    // How a user's history is loaded. PROJECTION builds plain read-only rows that never enter a persistence context.
+    private ReadPath readPath = ReadPath.ENTITY;
+
+    // How events without an idempotency key are inserted. STATELESS uses a Hibernate stateless session for both
+    // single and bulk writes instead of persisting entities and batching through plain JDBC.
+    private WritePath writePath = WritePath.ENTITY;
+
+    public enum ReadPath {
+        ENTITY,
+        PROJECTION
+    }
+
+    public enum WritePath {
+        ENTITY,
+        STATELESS
+    }
+}
@@ -0,0 +1,168 @@
+package app.config;
+
+import app.jdbc.ConcurrencyLimitingDataSource;
+import app.jdbc.ReadWriteRoutingDataSource;
+import app.jdbc.ShardRoutingDataSource;
+import app.jdbc.Shards;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Configuration(proxyBeanMethods = false)
+public class DataSourceConfig {
+
+    // Static and bound straight from the environment so the post-processor is registered before any DataSource.
+    @Bean
+    static BeanPostProcessor dataSourceWrappingPostProcessor(Environment environment) {
+        DatabaseProperties properties = Binder.get(environment)
+                .bind("activity-log.database", DatabaseProperties.class)
+                .orElseGet(DatabaseProperties::new);
+
+        return new DataSourceWrappingPostProcessor(properties);
+    }
+
+    @Bean
+    MeterBinder concurrencyLimitMetrics(DataSource dataSource) {
+        return registry -> {
+            try {
+                if (!dataSource.isWrapperFor(ConcurrencyLimitingDataSource.class)) {
+                    return;
+                }
+                ConcurrencyLimitingDataSource limiter = dataSource.unwrap(ConcurrencyLimitingDataSource.class);
+                Gauge.builder("activitylog.db.permits.available", limiter, ConcurrencyLimitingDataSource::getAvailablePermits)
+                        .description("Database permits not currently held")
+                        .register(registry);
+                Gauge.builder("activitylog.db.permits.waiting", limiter, ConcurrencyLimitingDataSource::getWaitingThreads)
+                        .description("Threads waiting for a database permit")
+                        .register(registry);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not inspect the DataSource", e);
+            }
+        };
+    }
+
+    /**
+     * Puts read/write routing (when replicas are configured) and then the concurrency guard in front of the
+     * DataSource. With shards configured, each shard gets a pool and a guard of its own and shard routing goes in
+     * front of them all. Replica and shard pools are created here and closed together with the primary.
+     */
+    private static class DataSourceWrappingPostProcessor implements DestructionAwareBeanPostProcessor {
+
+        private final DatabaseProperties properties;
+        private final Map<String, List<HikariDataSource>> replicaPools = new ConcurrentHashMap<>();
+        private final Map<String, List<HikariDataSource>> shardPools = new ConcurrentHashMap<>();
+
+        DataSourceWrappingPostProcessor(DatabaseProperties properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)
+                    || bean instanceof ConcurrencyLimitingDataSource
+                    || bean instanceof ReadWriteRoutingDataSource
+                    || bean instanceof ShardRoutingDataSource) {
+                return bean;
+            }
+
+            DataSource wrapped = dataSource;
+            if (!properties.getReplicas().isEmpty()) {
+                List<HikariDataSource> replicas = createReplicaPools();
+                replicaPools.put(beanName, replicas);
+                wrapped = new ReadWriteRoutingDataSource(
+                        wrapped, List.copyOf(replicas), properties.getReplicaRetryAfter());
+            }
+            wrapped = limitConcurrency(wrapped);
+            if (properties.getShards().isEmpty()) {
+                return wrapped;
+            }
+
+            List<HikariDataSource> pools = createShardPools();
+            shardPools.put(beanName, pools);
+            Map<String, DataSource> shards = new LinkedHashMap<>();
+            shards.put(Shards.PRIMARY, wrapped);
+            for (HikariDataSource pool : pools) {
+                shards.put(pool.getPoolName().substring("shard-".length()), limitConcurrency(pool));
+            }
+            return new ShardRoutingDataSource(wrapped, shards);
+        }
+
+        private DataSource limitConcurrency(DataSource dataSource) {
+            return properties.getMaxConcurrency() > 0
+                    ? new ConcurrencyLimitingDataSource(
+                            dataSource, properties.getMaxConcurrency(), properties.getAcquireTimeout())
+                    : dataSource;
+        }
+
+        @Override
+        public void postProcessBeforeDestruction(Object bean, String beanName) {
+            List<HikariDataSource> replicas = replicaPools.remove(beanName);
+            if (replicas != null) {
+                replicas.forEach(HikariDataSource::close);
+            }
+            List<HikariDataSource> shards = shardPools.remove(beanName);
+            if (shards != null) {
+                shards.forEach(HikariDataSource::close);
+            }
+        }
+
+        @Override
+        public boolean requiresDestruction(Object bean) {
+            return bean instanceof DataSource;
+        }
+
+        // Pools start lazily, so an unreachable replica does not keep the application from starting.
+        private List<HikariDataSource> createReplicaPools() {
+            List<HikariDataSource> pools = new ArrayList<>();
+            List<DatabaseProperties.Replica> replicas = properties.getReplicas();
+            for (int i = 0; i < replicas.size(); i++) {
+                DatabaseProperties.Replica replica = replicas.get(i);
+                HikariDataSource pool = DataSourceBuilder.create()
+                        .type(HikariDataSource.class)
+                        .url(replica.getUrl())
+                        .username(replica.getUsername())
+                        .password(replica.getPassword())
+                        .build();
+                pool.setPoolName("replica-" + (i + 1));
+                pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+                pool.setReadOnly(true);
+                pools.add(pool);
+            }
+            return pools;
+        }
+
+        private List<HikariDataSource> createShardPools() {
+            List<HikariDataSource> pools = new ArrayList<>();
+            for (DatabaseProperties.Shard shard : properties.getShards()) {
+                if (Shards.PRIMARY.equals(shard.getName())) {
+                    throw new IllegalStateException("Shard name '" + Shards.PRIMARY + "' is reserved for spring.datasource");
+                }
+                HikariDataSource pool = DataSourceBuilder.create()
+                        .type(HikariDataSource.class)
+                        .url(shard.getUrl())
+                        .username(shard.getUsername())
+                        .password(shard.getPassword())
+                        .build();
+                pool.setPoolName("shard-" + shard.getName());
+                pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+                pools.add(pool);
+            }
+            return pools;
+        }
+    }
+}
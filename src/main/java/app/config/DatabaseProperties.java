@@ -0,0 +1,62 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.database")
+public class DatabaseProperties {
+
+    // Connections that may be checked out at once, 0 leaves access unguarded. Keep it at or below the pool size.
+    private int maxConcurrency = 0;
+
+    // How long a caller waits for a permit before the request fails.
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+
+    // Read-only copies of the primary, used by methods annotated with @ReadFromReplica.
+    private List<Replica> replicas = new ArrayList<>();
+
+    // How long a replica that failed to hand out a connection is left out.
+    private Duration replicaRetryAfter = Duration.ofSeconds(30);
+
+    // Further databases holding activity data, each owning the users the consistent hash assigns to it. The
+    // configured spring.datasource is the shard named "primary" and also holds the shared action dictionary.
+    private List<Shard> shards = new ArrayList<>();
+
+    // Points each shard gets on the hash ring; more points spread users more evenly.
+    private int virtualNodes = 128;
+
+    // Users read and rows copied or deleted per statement when the rebalancer moves users to another shard.
+    private int rebalanceChunkSize = 1000;
+
+    @Data
+    public static class Shard {
+
+        // Identifies the shard on the hash ring; renaming a shard moves its users.
+        private String name;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
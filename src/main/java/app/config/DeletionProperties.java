@@ -0,0 +1,17 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.deletion")
+public class DeletionProperties {
+
+    // Rows flagged per UPDATE statement, each chunk commits in its own transaction.
+    private int chunkSize = 1000;
+
+    // How long finished background jobs stay queryable.
+    private Duration jobRetention = Duration.ofHours(1);
+}
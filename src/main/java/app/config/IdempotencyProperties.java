@@ -0,0 +1,28 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.idempotency")
+public class IdempotencyProperties {
+
+    // How long a key is remembered; a retry after this is stored as a new event.
+    private Duration window = Duration.ofHours(24);
+
+    // Keys expected per window, sizes the in-memory filter.
+    private int expectedKeys = 1_000_000;
+
+    // Share of new keys that still need a database lookup.
+    private double falsePositiveRate = 0.01;
+
+    // Recently created events kept in memory to answer retries.
+    private long recentEvents = 10_000;
+
+    private Duration purgeInterval = Duration.ofHours(1);
+
+    // Expired keys deleted per statement.
+    private int purgeChunkSize = 5000;
+}
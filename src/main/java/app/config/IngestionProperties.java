@@ -0,0 +1,80 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.ingestion")
+public class IngestionProperties {
+
+    private Mode mode = Mode.SYNC;
+
+    private int queueCapacity = 10_000;
+
+    private int batchSize = 500;
+
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    private Backpressure backpressure = Backpressure.REJECT;
+
+    // Only used with BLOCK: how long a request thread may wait for queue space before it is rejected anyway.
+    private Duration offerTimeout = Duration.ofSeconds(1);
+
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    private Bulk bulk = new Bulk();
+
+    private Spool spool = new Spool();
+
+    @Data
+    public static class Bulk {
+
+        // Events persisted per multi-row insert and transaction.
+        private int chunkSize = 500;
+
+        // Cap on the per-item errors echoed back, the rejected count itself is always exact.
+        private int maxReportedErrors = 100;
+    }
+
+    @Data
+    public static class Spool {
+
+        private String directory = "activity-log-spool";
+
+        // Size of each memory-mapped segment file.
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        // Disk space the spool may use; beyond it new events are rejected.
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+
+        private Fsync fsync = Fsync.INTERVAL;
+
+        // Only used with INTERVAL: the most recent events that may be lost if the host crashes.
+        private Duration fsyncInterval = Duration.ofSeconds(1);
+
+        // Pause before retrying a batch the database did not accept.
+        private Duration retryInterval = Duration.ofSeconds(1);
+    }
+
+    public enum Mode {
+        SYNC,
+        WRITE_BEHIND,
+        SPOOL
+    }
+
+    public enum Fsync {
+        // Every event is on disk before it is acknowledged.
+        ALWAYS,
+        INTERVAL,
+        // Left to the operating system; survives a process crash but not a host crash.
+        NEVER
+    }
+
+    public enum Backpressure {
+        REJECT,
+        BLOCK
+    }
+}
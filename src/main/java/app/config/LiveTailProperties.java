@@ -0,0 +1,29 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.live-tail")
+public class LiveTailProperties {
+
+    // Open subscriptions across all users; further subscribers are answered with 503.
+    private int maxSubscribers = 10_000;
+
+    // Threads sending to subscribers, kept apart from the executor that runs deletion jobs and shard fan-out.
+    private int threads = 4;
+
+    // Events held for a subscriber that has not caught up; a subscriber that falls further behind is disconnected.
+    private int bufferSize = 256;
+
+    // Events sent to a resuming subscriber before it is told to reload instead.
+    private int maxReplay = 1000;
+
+    // Comment sent to idle subscribers so proxies keep the connection and dead clients are noticed.
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    // Connections are closed after this long; clients reconnect with the last event id.
+    private Duration timeout = Duration.ofMinutes(30);
+}
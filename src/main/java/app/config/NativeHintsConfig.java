@@ -0,0 +1,44 @@
+package app.config;
+
+import app.repository.ActivityLogRepository;
+import app.web.dto.ActivityLogRequest;
+import app.web.dto.ActivityLogResponse;
+import app.web.dto.ActivityStatsResponse;
+import app.web.dto.BulkIngestError;
+import app.web.dto.BulkIngestResponse;
+import app.web.dto.DeletionJobResponse;
+import app.web.dto.RollupRebuildResponse;
+import app.web.dto.ShardRebalanceResponse;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reflection the AOT engine cannot derive from bean and controller signatures. The DTOs are also bound outside of
+ * handler methods: bulk ingestion, NDJSON export and the live feed stream them through the ObjectMapper.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.ActivityLogHints.class)
+@RegisterReflectionForBinding({
+        ActivityLogRequest.class,
+        ActivityLogResponse.class,
+        ActivityStatsResponse.class,
+        BulkIngestError.class,
+        BulkIngestResponse.class,
+        DeletionJobResponse.class,
+        RollupRebuildResponse.class,
+        ShardRebalanceResponse.class})
+public class NativeHintsConfig {
+
+    static class ActivityLogHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Default methods of the repository proxy are invoked reflectively.
+            hints.reflection().registerType(ActivityLogRepository.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.pagination")
+public class PaginationProperties {
+
+    // Used when a cursor is given without a limit.
+    private int defaultPageSize = 100;
+
+    // Larger limits are clamped to this value.
+    private int maxPageSize = 1000;
+}
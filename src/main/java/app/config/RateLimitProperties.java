@@ -0,0 +1,34 @@
+package app.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = false;
+
+    // A rate of 0 turns it off.
+    private Limit user = new Limit(50, 100);
+
+    // Shared by all users; a rate of 0 turns it off.
+    private Limit global = new Limit(0, 1);
+
+    // Users whose buckets are kept at once; beyond it the least recently seen start over with a full bucket.
+    private long maxTrackedUsers = 1_000_000;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        // Sustained events per second.
+        private double rate;
+
+        // Events accepted at once after a quiet period.
+        private int burst;
+    }
+}
@@ -0,0 +1,44 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.retention")
+public class RetentionProperties {
+
+    public enum Strategy {
+        // Chunked range DELETEs on created_on, works on any schema.
+        ROWS,
+        // Drops whole monthly partitions, needs db/mysql/partition-activity-log.sql applied first.
+        PARTITIONS
+    }
+
+    private boolean enabled = false;
+
+    // Events older than this are no longer returned and are purged.
+    private Duration maxAge = Duration.ofDays(365);
+
+    // Soft-deleted events are purged this long after they were deleted.
+    private Duration softDeletedGracePeriod = Duration.ofDays(7);
+
+    private Strategy strategy = Strategy.ROWS;
+
+    private Duration purgeInterval = Duration.ofHours(1);
+
+    // Rows removed per DELETE statement, each one commits on its own.
+    private int chunkSize = 5000;
+
+    private Duration pauseBetweenChunks = Duration.ofMillis(100);
+
+    // The purge waits while more than this many events are waiting in the write-behind queue.
+    private int yieldAboveQueueDepth = 1000;
+
+    // A single run stops after this long and picks up where it left off next time.
+    private Duration maxRunTime = Duration.ofMinutes(10);
+
+    // Monthly partitions created ahead of the current month.
+    private int partitionsAhead = 3;
+}
@@ -0,0 +1,20 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.rollup")
+public class RollupProperties {
+
+    // Counted events are buffered in memory and added to the stored counters this often.
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // Range used by the stats endpoint when from/to are not given.
+    private Duration defaultRange = Duration.ofDays(7);
+
+    // Longest range a single stats query may cover.
+    private Duration maxRange = Duration.ofDays(366);
+}
@@ -0,0 +1,20 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "activity-log.search")
+public class SearchProperties {
+
+    // Range searched when from is not given.
+    private Duration defaultRange = Duration.ofHours(24);
+
+    // Longest createdOn range a single search may cover.
+    private Duration maxRange = Duration.ofDays(31);
+
+    // Users one search may name.
+    private int maxUsers = 100;
+}
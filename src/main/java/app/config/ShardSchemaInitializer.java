@@ -0,0 +1,92 @@
+package app.config;
+
+import app.jdbc.ShardRoutingDataSource;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Applies the schema handling configured for the primary (spring.jpa.hibernate.ddl-auto) to the other shards, which
+ * the application's only EntityManagerFactory never sees at startup. Runs once all beans exist, before the
+ * application starts taking requests.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+    private final Shards shards;
+    private final DataSource dataSource;
+    private final JpaProperties jpaProperties;
+    private final HibernateProperties hibernateProperties;
+    private final EntityManagerFactoryBuilder entityManagerFactoryBuilder;
+    private final ConfigurableListableBeanFactory beanFactory;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!shards.isSharded()) {
+            return;
+        }
+
+        ShardRoutingDataSource router;
+        try {
+            router = dataSource.unwrap(ShardRoutingDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not inspect the DataSource", e);
+        }
+        for (String shard : shards.names()) {
+            if (!Shards.PRIMARY.equals(shard)) {
+                initialize(shard, router.getShard(shard));
+            }
+        }
+    }
+
+    // A short-lived EntityManagerFactory over the shard alone, closed as soon as Hibernate has run its schema tool.
+    private void initialize(String shard, DataSource shardDataSource) {
+        String ddlAuto = ddlAuto(shardDataSource);
+        if ("none".equals(ddlAuto)) {
+            return;
+        }
+
+        Map<String, Object> settings = new HashMap<>(hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings()));
+        settings.put(AvailableSettings.HBM2DDL_AUTO, ddlAuto);
+        settings.put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory));
+
+        LocalContainerEntityManagerFactoryBean factory = entityManagerFactoryBuilder
+                .dataSource(shardDataSource)
+                .packages(ActivityLog.class)
+                .persistenceUnit("shard-" + shard)
+                .properties(settings)
+                .build();
+        factory.afterPropertiesSet();
+        factory.destroy();
+        log.info("Applied schema action '{}' to shard {}", ddlAuto, shard);
+    }
+
+    // Like Boot's default for the primary, except that a shard's tables are never dropped on shutdown.
+    private String ddlAuto(DataSource shardDataSource) {
+        String configured = hibernateProperties.getDdlAuto();
+        if (configured == null) {
+            return EmbeddedDatabaseConnection.isEmbedded(shardDataSource) ? "create" : "none";
+        }
+        return "create-drop".equals(configured) ? "create" : configured;
+    }
+}
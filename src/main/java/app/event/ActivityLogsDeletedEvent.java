@@ -0,0 +1,9 @@
+package app.event;
+
+import java.util.UUID;
+
+/**
+ * Published after all of a user's events have been soft deleted.
+ */
+public record ActivityLogsDeletedEvent(UUID userId, long deletedCount) {
+}
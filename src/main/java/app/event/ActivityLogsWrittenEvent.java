@@ -0,0 +1,12 @@
+package app.event;
+
+import app.model.ActivityLog;
+
+import java.util.List;
+
+/**
+ * Published once events are committed, from the request thread for synchronous and bulk writes and from the
+ * background writer in write-behind mode.
+ */
+public record ActivityLogsWrittenEvent(List<ActivityLog> activityLogs) {
+}
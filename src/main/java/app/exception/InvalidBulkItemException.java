@@ -0,0 +1,8 @@
+package app.exception;
+
+public class InvalidBulkItemException extends RuntimeException {
+
+    public InvalidBulkItemException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package app.exception;
+
+public class MalformedBulkPayloadException extends RuntimeException {
+
+    public MalformedBulkPayloadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,360 @@
+package app.ingestion;
+
+import app.config.IngestionProperties;
+import app.event.ActivityLogsWrittenEvent;
+import app.exception.IngestionRejectedException;
+import app.model.ActivityLog;
+import app.repository.ActivityLogBatchWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Durable alternative to {@link WriteBehindQueue}: events are appended to memory-mapped segment files on local disk
+ * and acknowledged at once, and a background replayer writes them to the database in batches, retrying for as long
+ * as the database is unavailable. Segments left by a previous run are replayed on start.
+ * <p>
+ * Each segment records how far it has been committed to the database. An event replayed again because the process
+ * stopped between its commit and that record has an id that is already stored, which the batch writer skips.
+ */
+@Slf4j
+@Component
+public class ActivityLogSpool implements SmartLifecycle {
+
+    // Stop after the web server has stopped taking requests, so nothing is appended while draining.
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final IngestionProperties properties;
+    private final ActivityLogBatchWriter batchWriter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Oldest first; the last one takes new records.
+    private final Deque<SpoolSegment> segments = new ConcurrentLinkedDeque<>();
+
+    private final Counter replayedCounter;
+    private final Counter retriedCounter;
+    private final Counter rejectedCounter;
+
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread replayerThread;
+    private Path directory;
+    private long nextSequence;
+    private long lastForced;
+
+    public ActivityLogSpool(IngestionProperties properties,
+                            ActivityLogBatchWriter batchWriter,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.batchWriter = batchWriter;
+        this.eventPublisher = eventPublisher;
+
+        Gauge.builder("activitylog.spool.segments", segments, Deque::size)
+                .description("Spool segment files on disk")
+                .register(meterRegistry);
+        Gauge.builder("activitylog.spool.pending", this, ActivityLogSpool::pendingBytes)
+                .description("Bytes of spooled events not yet written to the database")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.replayedCounter = Counter.builder("activitylog.spool.replayed")
+                .description("Spooled events written to the database")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("activitylog.spool.retries")
+                .description("Spooled batches the database did not accept and that will be retried")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("activitylog.spool.rejected")
+                .description("Events rejected because the spool was full")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == IngestionProperties.Mode.SPOOL;
+    }
+
+    public void append(ActivityLog activityLog) {
+        if (!accepting) {
+            throw new IngestionRejectedException("Activity log ingestion is not accepting events");
+        }
+
+        byte[] record = encode(activityLog);
+        IngestionProperties.Spool spool = properties.getSpool();
+        synchronized (this) {
+            SpoolSegment active = segments.getLast();
+            if (!active.append(record)) {
+                if (segments.size() >= maxSegments()) {
+                    rejectedCounter.increment();
+                    throw new IngestionRejectedException("Activity log spool is full");
+                }
+                // A sealed segment is complete on disk before anything is written after it, and is never the
+                // last one, so the replayer can discard it once committed.
+                active.force();
+                SpoolSegment next = newSegment();
+                active.seal();
+                active = next;
+                if (!active.append(record)) {
+                    throw new IllegalStateException("Event does not fit into an empty spool segment");
+                }
+            }
+            if (spool.getFsync() == IngestionProperties.Fsync.ALWAYS) {
+                active.force();
+            }
+        }
+    }
+
+    /**
+     * Bytes of records appended but not yet committed to the database.
+     */
+    public long pendingBytes() {
+        long pending = 0;
+        for (SpoolSegment segment : segments) {
+            pending += segment.writePosition() - segment.committedOffset();
+        }
+        return pending;
+    }
+
+    @Override
+    public void start() {
+        if (!isEnabled() || running) {
+            return;
+        }
+
+        directory = Path.of(properties.getSpool().getDirectory());
+        try {
+            Files.createDirectories(directory);
+            recover();
+            newSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open activity log spool in " + directory.toAbsolutePath(), e);
+        }
+
+        running = true;
+        accepting = true;
+        replayerThread = new Thread(this::runReplayer, "activity-log-spool-replayer");
+        replayerThread.setDaemon(true);
+        replayerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+
+        accepting = false;
+        running = false;
+        LockSupport.unpark(replayerThread);
+
+        try {
+            replayerThread.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (replayerThread.isAlive()) {
+            replayerThread.interrupt();
+            log.warn("Activity log spool did not drain within {}, the rest is replayed on the next start",
+                    properties.getShutdownTimeout());
+        }
+        segments.forEach(SpoolSegment::force);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(path -> path.getFileName().toString().matches("segment-\\d{20}\\.spool"))
+                    .sorted()
+                    .toList();
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long sequence = Long.parseLong(name.substring("segment-".length(), name.length() - ".spool".length()));
+            SpoolSegment segment = SpoolSegment.recover(file, sequence);
+            nextSequence = sequence + 1;
+            if (segment.hasUncommitted()) {
+                segments.addLast(segment);
+            } else {
+                segment.delete();
+            }
+        }
+        if (!segments.isEmpty()) {
+            log.info("Replaying {} bytes of spooled activity logs from {}", pendingBytes(), directory.toAbsolutePath());
+        }
+    }
+
+    private SpoolSegment newSegment() {
+        try {
+            SpoolSegment segment = SpoolSegment.create(directory, nextSequence++,
+                    (int) properties.getSpool().getSegmentSize().toBytes());
+            segments.addLast(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create activity log spool segment", e);
+        }
+    }
+
+    private long maxSegments() {
+        IngestionProperties.Spool spool = properties.getSpool();
+        return Math.max(2, spool.getMaxSize().toBytes() / spool.getSegmentSize().toBytes());
+    }
+
+    private void runReplayer() {
+        long idleNanos = properties.getFlushInterval().toNanos();
+        long retryNanos = properties.getSpool().getRetryInterval().toNanos();
+
+        while ((running || hasUncommitted()) && !Thread.currentThread().isInterrupted()) {
+            forceIfDue();
+
+            SpoolSegment oldest = segments.getFirst();
+            int offset = oldest.committedOffset();
+            // Checked before reading: a segment sealed after the read may have taken records the read did not see.
+            boolean sealed = oldest.isSealed();
+            List<ActivityLog> batch = new ArrayList<>(properties.getBatchSize());
+            int end = oldest.read(offset, properties.getBatchSize(), record -> batch.add(decode(record)));
+
+            if (batch.isEmpty()) {
+                if (sealed) {
+                    discard(oldest);
+                } else if (running) {
+                    LockSupport.parkNanos(idleNanos);
+                }
+                continue;
+            }
+
+            try {
+                batchWriter.insertAll(batch);
+            } catch (RuntimeException e) {
+                retriedCounter.increment();
+                log.warn("Failed to replay {} spooled activity logs, retrying in {}", batch.size(),
+                        properties.getSpool().getRetryInterval(), e);
+                LockSupport.parkNanos(retryNanos);
+                continue;
+            }
+
+            oldest.commit(end);
+            if (sealed && end == oldest.writePosition()) {
+                discard(oldest);
+            }
+            replayedCounter.increment(batch.size());
+            try {
+                eventPublisher.publishEvent(new ActivityLogsWrittenEvent(batch));
+            } catch (RuntimeException e) {
+                log.error("Failed to publish replayed batch of {} activity logs", batch.size(), e);
+            }
+        }
+    }
+
+    private boolean hasUncommitted() {
+        return segments.stream().anyMatch(SpoolSegment::hasUncommitted);
+    }
+
+    private void forceIfDue() {
+        IngestionProperties.Spool spool = properties.getSpool();
+        if (spool.getFsync() != IngestionProperties.Fsync.INTERVAL
+                || System.nanoTime() - lastForced < spool.getFsyncInterval().toNanos()) {
+            return;
+        }
+        segments.getLast().force();
+        lastForced = System.nanoTime();
+    }
+
+    private void discard(SpoolSegment segment) {
+        segments.removeFirst();
+        try {
+            segment.delete();
+        } catch (IOException e) {
+            log.warn("Could not delete replayed spool segment {}", SpoolSegment.fileName(segment.sequence()), e);
+        }
+    }
+
+    static byte[] encode(ActivityLog activityLog) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeUuid(out, activityLog.getId());
+            writeUuid(out, activityLog.getUserId());
+            out.writeLong(activityLog.getCreatedOn().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(activityLog.getCreatedOn().getNano());
+            out.writeInt(activityLog.getActionCode() == null ? -1 : activityLog.getActionCode());
+            out.writeUTF(activityLog.getAction());
+            out.writeBoolean(activityLog.getIdempotencyKey() != null);
+            if (activityLog.getIdempotencyKey() != null) {
+                out.writeUTF(activityLog.getIdempotencyKey());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static ActivityLog decode(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported spool record version " + version);
+            }
+            UUID id = readUuid(in);
+            UUID userId = readUuid(in);
+            LocalDateTime createdOn = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            int actionCode = in.readInt();
+            String action = in.readUTF();
+            String idempotencyKey = in.readBoolean() ? in.readUTF() : null;
+            return ActivityLog.builder()
+                    .id(id)
+                    .userId(userId)
+                    .createdOn(createdOn)
+                    .action(action)
+                    .actionCode(actionCode < 0 ? null : actionCode)
+                    .storedAction(actionCode < 0 ? action : null)
+                    .idempotencyKey(idempotencyKey)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
@@ -0,0 +1,181 @@
+package app.ingestion;
+
+import app.config.IdempotencyProperties;
+import app.exception.InvalidIdempotencyKeyException;
+import app.jdbc.ShardKey;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.model.IdempotencyKey;
+import app.repository.ActivityLogRepository;
+import app.util.BloomFilter;
+import app.util.UuidBytes;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * In-memory front of the idempotency_key table. Two generations of Bloom filters remember which keys were used in
+ * the last window, so a new key, the common case, is admitted without a database read. Only keys that may have been
+ * seen are looked up, first among recently created events and then in the table.
+ */
+@Slf4j
+@Component
+public class IdempotencyGuard {
+
+    private static final String SELECT_SQL =
+            "select activity_log_id from idempotency_key where user_id = ? and idempotency_key = ?";
+    private static final String SELECT_SINCE_SQL =
+            "select user_id, idempotency_key from idempotency_key where created_on >= ?";
+    private static final String DELETE_BEFORE_SQL = "delete from idempotency_key where created_on < ? limit ?";
+
+    private final IdempotencyProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityLogRepository activityLogRepository;
+    private final Shards shards;
+
+    private final Cache<String, ActivityLog> recent;
+    private final Counter newKeys;
+    private final Counter memoryHits;
+    private final Counter databaseLookups;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private volatile long rotatedAt;
+
+    public IdempotencyGuard(IdempotencyProperties properties,
+                            JdbcTemplate jdbcTemplate,
+                            ActivityLogRepository activityLogRepository,
+                            Shards shards,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.activityLogRepository = activityLogRepository;
+        this.shards = shards;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(properties.getRecentEvents())
+                .expireAfterWrite(properties.getWindow())
+                .build();
+        this.current = newFilter();
+        this.previous = newFilter();
+        this.rotatedAt = System.nanoTime();
+        this.newKeys = lookupCounter(meterRegistry, "new");
+        this.memoryHits = lookupCounter(meterRegistry, "memory");
+        this.databaseLookups = lookupCounter(meterRegistry, "database");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        Timestamp since = Timestamp.valueOf(LocalDateTime.now().minus(properties.getWindow()));
+        BloomFilter filter = current;
+        int[] loaded = {0};
+        shards.forEach(shard -> jdbcTemplate.query(SELECT_SINCE_SQL, rs -> {
+            filter.put(cacheKey(UuidBytes.fromBytes(rs.getBytes(1)), rs.getString(2)));
+            loaded[0]++;
+        }, since));
+        log.info("Loaded {} idempotency keys", loaded[0]);
+    }
+
+    public static void validate(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyKey.MAX_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency key must be 1 to " + IdempotencyKey.MAX_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * The event first logged with this key within the window, if any.
+     */
+    public Optional<ActivityLog> findOriginal(@ShardKey UUID userId, String idempotencyKey) {
+        String key = cacheKey(userId, idempotencyKey);
+        rotateIfDue();
+        if (!current.mightContain(key) && !previous.mightContain(key)) {
+            newKeys.increment();
+            return Optional.empty();
+        }
+
+        ActivityLog original = recent.getIfPresent(key);
+        if (original != null) {
+            memoryHits.increment();
+            return Optional.of(original);
+        }
+        return loadOriginal(userId, idempotencyKey);
+    }
+
+    /**
+     * Looks the key up in the database, for when an insert found it already stored.
+     */
+    public Optional<ActivityLog> loadOriginal(@ShardKey UUID userId, String idempotencyKey) {
+        databaseLookups.increment();
+        List<byte[]> ids = jdbcTemplate.query(SELECT_SQL, (rs, row) -> rs.getBytes(1),
+                UuidBytes.toBytes(userId), idempotencyKey);
+        Optional<ActivityLog> original = ids.stream()
+                .findFirst()
+                .flatMap(id -> activityLogRepository.findById(UuidBytes.fromBytes(id)));
+        original.ifPresent(this::remember);
+        return original;
+    }
+
+    public void remember(ActivityLog activityLog) {
+        String key = cacheKey(activityLog.getUserId(), activityLog.getIdempotencyKey());
+        rotateIfDue();
+        current.put(key);
+        recent.put(key, activityLog);
+    }
+
+    @Scheduled(initialDelayString = "${activity-log.idempotency.purge-interval:1h}",
+            fixedDelayString = "${activity-log.idempotency.purge-interval:1h}")
+    public void purgeExpired() {
+        Timestamp before = Timestamp.valueOf(LocalDateTime.now().minus(properties.getWindow()));
+        long[] purged = {0};
+        shards.forEach(shard -> {
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update(DELETE_BEFORE_SQL, before, properties.getPurgeChunkSize());
+                purged[0] += deleted;
+            } while (deleted == properties.getPurgeChunkSize());
+        });
+        log.debug("Purged {} expired idempotency keys", purged[0]);
+    }
+
+    // A key stays in the current or the previous filter for at least one full window.
+    private void rotateIfDue() {
+        if (System.nanoTime() - rotatedAt < properties.getWindow().toNanos()) {
+            return;
+        }
+        synchronized (this) {
+            if (System.nanoTime() - rotatedAt >= properties.getWindow().toNanos()) {
+                previous = current;
+                current = newFilter();
+                rotatedAt = System.nanoTime();
+            }
+        }
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(properties.getExpectedKeys(), properties.getFalsePositiveRate());
+    }
+
+    private static String cacheKey(UUID userId, String idempotencyKey) {
+        return userId + ":" + idempotencyKey;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("activitylog.idempotency.lookups")
+                .description("Idempotency key checks by where they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
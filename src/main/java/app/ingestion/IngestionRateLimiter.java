@@ -0,0 +1,132 @@
+package app.ingestion;
+
+import app.config.RateLimitProperties;
+import app.exception.InvalidBulkItemException;
+import app.exception.RateLimitExceededException;
+import app.util.TokenBucket;
+import app.web.dto.ActivityLogRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Ingestion quotas checked before events reach the service: a token bucket per user and one shared by all users,
+ * each turned off by a rate of 0. Per-user buckets live in a bounded cache so memory stays flat however many distinct
+ * users write. Idle buckets are dropped once they would have refilled, which loses nothing; when more than
+ * {@code maxTrackedUsers} are active the least recently seen are dropped early and start over with a full bucket.
+ */
+@Component
+public class IngestionRateLimiter {
+
+    private final boolean enabled;
+    private final TokenBucket userLimit;
+    private final TokenBucket globalLimit;
+    private final AtomicLong globalBucket;
+    private final Cache<UUID, AtomicLong> userBuckets;
+    private final Function<UUID, AtomicLong> newUserBucket;
+    private final Counter userRejections;
+    private final Counter globalRejections;
+
+    public IngestionRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        RateLimitProperties.Limit user = properties.getUser();
+        this.userLimit = user.getRate() > 0 ? new TokenBucket(user.getRate(), user.getBurst()) : null;
+        RateLimitProperties.Limit global = properties.getGlobal();
+        this.globalLimit = global.getRate() > 0 ? new TokenBucket(global.getRate(), global.getBurst()) : null;
+        this.globalBucket = globalLimit != null ? globalLimit.newBucket() : null;
+        Caffeine<Object, Object> userBucketsBuilder = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedUsers());
+        if (userLimit != null) {
+            userBucketsBuilder.expireAfterAccess(userLimit.refillTime());
+        }
+        this.userBuckets = userBucketsBuilder.build();
+        this.newUserBucket = userId -> userLimit.newBucket();
+        this.userRejections = rejectionCounter(meterRegistry, "user");
+        this.globalRejections = rejectionCounter(meterRegistry, "global");
+        Gauge.builder("activitylog.ratelimit.users", userBuckets, Cache::estimatedSize)
+                .description("Users with a rate limit bucket in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one event from the user's quota and the global one.
+     *
+     * @throws RateLimitExceededException when either is used up
+     */
+    public void acquire(UUID userId) {
+        if (!enabled) {
+            return;
+        }
+        long wait = tryAcquire(userId);
+        if (wait > 0) {
+            throw new RateLimitExceededException("Activity log rate limit exceeded", Duration.ofNanos(wait));
+        }
+    }
+
+    /**
+     * Applies the quotas to each item of a bulk request as it is read; items over them are reported as rejected.
+     */
+    public Iterator<ActivityLogRequest> limit(Iterator<ActivityLogRequest> requests) {
+        if (!enabled) {
+            return requests;
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return requests.hasNext();
+            }
+
+            @Override
+            public ActivityLogRequest next() {
+                ActivityLogRequest request = requests.next();
+                if (tryAcquire(request.getUserId()) > 0) {
+                    throw new InvalidBulkItemException("Rate limit exceeded");
+                }
+                return request;
+            }
+        };
+    }
+
+    // Nanoseconds until the event would be admitted, 0 if it was.
+    private long tryAcquire(UUID userId) {
+        long now = System.nanoTime();
+        AtomicLong userBucket = null;
+        // A missing userId is rejected by validation later, only the global quota applies to it.
+        if (userId != null && userLimit != null) {
+            userBucket = userBuckets.get(userId, newUserBucket);
+            long wait = userLimit.tryAcquire(userBucket, now);
+            if (wait > 0) {
+                userRejections.increment();
+                return wait;
+            }
+        }
+        if (globalLimit != null) {
+            long wait = globalLimit.tryAcquire(globalBucket, now);
+            if (wait > 0) {
+                // Not admitted, so it does not count against the user either.
+                if (userBucket != null) {
+                    userLimit.release(userBucket);
+                }
+                globalRejections.increment();
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String limit) {
+        return Counter.builder("activitylog.ratelimit.rejected")
+                .description("Events rejected for exceeding an ingestion rate limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+}
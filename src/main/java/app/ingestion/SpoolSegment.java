@@ -0,0 +1,163 @@
+package app.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped spool file. A header holds the offset up to which records are stored in the database; after it
+ * come records prefixed with their length and checksum. Unwritten space is zero, so a zero length marks the end.
+ * A single thread appends and a single thread reads and commits.
+ */
+@Slf4j
+final class SpoolSegment {
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int MAGIC = 0x414c5350;
+    private static final int COMMITTED_OFFSET = 4;
+
+    private final long sequence;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+
+    // Published after the record bytes, so the reader never sees a partially written record.
+    private volatile int writePosition;
+    private volatile boolean sealed;
+
+    private SpoolSegment(long sequence, Path path, MappedByteBuffer buffer, int writePosition, boolean sealed) {
+        this.sequence = sequence;
+        this.path = path;
+        this.buffer = buffer;
+        this.writePosition = writePosition;
+        this.sealed = sealed;
+    }
+
+    static SpoolSegment create(Path directory, long sequence, int size) throws IOException {
+        Path path = directory.resolve(fileName(sequence));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(COMMITTED_OFFSET, HEADER_SIZE);
+        buffer.force();
+        return new SpoolSegment(sequence, path, buffer, HEADER_SIZE, false);
+    }
+
+    /**
+     * Maps a segment left by a previous run, sealed: new records go to a new segment. Records after the first torn
+     * or corrupt one are unreachable and ignored.
+     */
+    static SpoolSegment recover(Path path, long sequence) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a spool segment: " + path);
+        }
+
+        int position = HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + RECORD_HEADER_SIZE, payload);
+            if (checksum(payload) != buffer.getInt(position + 4)) {
+                log.warn("Ignoring torn record at offset {} of spool segment {}", position, path);
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return new SpoolSegment(sequence, path, buffer, position, true);
+    }
+
+    static String fileName(long sequence) {
+        return String.format("segment-%020d.spool", sequence);
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    int committedOffset() {
+        return buffer.getInt(COMMITTED_OFFSET);
+    }
+
+    boolean hasUncommitted() {
+        return committedOffset() < writePosition;
+    }
+
+    /**
+     * Appends a record, or returns false if it does not fit; the caller then moves on to a new segment.
+     */
+    boolean append(byte[] payload) {
+        int position = writePosition;
+        if (position + RECORD_HEADER_SIZE + payload.length > buffer.capacity()) {
+            return false;
+        }
+        buffer.put(position + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(position + 4, checksum(payload));
+        buffer.putInt(position, payload.length);
+        writePosition = position + RECORD_HEADER_SIZE + payload.length;
+        return true;
+    }
+
+    /**
+     * Passes up to {@code max} records starting at {@code offset} to {@code consumer} and returns the offset after
+     * the last one.
+     */
+    int read(int offset, int max, Consumer<byte[]> consumer) {
+        int end = writePosition;
+        int position = offset;
+        for (int count = 0; count < max && position < end; count++) {
+            byte[] payload = new byte[buffer.getInt(position)];
+            buffer.get(position + RECORD_HEADER_SIZE, payload);
+            consumer.accept(payload);
+            position += RECORD_HEADER_SIZE + payload.length;
+        }
+        return position;
+    }
+
+    void commit(int offset) {
+        buffer.putInt(COMMITTED_OFFSET, offset);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,222 @@
+package app.ingestion;
+
+import app.cache.RecentActivityCache;
+import app.config.IngestionProperties;
+import app.event.ActivityLogsWrittenEvent;
+import app.exception.IngestionRejectedException;
+import app.model.ActivityLog;
+import app.repository.ActivityLogBatchWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory buffer between the request threads and the database. Events are accepted on the
+ * request thread and written by a single background writer in JDBC batches, flushed when either
+ * {@code batch-size} events are pending or {@code flush-interval} has passed since the first one.
+ */
+@Slf4j
+@Component
+public class WriteBehindQueue implements SmartLifecycle {
+
+    // Stop after the web server has stopped taking requests, so nothing is enqueued while draining.
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final IngestionProperties properties;
+    private final ActivityLogBatchWriter batchWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecentActivityCache recentActivityCache;
+    private final BlockingQueue<ActivityLog> queue;
+
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public WriteBehindQueue(IngestionProperties properties,
+                            ActivityLogBatchWriter batchWriter,
+                            ApplicationEventPublisher eventPublisher,
+                            RecentActivityCache recentActivityCache,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.batchWriter = batchWriter;
+        this.eventPublisher = eventPublisher;
+        this.recentActivityCache = recentActivityCache;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        Gauge.builder("activitylog.ingestion.queue.depth", queue, BlockingQueue::size)
+                .description("Events waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("activitylog.ingestion.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .description("Free slots left in the ingestion queue")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("activitylog.ingestion.flush")
+                .description("Time taken to write one batch to the database")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("activitylog.ingestion.flushed")
+                .description("Events written by the background writer")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("activitylog.ingestion.failed")
+                .description("Events dropped because their batch could not be written")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("activitylog.ingestion.rejected")
+                .description("Events rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.getMode() == IngestionProperties.Mode.WRITE_BEHIND;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public void enqueue(ActivityLog activityLog) {
+        if (!accepting) {
+            throw new IngestionRejectedException("Activity log ingestion is not accepting events");
+        }
+
+        if (!offer(activityLog)) {
+            rejectedCounter.increment();
+            throw new IngestionRejectedException("Activity log ingestion queue is full");
+        }
+    }
+
+    private boolean offer(ActivityLog activityLog) {
+        if (properties.getBackpressure() == IngestionProperties.Backpressure.REJECT) {
+            return queue.offer(activityLog);
+        }
+
+        try {
+            return queue.offer(activityLog, properties.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!isEnabled() || running) {
+            return;
+        }
+
+        running = true;
+        accepting = true;
+        writerThread = new Thread(this::runWriter, "activity-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+
+        accepting = false;
+        running = false;
+
+        try {
+            writerThread.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+            log.warn("Activity log writer did not drain within {}, {} events were not written",
+                    properties.getShutdownTimeout(), queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void runWriter() {
+        int batchSize = properties.getBatchSize();
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<ActivityLog> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                ActivityLog first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+
+                    ActivityLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            }
+
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<ActivityLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            flushTimer.record(() -> batchWriter.insertAll(batch));
+            flushedCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.error("Failed to write batch of {} activity logs", batch.size(), e);
+            // The events were added to cached heads when they were accepted; reload those users from the database.
+            batch.stream().map(ActivityLog::getUserId).distinct().forEach(recentActivityCache::invalidate);
+            return;
+        }
+
+        try {
+            eventPublisher.publishEvent(new ActivityLogsWrittenEvent(List.copyOf(batch)));
+        } catch (RuntimeException e) {
+            log.error("Failed to publish written batch of {} activity logs", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package app.jdbc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Connections opened while the annotated method runs come from a read replica when one is configured. A method
+ * that joins a transaction already in progress keeps using that transaction's connection.
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadFromReplica {
+}
@@ -0,0 +1,73 @@
+package app.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hands out connections to the primary, except while {@link ReplicaRouting} is active on the calling thread. Those
+ * connections come from the replicas in turn; a replica that fails to connect is skipped for {@code retryAfter},
+ * and the primary serves the read when no replica is available.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends DelegatingDataSource {
+
+    private final List<DataSource> replicas;
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    // System.nanoTime() from which each replica may be tried again.
+    private final AtomicLongArray availableFrom;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration retryAfter) {
+        super(primary);
+        this.replicas = List.copyOf(replicas);
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.availableFrom = new AtomicLongArray(replicas.size());
+        long now = System.nanoTime();
+        for (int i = 0; i < replicas.size(); i++) {
+            availableFrom.set(i, now);
+        }
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReplicaRouting.isActive() && !replicas.isEmpty()) {
+            Connection connection = getReplicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return getTargetDataSource().getConnection();
+    }
+
+    private Connection getReplicaConnection() {
+        int count = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            int index = (start + i) % count;
+            long now = System.nanoTime();
+            if (now - availableFrom.get(index) < 0) {
+                continue;
+            }
+            try {
+                return replicas.get(index).getConnection();
+            } catch (SQLException | RuntimeException e) {
+                availableFrom.set(index, now + retryAfterNanos);
+                log.warn("Read replica {} is unavailable, skipping it for {}", index + 1,
+                        Duration.ofNanos(retryAfterNanos), e);
+            }
+        }
+        return null;
+    }
+}
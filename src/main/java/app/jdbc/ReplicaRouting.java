@@ -0,0 +1,47 @@
+package app.jdbc;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread switch read by {@link ReadWriteRoutingDataSource}.
+ */
+@UtilityClass
+public class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> READ_FROM_REPLICA = ThreadLocal.withInitial(() -> false);
+
+    public static boolean isActive() {
+        return READ_FROM_REPLICA.get();
+    }
+
+    /**
+     * Routes this thread's new connections to replicas and returns the previous setting for {@link #restore}.
+     */
+    public static boolean activate() {
+        boolean previous = READ_FROM_REPLICA.get();
+        READ_FROM_REPLICA.set(true);
+        return previous;
+    }
+
+    /**
+     * Runs {@code read} with this thread's new connections routed to replicas, like a {@link ReadFromReplica} method.
+     */
+    public static <T> T call(Supplier<T> read) {
+        boolean previous = activate();
+        try {
+            return read.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void restore(boolean previous) {
+        if (previous) {
+            READ_FROM_REPLICA.set(true);
+        } else {
+            READ_FROM_REPLICA.remove();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package app.jdbc;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Runs outside @Transactional so a transaction started by the method opens its connection on a replica.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReplicaRoutingAspect {
+
+    @Around("@annotation(app.jdbc.ReadFromReplica) || @within(app.jdbc.ReadFromReplica)")
+    public Object routeToReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = ReplicaRouting.activate();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRouting.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package app.jdbc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Consistent hash ring assigning each user to a shard. Every shard owns {@code virtualNodes} points on the ring and a
+ * user belongs to the first point at or after the user's hash, so adding a shard only moves the users it takes over.
+ * The hash functions are part of the data layout: changing them moves every user.
+ */
+public final class ShardRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final List<String> shards;
+
+    public ShardRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("A shard ring needs at least one shard");
+        }
+        this.shards = List.copyOf(shards);
+        for (String shard : this.shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                String previous = points.put(hash(shard + "#" + i), shard);
+                if (previous != null && !previous.equals(shard)) {
+                    throw new IllegalArgumentException("Shards " + previous + " and " + shard + " collide on the ring");
+                }
+            }
+        }
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    public String shardFor(UUID userId) {
+        long hash = mix(userId.getMostSignificantBits() ^ mix(userId.getLeastSignificantBits()));
+        Map.Entry<Long, String> point = points.ceilingEntry(hash);
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    private static long hash(String value) {
+        // FNV-1a over the UTF-8 bytes, then mixed so that similar names land far apart.
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // MurmurHash3 finalizer.
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
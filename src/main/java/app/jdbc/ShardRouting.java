@@ -0,0 +1,38 @@
+package app.jdbc;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Per-thread shard selection read by {@link ShardRoutingDataSource}. Only connections opened while a shard is
+ * selected go to it: a transaction keeps the connection it started with, so switch shards between transactions,
+ * never inside one.
+ */
+@UtilityClass
+public class ShardRouting {
+
+    private static final ThreadLocal<String> SHARD = new ThreadLocal<>();
+
+    /**
+     * The selected shard, or null for the primary.
+     */
+    public static String current() {
+        return SHARD.get();
+    }
+
+    /**
+     * Routes this thread's new connections to {@code shard} and returns the previous selection for {@link #restore}.
+     */
+    public static String select(String shard) {
+        String previous = SHARD.get();
+        SHARD.set(shard);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous != null) {
+            SHARD.set(previous);
+        } else {
+            SHARD.remove();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package app.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.util.UUID;
+
+// Runs outside @Transactional so a transaction started by the method opens its connection on the user's shard.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ShardRoutingAspect {
+
+    private final Shards shards;
+
+    @Around("execution(* app..*(.., @app.jdbc.ShardKey (*), ..))")
+    public Object routeToShard(ProceedingJoinPoint joinPoint) throws Throwable {
+        UUID userId = shardKey(joinPoint);
+        if (userId == null || !shards.isSharded()) {
+            return joinPoint.proceed();
+        }
+
+        String previous = ShardRouting.select(shards.shardFor(userId));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardRouting.restore(previous);
+        }
+    }
+
+    private static UUID shardKey(ProceedingJoinPoint joinPoint) {
+        Annotation[][] annotations = ((MethodSignature) joinPoint.getSignature()).getMethod().getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    return (UUID) joinPoint.getArgs()[i];
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package app.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Hands out connections to the shard selected through {@link ShardRouting}, or to the primary when none is.
+ */
+public class ShardRoutingDataSource extends DelegatingDataSource {
+
+    private final Map<String, DataSource> shards;
+
+    public ShardRoutingDataSource(DataSource primary, Map<String, DataSource> shards) {
+        super(primary);
+        this.shards = Map.copyOf(shards);
+    }
+
+    public DataSource getShard(String name) {
+        DataSource shard = shards.get(name);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown shard " + name);
+        }
+        return shard;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String shard = ShardRouting.current();
+        return shard == null ? getTargetDataSource().getConnection() : getShard(shard).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        String shard = ShardRouting.current();
+        return shard == null
+                ? getTargetDataSource().getConnection(username, password)
+                : getShard(shard).getConnection(username, password);
+    }
+}
@@ -0,0 +1,148 @@
+package app.jdbc;
+
+import app.config.DatabaseProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Which shard holds a user's activity data, and helpers to run database work on one shard or on all of them.
+ * Without configured shards everything runs on the primary and these helpers add nothing.
+ */
+@Component
+public class Shards {
+
+    public static final String PRIMARY = "primary";
+
+    private final ShardRing ring;
+    private final DataSource dataSource;
+    private final ObjectProvider<AsyncTaskExecutor> applicationTaskExecutor;
+
+    public Shards(DatabaseProperties properties,
+                  DataSource dataSource,
+                  @Qualifier("applicationTaskExecutor") ObjectProvider<AsyncTaskExecutor> applicationTaskExecutor) {
+        List<String> names = new ArrayList<>();
+        names.add(PRIMARY);
+        properties.getShards().forEach(shard -> names.add(shard.getName()));
+        this.ring = new ShardRing(names, properties.getVirtualNodes());
+        this.dataSource = dataSource;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+    }
+
+    public boolean isSharded() {
+        return ring.shards().size() > 1;
+    }
+
+    public List<String> names() {
+        return ring.shards();
+    }
+
+    public String shardFor(UUID userId) {
+        return isSharded() ? ring.shardFor(userId) : PRIMARY;
+    }
+
+    public <T> Map<String, List<T>> groupByShard(Collection<T> items, Function<T, UUID> userId) {
+        if (!isSharded()) {
+            return Map.of(PRIMARY, List.copyOf(items));
+        }
+        Map<String, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(ring.shardFor(userId.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    public <T> T callOn(String shard, Supplier<T> work) {
+        String previous = ShardRouting.select(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardRouting.restore(previous);
+        }
+    }
+
+    public void runOn(String shard, Runnable work) {
+        callOn(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T callFor(UUID userId, Supplier<T> work) {
+        return callOn(shardFor(userId), work);
+    }
+
+    public void runFor(UUID userId, Runnable work) {
+        runOn(shardFor(userId), work);
+    }
+
+    /**
+     * Runs {@code work} on every shard in turn, for maintenance that is not latency sensitive.
+     */
+    public void forEach(Consumer<String> work) {
+        for (String shard : names()) {
+            runOn(shard, () -> work.accept(shard));
+        }
+    }
+
+    /**
+     * Runs {@code query} on each of {@code shards} concurrently and returns the results in the same order. A read
+     * replica selection of the calling thread applies to every shard.
+     */
+    public <T> List<T> scatter(Collection<String> shards, Function<String, T> query) {
+        if (shards.size() == 1) {
+            String shard = shards.iterator().next();
+            return List.of(callOn(shard, () -> query.apply(shard)));
+        }
+
+        boolean fromReplica = ReplicaRouting.isActive();
+        AsyncTaskExecutor executor = applicationTaskExecutor.getObject();
+        List<CompletableFuture<T>> results = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> {
+                    boolean previous = fromReplica ? ReplicaRouting.activate() : ReplicaRouting.isActive();
+                    try {
+                        return callOn(shard, () -> query.apply(shard));
+                    } finally {
+                        ReplicaRouting.restore(previous);
+                    }
+                }, executor))
+                .toList();
+        try {
+            return results.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The primary's own DataSource. Connections from it are never shared with a transaction running on another
+     * shard, which makes it the way to reach data kept only on the primary.
+     */
+    public DataSource primaryDataSource() {
+        try {
+            return dataSource.isWrapperFor(ShardRoutingDataSource.class)
+                    ? dataSource.unwrap(ShardRoutingDataSource.class).getShard(PRIMARY)
+                    : dataSource;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not inspect the DataSource", e);
+        }
+    }
+}
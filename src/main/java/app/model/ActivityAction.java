@@ -0,0 +1,27 @@
+package app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Dictionary of frequent action strings; rows of {@link ActivityLog} reference them by {@code id}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "activity_action")
+public class ActivityAction {
+
+    // Longest action that can be encoded, keeps the unique index within MySQL's key length limit.
+    public static final int MAX_LENGTH = 191;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(length = MAX_LENGTH, nullable = false, unique = true)
+    private String action;
+}
@@ -1,7 +1,10 @@
 package app.model;
 
+import app.model.id.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -12,19 +15,60 @@ import java.util.UUID;
 @Setter
 @Builder
 @Entity
+@EntityListeners(ActivityLogActionListener.class)
+@Table(indexes = {
+        @Index(name = "idx_activity_log_user_created", columnList = "userId, isDeleted, createdOn, id"),
+        @Index(name = "idx_activity_log_created", columnList = "createdOn"),
+        @Index(name = "idx_activity_log_deleted", columnList = "deletedOn"),
+        @Index(name = "idx_activity_log_code_created", columnList = "actionCode, isDeleted, createdOn, id")
+})
 public class ActivityLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
     private UUID id;
 
     @Column(nullable = false)
     private UUID userId;
 
-    @Column(length = 1000, nullable = false)
+    // Inline text, left null when the action is stored as a dictionary code.
+    @Column(name = "action", length = 1000)
+    private String storedAction;
+
+    private Integer actionCode;
+
+    @Transient
     private String action;
 
     @Column(nullable = false)
     private LocalDateTime createdOn;
 
     private boolean isDeleted;
+
+    private LocalDateTime deletedOn;
+
+    // Only carried to the batch writer, which stores it in idempotency_key.
+    @Transient
+    private String idempotencyKey;
+
+    /**
+     * A read-only row built from stored columns, such as an archived one. It never enters a persistence context, so
+     * the action listener does not run: an encoded action is left for the caller to resolve.
+     */
+    public ActivityLog(UUID id, UUID userId, String storedAction, Integer actionCode, LocalDateTime createdOn) {
+        this.id = id;
+        this.userId = userId;
+        this.storedAction = storedAction;
+        this.actionCode = actionCode;
+        this.action = storedAction;
+        this.createdOn = createdOn;
+    }
+
+    @PrePersist
+    void storeActionInline() {
+        if (actionCode == null) {
+            storedAction = action;
+        }
+    }
 }
@@ -0,0 +1,33 @@
+package app.model;
+
+import app.service.ActionDictionary;
+import jakarta.persistence.PostLoad;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Resolves {@link ActivityLog#getAction()} after loading. Encoded rows get the dictionary's shared String instance,
+ * so no per-row copy of the text is materialized.
+ */
+public class ActivityLogActionListener {
+
+    private final ObjectProvider<ActionDictionary> actionDictionary;
+
+    public ActivityLogActionListener(ObjectProvider<ActionDictionary> actionDictionary) {
+        this.actionDictionary = actionDictionary;
+    }
+
+    @PostLoad
+    void resolveAction(ActivityLog activityLog) {
+        if (activityLog.getActionCode() == null) {
+            activityLog.setAction(activityLog.getStoredAction());
+            return;
+        }
+
+        ActionDictionary dictionary = actionDictionary.getIfAvailable();
+        if (dictionary == null) {
+            throw new IllegalStateException("Activity log " + activityLog.getId() + " has action code "
+                    + activityLog.getActionCode() + " but no action dictionary is available");
+        }
+        activityLog.setAction(dictionary.actionFor(activityLog.getActionCode()));
+    }
+}
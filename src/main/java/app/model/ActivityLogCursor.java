@@ -0,0 +1,60 @@
+package app.model;
+
+import app.exception.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a user's history ordered by (createdOn desc, id desc). Clients only ever see the encoded form,
+ * an opaque URL-safe token.
+ */
+public record ActivityLogCursor(LocalDateTime createdOn, UUID id) {
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    public static ActivityLogCursor of(ActivityLog activityLog) {
+        return new ActivityLogCursor(activityLog.getCreatedOn(), activityLog.getId());
+    }
+
+    public static ActivityLogCursor of(ActivityLogView activityLog) {
+        return new ActivityLogCursor(activityLog.createdOn(), activityLog.id());
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(createdOn.toEpochSecond(ZoneOffset.UTC))
+                .putInt(createdOn.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static ActivityLogCursor decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(token);
+        }
+
+        if (bytes.length != ENCODED_BYTES) {
+            throw new InvalidCursorException(token);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        if (nano < 0 || nano > 999_999_999) {
+            throw new InvalidCursorException(token);
+        }
+
+        return new ActivityLogCursor(
+                LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC),
+                new UUID(buffer.getLong(), buffer.getLong()));
+    }
+}
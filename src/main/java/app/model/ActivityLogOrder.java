@@ -0,0 +1,21 @@
+package app.model;
+
+import app.util.UuidBytes;
+import lombok.experimental.UtilityClass;
+
+import java.util.Comparator;
+
+@UtilityClass
+public class ActivityLogOrder {
+
+    // Matches "order by createdOn desc, id desc" in the repository queries.
+    public static final Comparator<ActivityLog> NEWEST_FIRST = Comparator
+            .comparing(ActivityLog::getCreatedOn)
+            .thenComparing(ActivityLog::getId, UuidBytes::compareUnsigned)
+            .reversed();
+
+    public static final Comparator<ActivityLogView> VIEWS_NEWEST_FIRST = Comparator
+            .comparing(ActivityLogView::createdOn)
+            .thenComparing(ActivityLogView::id, UuidBytes::compareUnsigned)
+            .reversed();
+}
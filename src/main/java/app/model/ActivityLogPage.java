@@ -0,0 +1,19 @@
+package app.model;
+
+import java.util.List;
+
+public record ActivityLogPage(List<ActivityLogView> items, ActivityLogCursor nextCursor) {
+
+    /**
+     * Page of at most {@code pageSize} items from rows fetched with a limit of {@code pageSize + 1}; the extra row
+     * tells whether another page exists without a count query.
+     */
+    public static ActivityLogPage of(List<ActivityLogView> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new ActivityLogPage(rows, null);
+        }
+
+        List<ActivityLogView> items = rows.subList(0, pageSize);
+        return new ActivityLogPage(items, ActivityLogCursor.of(items.get(pageSize - 1)));
+    }
+}
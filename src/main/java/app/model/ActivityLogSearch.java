@@ -0,0 +1,19 @@
+package app.model;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Filters of a cross-user search. Every field is optional; {@code after} continues a previous result.
+ */
+@Builder
+public record ActivityLogSearch(Set<UUID> userIds,
+                                String actionPrefix,
+                                LocalDateTime from,
+                                LocalDateTime to,
+                                ActivityLogCursor after,
+                                Integer limit) {
+}
@@ -0,0 +1,16 @@
+package app.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A row of a user's history as it is read back, whichever reader, cache or archive it came from. Unlike
+ * {@link ActivityLog} it is immutable and can never be saved.
+ */
+public record ActivityLogView(UUID id, UUID userId, String action, LocalDateTime createdOn) {
+
+    public static ActivityLogView of(ActivityLog activityLog) {
+        return new ActivityLogView(activityLog.getId(), activityLog.getUserId(), activityLog.getAction(),
+                activityLog.getCreatedOn());
+    }
+}
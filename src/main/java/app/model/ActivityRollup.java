@@ -0,0 +1,55 @@
+package app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Number of events one user had for one action within one hour. Maintained incrementally as events are written.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "activity_rollup")
+@IdClass(ActivityRollup.Key.class)
+public class ActivityRollup {
+
+    @Id
+    private UUID userId;
+
+    @Id
+    private LocalDateTime bucketStart;
+
+    // Actions can be longer than an index allows, so the key uses a fixed-size digest of the text.
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID actionHash;
+
+    @Column(length = 1000, nullable = false)
+    private String action;
+
+    private long eventCount;
+
+    public static UUID hashOf(String action) {
+        return UUID.nameUUIDFromBytes(action.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private LocalDateTime bucketStart;
+        private UUID actionHash;
+    }
+}
@@ -0,0 +1,48 @@
+package app.model;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+public abstract class BackgroundJob {
+
+    private final UUID id;
+    private final LocalDateTime submittedOn;
+    private volatile Status status;
+    private volatile LocalDateTime finishedOn;
+    private volatile String error;
+
+    protected BackgroundJob(UUID id, LocalDateTime submittedOn) {
+        this.id = id;
+        this.submittedOn = submittedOn;
+        this.status = Status.PENDING;
+    }
+
+    public void markRunning() {
+        status = Status.RUNNING;
+    }
+
+    protected void markCompleted() {
+        this.finishedOn = LocalDateTime.now();
+        this.status = Status.COMPLETED;
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        this.finishedOn = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,23 @@
+package app.model;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+public class DeletionJob extends BackgroundJob {
+
+    private final UUID userId;
+    private volatile long deletedCount;
+
+    public DeletionJob(UUID id, UUID userId, LocalDateTime submittedOn) {
+        super(id, submittedOn);
+        this.userId = userId;
+    }
+
+    public void markCompleted(long deletedCount) {
+        this.deletedCount = deletedCount;
+        markCompleted();
+    }
+}
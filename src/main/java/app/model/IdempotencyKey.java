@@ -0,0 +1,51 @@
+package app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Client-supplied key of a logged event. Kept apart from activity_log so the unique constraint does not need the
+ * partitioning column, and deleted once it is older than the idempotency window.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "idempotency_key", indexes = {
+        @Index(name = "idx_idempotency_key_created", columnList = "createdOn")
+})
+@IdClass(IdempotencyKey.Key.class)
+public class IdempotencyKey {
+
+    public static final int MAX_LENGTH = 64;
+
+    @Id
+    private UUID userId;
+
+    @Id
+    @Column(name = "idempotency_key", length = MAX_LENGTH)
+    private String idempotencyKey;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16, nullable = false)
+    private UUID activityLogId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private String idempotencyKey;
+    }
+}
@@ -0,0 +1,28 @@
+package app.model;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+public class RebalanceJob extends BackgroundJob {
+
+    private volatile long movedUsers;
+    private volatile long movedEvents;
+
+    public RebalanceJob(UUID id, LocalDateTime submittedOn) {
+        super(id, submittedOn);
+    }
+
+    // Only the thread running the job records moves.
+    public void recordMove(long events) {
+        movedUsers++;
+        movedEvents += events;
+    }
+
+    @Override
+    public void markCompleted() {
+        super.markCompleted();
+    }
+}
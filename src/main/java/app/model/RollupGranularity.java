@@ -0,0 +1,13 @@
+package app.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    HOUR,
+    DAY;
+
+    public LocalDateTime bucketOf(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(this == HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+}
@@ -0,0 +1,70 @@
+package app.repository;
+
+import app.config.ArchiveProperties;
+import app.model.ActivityLog;
+import app.service.ActionDictionary;
+import app.util.UuidBytes;
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Reads the rows of a closed time range for the archive and removes them once they are archived.
+ */
+@Repository
+@RequiredArgsConstructor
+@Observed(name = "activitylog.jdbc")
+public class ActivityLogArchiveSource {
+
+    private static final String SELECT_OLDEST_SQL = "select min(created_on) from activity_log";
+
+    // Grouped by user, each user's rows in history order. Soft-deleted rows are left to the retention purge.
+    private static final String SELECT_RANGE_SQL = """
+            select id, user_id, action, action_code, created_on from activity_log
+            where is_deleted = false and created_on >= ? and created_on < ?
+            order by user_id, created_on desc, id desc""";
+
+    // Only the rows that were archived; soft-deleted ones are left to the retention purge as well.
+    private static final String DELETE_RANGE_SQL =
+            "delete from activity_log where is_deleted = false and created_on >= ? and created_on < ? limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActionDictionary actionDictionary;
+    private final ArchiveProperties properties;
+
+    public LocalDateTime findOldestCreatedOn() {
+        Timestamp oldest = jdbcTemplate.queryForObject(SELECT_OLDEST_SQL, Timestamp.class);
+        return oldest == null ? null : oldest.toLocalDateTime();
+    }
+
+    /**
+     * Streams the live rows created in {@code [from, to)} through a forward-only cursor; on MySQL the fetch size is
+     * only honoured with useCursorFetch=true.
+     */
+    public void forEachCreatedBetween(LocalDateTime from, LocalDateTime to, Consumer<ActivityLog> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_RANGE_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(properties.getFetchSize());
+            statement.setTimestamp(1, Timestamp.valueOf(from));
+            statement.setTimestamp(2, Timestamp.valueOf(to));
+            return statement;
+        }, rs -> {
+            int actionCode = rs.getInt(4);
+            String action = rs.wasNull() ? rs.getString(3) : actionDictionary.actionFor(actionCode);
+            consumer.accept(new ActivityLog(UuidBytes.fromBytes(rs.getBytes(1)), UuidBytes.fromBytes(rs.getBytes(2)),
+                    action, null, rs.getTimestamp(5).toLocalDateTime()));
+        });
+    }
+
+    public int deleteCreatedBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        return jdbcTemplate.update(DELETE_RANGE_SQL, Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+    }
+}
@@ -0,0 +1,123 @@
+package app.repository;
+
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.util.UuidBytes;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+@Observed(name = "activitylog.jdbc")
+public class ActivityLogBatchWriter {
+
+    // Replaying an event that is already stored leaves it unchanged.
+    private static final String INSERT_SQL =
+            "insert into activity_log (id, user_id, action, action_code, created_on, is_deleted) values (?, ?, ?, ?, ?, ?)"
+                    + " on duplicate key update id = id";
+    private static final String INSERT_KEY_SQL =
+            "insert ignore into idempotency_key (user_id, idempotency_key, activity_log_id, created_on) values (?, ?, ?, ?)";
+    private static final String SELECT_KEYS_SQL =
+            "select activity_log_id from idempotency_key where (user_id, idempotency_key) in (";
+    private static final int SELECT_KEYS_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+    private final TransactionTemplate transactionTemplate;
+
+    public ActivityLogBatchWriter(JdbcTemplate jdbcTemplate,
+                                  Shards shards,
+                                  PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Inserts the events and returns how many were written. An event whose idempotency key is already stored is
+     * skipped, so the key's unique constraint decides which of several concurrent retries wins. Each shard's events
+     * are written in a transaction of their own.
+     */
+    public int insertAll(List<ActivityLog> activityLogs) {
+        if (activityLogs.isEmpty()) {
+            return 0;
+        }
+
+        int written = 0;
+        for (Map.Entry<String, List<ActivityLog>> shard
+                : shards.groupByShard(activityLogs, ActivityLog::getUserId).entrySet()) {
+            written += shards.callOn(shard.getKey(),
+                    () -> transactionTemplate.execute(status -> insertShard(shard.getValue())));
+        }
+        return written;
+    }
+
+    private int insertShard(List<ActivityLog> activityLogs) {
+        List<ActivityLog> rows = withoutStoredKeys(activityLogs);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, activityLog) -> {
+            ps.setBytes(1, UuidBytes.toBytes(activityLog.getId()));
+            ps.setBytes(2, UuidBytes.toBytes(activityLog.getUserId()));
+            if (activityLog.getActionCode() == null) {
+                ps.setString(3, activityLog.getAction());
+                ps.setNull(4, Types.INTEGER);
+            } else {
+                ps.setNull(3, Types.VARCHAR);
+                ps.setInt(4, activityLog.getActionCode());
+            }
+            ps.setTimestamp(5, Timestamp.valueOf(activityLog.getCreatedOn()));
+            ps.setBoolean(6, activityLog.isDeleted());
+        });
+
+        return rows.size();
+    }
+
+    private List<ActivityLog> withoutStoredKeys(List<ActivityLog> activityLogs) {
+        List<ActivityLog> keyed = activityLogs.stream()
+                .filter(activityLog -> activityLog.getIdempotencyKey() != null)
+                .toList();
+        if (keyed.isEmpty()) {
+            return activityLogs;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_KEY_SQL, keyed, keyed.size(), (ps, activityLog) -> {
+            ps.setBytes(1, UuidBytes.toBytes(activityLog.getUserId()));
+            ps.setString(2, activityLog.getIdempotencyKey());
+            ps.setBytes(3, UuidBytes.toBytes(activityLog.getId()));
+            ps.setTimestamp(4, Timestamp.valueOf(activityLog.getCreatedOn()));
+        });
+
+        // Update counts of ignored inserts are not reliable (rewritten batches report SUCCESS_NO_INFO), so the stored
+        // keys are read back: an event is written only if its key points at it.
+        Set<UUID> winners = new HashSet<>();
+        for (int from = 0; from < keyed.size(); from += SELECT_KEYS_CHUNK_SIZE) {
+            List<ActivityLog> chunk = keyed.subList(from, Math.min(from + SELECT_KEYS_CHUNK_SIZE, keyed.size()));
+            String sql = SELECT_KEYS_SQL + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)")) + ")";
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[2 * i] = UuidBytes.toBytes(chunk.get(i).getUserId());
+                args[2 * i + 1] = chunk.get(i).getIdempotencyKey();
+            }
+            jdbcTemplate.query(sql, rs -> {
+                winners.add(UuidBytes.fromBytes(rs.getBytes(1)));
+            }, args);
+        }
+        return activityLogs.stream()
+                .filter(activityLog -> activityLog.getIdempotencyKey() == null || winners.contains(activityLog.getId()))
+                .toList();
+    }
+}
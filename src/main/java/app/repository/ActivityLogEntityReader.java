@@ -0,0 +1,50 @@
+package app.repository;
+
+import app.model.ActivityLogView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Answers the history queries through {@link ActivityLogRepository}, copying the loaded entities into views.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ActivityLogEntityReader implements ActivityLogReader {
+
+    private final ActivityLogRepository activityLogRepository;
+
+    @Override
+    public List<ActivityLogView> findAllByUserIdSince(UUID userId, LocalDateTime notBefore) {
+        return activityLogRepository.findAllByUserIdSince(userId, notBefore).stream()
+                .map(ActivityLogView::of)
+                .toList();
+    }
+
+    @Override
+    public List<ActivityLogView> findPageByUserId(UUID userId, LocalDateTime notBefore, Limit limit) {
+        return activityLogRepository.findPageByUserId(userId, notBefore, limit).stream()
+                .map(ActivityLogView::of)
+                .toList();
+    }
+
+    @Override
+    public List<ActivityLogView> findPageByUserIdAfter(UUID userId, LocalDateTime notBefore, LocalDateTime createdOn,
+                                                       UUID id, Limit limit) {
+        return activityLogRepository.findPageByUserIdAfter(userId, notBefore, createdOn, id, limit).stream()
+                .map(ActivityLogView::of)
+                .toList();
+    }
+
+    @Override
+    public List<ActivityLogView> findPageByUserIdNewerThan(UUID userId, LocalDateTime notBefore,
+                                                           LocalDateTime createdOn, UUID id, Limit limit) {
+        return activityLogRepository.findPageByUserIdNewerThan(userId, notBefore, createdOn, id, limit).stream()
+                .map(ActivityLogView::of)
+                .toList();
+    }
+}
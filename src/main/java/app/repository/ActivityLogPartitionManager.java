@@ -0,0 +1,93 @@
+package app.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Maintains the monthly {@code RANGE (TO_DAYS(created_on))} partitions of {@code activity_log} on MySQL. Expired
+ * months are removed with {@code DROP PARTITION}, which frees the space at once instead of deleting row by row,
+ * and empty months are split off the trailing {@code pmax} partition ahead of time.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class ActivityLogPartitionManager {
+
+    static final String MAX_PARTITION = "pmax";
+
+    // TO_DAYS('1970-01-01') in MySQL.
+    private static final long TO_DAYS_EPOCH = 719_528;
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String FIND_PARTITIONS_SQL = """
+            select partition_name, partition_description from information_schema.partitions
+            where table_schema = database() and table_name = 'activity_log' and partition_name is not null
+            order by partition_ordinal_position""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Partition> findPartitions() {
+        return jdbcTemplate.query(FIND_PARTITIONS_SQL, (rs, rowNum) -> {
+            String description = rs.getString("partition_description");
+            LocalDate upperBound = "MAXVALUE".equalsIgnoreCase(description)
+                    ? null
+                    : LocalDate.ofEpochDay(Long.parseLong(description) - TO_DAYS_EPOCH);
+            return new Partition(rs.getString("partition_name"), upperBound);
+        });
+    }
+
+    /**
+     * Drops every partition whose rows were all created before {@code cutoff}.
+     */
+    public int dropPartitionsBefore(LocalDate cutoff) {
+        int dropped = 0;
+        for (Partition partition : findPartitions()) {
+            if (partition.upperBound() != null && !partition.upperBound().isAfter(cutoff)) {
+                jdbcTemplate.execute("alter table activity_log drop partition " + partition.name());
+                log.info("Dropped activity_log partition {} (rows before {})", partition.name(), partition.upperBound());
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Splits monthly partitions off {@code pmax} until {@code lastMonth} has its own partition.
+     */
+    public int addPartitionsThrough(YearMonth lastMonth) {
+        List<Partition> partitions = findPartitions();
+        LocalDate highestBound = partitions.stream()
+                .map(Partition::upperBound)
+                .filter(bound -> bound != null)
+                .max(LocalDate::compareTo)
+                .orElseThrow(() -> new IllegalStateException("activity_log is not partitioned by created_on"));
+
+        int added = 0;
+        for (YearMonth month = YearMonth.from(highestBound); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            jdbcTemplate.execute(reorganizeSql(month));
+            added++;
+        }
+        return added;
+    }
+
+    static String reorganizeSql(YearMonth month) {
+        return "alter table activity_log reorganize partition " + MAX_PARTITION + " into ("
+                + "partition " + month.format(PARTITION_NAME)
+                + " values less than (to_days('" + month.plusMonths(1).atDay(1) + "')), "
+                + "partition " + MAX_PARTITION + " values less than maxvalue)";
+    }
+
+    /**
+     * @param upperBound exclusive {@code created_on} bound, {@code null} for {@code MAXVALUE}
+     */
+    public record Partition(String name, LocalDate upperBound) {
+    }
+}
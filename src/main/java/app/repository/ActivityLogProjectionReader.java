@@ -0,0 +1,102 @@
+package app.repository;
+
+import app.model.ActivityLogView;
+import app.service.ActionDictionary;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Answers the history queries by selecting the needed columns and building {@link ActivityLogView} rows from them.
+ * No entity is created, so Hibernate keeps no entity entries or snapshots for the results and never dirty-checks
+ * them.
+ */
+@Repository
+@RequiredArgsConstructor
+@Observed(name = "activitylog.jdbc")
+public class ActivityLogProjectionReader implements ActivityLogReader {
+
+    private static final String FIND_SINCE_JPQL = """
+            select a.id, a.userId, a.storedAction, a.actionCode, a.createdOn
+            from ActivityLog a
+            where a.userId = :userId and a.isDeleted = false and a.createdOn >= :notBefore
+            order by a.createdOn desc, a.id desc""";
+    private static final String FIND_AFTER_JPQL = """
+            select a.id, a.userId, a.storedAction, a.actionCode, a.createdOn
+            from ActivityLog a
+            where a.userId = :userId and a.isDeleted = false
+              and a.createdOn >= :notBefore and a.createdOn <= :createdOn
+              and (a.createdOn < :createdOn or a.id < :id)
+            order by a.createdOn desc, a.id desc""";
+    private static final String FIND_NEWER_THAN_JPQL = """
+            select a.id, a.userId, a.storedAction, a.actionCode, a.createdOn
+            from ActivityLog a
+            where a.userId = :userId and a.isDeleted = false
+              and a.createdOn >= :notBefore and a.createdOn >= :createdOn
+              and (a.createdOn > :createdOn or a.id > :id)
+            order by a.createdOn asc, a.id asc""";
+
+    private final EntityManager entityManager;
+    private final ActionDictionary actionDictionary;
+
+    @Override
+    public List<ActivityLogView> findAllByUserIdSince(UUID userId, LocalDateTime notBefore) {
+        return toViews(query(FIND_SINCE_JPQL, userId, notBefore).getResultList());
+    }
+
+    @Override
+    public List<ActivityLogView> findPageByUserId(UUID userId, LocalDateTime notBefore, Limit limit) {
+        return toViews(query(FIND_SINCE_JPQL, userId, notBefore)
+                .setMaxResults(limit.max())
+                .getResultList());
+    }
+
+    @Override
+    public List<ActivityLogView> findPageByUserIdAfter(UUID userId, LocalDateTime notBefore, LocalDateTime createdOn,
+                                                       UUID id, Limit limit) {
+        return toViews(query(FIND_AFTER_JPQL, userId, notBefore)
+                .setParameter("createdOn", createdOn)
+                .setParameter("id", id)
+                .setMaxResults(limit.max())
+                .getResultList());
+    }
+
+    @Override
+    public List<ActivityLogView> findPageByUserIdNewerThan(UUID userId, LocalDateTime notBefore,
+                                                           LocalDateTime createdOn, UUID id, Limit limit) {
+        return toViews(query(FIND_NEWER_THAN_JPQL, userId, notBefore)
+                .setParameter("createdOn", createdOn)
+                .setParameter("id", id)
+                .setMaxResults(limit.max())
+                .getResultList());
+    }
+
+    private TypedQuery<Tuple> query(String jpql, UUID userId, LocalDateTime notBefore) {
+        return entityManager.createQuery(jpql, Tuple.class)
+                .setParameter("userId", userId)
+                .setParameter("notBefore", notBefore);
+    }
+
+    // Resolves encoded actions the way the entity listener does for loaded entities.
+    private List<ActivityLogView> toViews(List<Tuple> rows) {
+        List<ActivityLogView> views = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Integer actionCode = row.get(3, Integer.class);
+            String action = actionCode != null
+                    ? actionDictionary.actionFor(actionCode)
+                    : row.get(2, String.class);
+            views.add(new ActivityLogView(row.get(0, UUID.class), row.get(1, UUID.class), action,
+                    row.get(4, LocalDateTime.class)));
+        }
+        return views;
+    }
+}
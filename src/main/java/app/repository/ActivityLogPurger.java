@@ -0,0 +1,35 @@
+package app.repository;
+
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Physical deletes for the retention job. Each call removes at most {@code limit} rows through a range scan on an
+ * index and commits on its own, so locks are held only briefly.
+ */
+@Repository
+@RequiredArgsConstructor
+@Observed(name = "activitylog.jdbc")
+public class ActivityLogPurger {
+
+    private static final String DELETE_CREATED_BEFORE_SQL =
+            "delete from activity_log where created_on < ? limit ?";
+
+    private static final String DELETE_SOFT_DELETED_BEFORE_SQL =
+            "delete from activity_log where deleted_on < ? limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int deleteCreatedBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(DELETE_CREATED_BEFORE_SQL, Timestamp.valueOf(cutoff), limit);
+    }
+
+    public int deleteSoftDeletedBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(DELETE_SOFT_DELETED_BEFORE_SQL, Timestamp.valueOf(cutoff), limit);
+    }
+}
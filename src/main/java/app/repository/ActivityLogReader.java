@@ -0,0 +1,26 @@
+package app.repository;
+
+import app.model.ActivityLogView;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The queries behind a single user's history, newest first unless noted. {@link ActivityLogEntityReader} answers
+ * them by loading entities, {@link ActivityLogProjectionReader} by selecting columns only.
+ */
+public interface ActivityLogReader {
+
+    List<ActivityLogView> findAllByUserIdSince(UUID userId, LocalDateTime notBefore);
+
+    List<ActivityLogView> findPageByUserId(UUID userId, LocalDateTime notBefore, Limit limit);
+
+    List<ActivityLogView> findPageByUserIdAfter(UUID userId, LocalDateTime notBefore, LocalDateTime createdOn,
+                                                UUID id, Limit limit);
+
+    // Oldest first.
+    List<ActivityLogView> findPageByUserIdNewerThan(UUID userId, LocalDateTime notBefore, LocalDateTime createdOn,
+                                                    UUID id, Limit limit);
+}
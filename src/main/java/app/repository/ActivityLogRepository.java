@@ -1,17 +1,90 @@
 package app.repository;
 
 import app.model.ActivityLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface ActivityLogRepository extends JpaRepository<ActivityLog, UUID> {
+public interface ActivityLogRepository
+        extends JpaRepository<ActivityLog, UUID>, JpaSpecificationExecutor<ActivityLog> {
     List<ActivityLog> findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(UUID userId);
 
     boolean existsByUserId(UUID userId);
 
     List<ActivityLog> findAllByUserIdAndIsDeletedIsFalse(UUID userId);
+
+    // The createdOn bounds below let MySQL prune partitions and skip rows past the retention window.
+    @Query("""
+            select a from ActivityLog a
+            where a.userId = :userId and a.isDeleted = false and a.createdOn >= :notBefore
+            order by a.createdOn desc, a.id desc""")
+    List<ActivityLog> findAllByUserIdSince(UUID userId, LocalDateTime notBefore);
+
+    @Query("""
+            select a from ActivityLog a
+            where a.userId = :userId and a.isDeleted = false and a.createdOn >= :notBefore
+            order by a.createdOn desc, a.id desc""")
+    List<ActivityLog> findPageByUserId(UUID userId, LocalDateTime notBefore, Limit limit);
+
+    @Query("""
+            select a from ActivityLog a
+            where a.userId = :userId and a.isDeleted = false
+              and a.createdOn >= :notBefore and a.createdOn <= :createdOn
+              and (a.createdOn < :createdOn or a.id < :id)
+            order by a.createdOn desc, a.id desc""")
+    List<ActivityLog> findPageByUserIdAfter(UUID userId, LocalDateTime notBefore, LocalDateTime createdOn, UUID id,
+                                            Limit limit);
+
+    @Query("""
+            select a from ActivityLog a
+            where a.userId = :userId and a.isDeleted = false
+              and a.createdOn >= :notBefore and a.createdOn >= :createdOn
+              and (a.createdOn > :createdOn or a.id > :id)
+            order by a.createdOn asc, a.id asc""")
+    List<ActivityLog> findPageByUserIdNewerThan(UUID userId, LocalDateTime notBefore, LocalDateTime createdOn, UUID id,
+                                                Limit limit);
+
+    // Forward-only cursor for exports; on MySQL the fetch size is only honoured with useCursorFetch=true.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select a from ActivityLog a
+            where a.userId = :userId and a.isDeleted = false and a.createdOn >= :notBefore
+            order by a.createdOn desc, a.id desc""")
+    Stream<ActivityLog> streamByUserId(UUID userId, LocalDateTime notBefore);
+
+    @Query("select distinct a.userId from ActivityLog a")
+    List<UUID> findDistinctUserIds();
+
+    @Query("select a.id from ActivityLog a where a.userId = :userId and a.isDeleted = false")
+    List<UUID> findIdsByUserIdAndIsDeletedIsFalse(UUID userId, Limit limit);
+
+    @Query("select a.id from ActivityLog a where a.id in :ids and a.isDeleted = false")
+    List<UUID> findLiveIds(Collection<UUID> ids);
+
+    @Modifying
+    @Query("update ActivityLog a set a.isDeleted = true, a.deletedOn = :deletedOn where a.id in :ids")
+    int markDeleted(Collection<UUID> ids, LocalDateTime deletedOn);
+
+    @Transactional
+    default int softDeleteChunkByUserId(UUID userId, int chunkSize) {
+        List<UUID> ids = findIdsByUserIdAndIsDeletedIsFalse(userId, Limit.of(chunkSize));
+        return ids.isEmpty() ? 0 : markDeleted(ids, LocalDateTime.now());
+    }
 }
@@ -0,0 +1,58 @@
+package app.repository;
+
+import app.model.ActivityLog;
+import app.model.ActivityLogCursor;
+import jakarta.persistence.criteria.Predicate;
+import lombok.experimental.UtilityClass;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Building blocks of {@link ActivityLogRepository} searches. Each one constrains a column that leads one of the
+ * activity_log indexes, so any combination is answered by an index range scan.
+ */
+@UtilityClass
+public class ActivityLogSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    public static Specification<ActivityLog> notDeleted() {
+        return (root, query, cb) -> cb.isFalse(root.get("isDeleted"));
+    }
+
+    public static Specification<ActivityLog> createdBetween(LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("createdOn"), from),
+                cb.lessThan(root.get("createdOn"), to));
+    }
+
+    public static Specification<ActivityLog> userIdIn(Collection<UUID> userIds) {
+        return (root, query, cb) -> root.get("userId").in(userIds);
+    }
+
+    /**
+     * Inline actions starting with {@code prefix}, or actions stored as one of the dictionary {@code codes}.
+     */
+    public static Specification<ActivityLog> actionStartsWith(String prefix, Collection<Integer> codes) {
+        return (root, query, cb) -> {
+            Predicate inline = cb.like(root.get("storedAction"), escapeLike(prefix) + "%", LIKE_ESCAPE);
+            return codes.isEmpty() ? inline : cb.or(inline, root.get("actionCode").in(codes));
+        };
+    }
+
+    // Rows after the cursor in (createdOn desc, id desc) order.
+    public static Specification<ActivityLog> after(ActivityLogCursor cursor) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("createdOn"), cursor.createdOn()),
+                cb.or(
+                        cb.lessThan(root.get("createdOn"), cursor.createdOn()),
+                        cb.lessThan(root.get("id"), cursor.id())));
+    }
+
+    public static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,63 @@
+package app.repository;
+
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Inserts new events through Hibernate stateless sessions: no persistence context, entity entries, snapshots or
+ * flush-time dirty checks, and inserts grouped into JDBC batches of {@code hibernate.jdbc.batch_size}. Unlike
+ * {@link ActivityLogBatchWriter} it does not handle idempotency keys or replays of stored events.
+ */
+@Repository
+@Observed(name = "activitylog.jdbc")
+public class ActivityLogStatelessWriter {
+
+    private final SessionFactory sessionFactory;
+    private final Shards shards;
+
+    public ActivityLogStatelessWriter(EntityManagerFactory entityManagerFactory, Shards shards) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.shards = shards;
+    }
+
+    public ActivityLog insert(ActivityLog activityLog) {
+        insertAll(List.of(activityLog));
+        return activityLog;
+    }
+
+    /**
+     * Inserts the events in one transaction per shard and returns how many were written.
+     */
+    public int insertAll(List<ActivityLog> activityLogs) {
+        if (activityLogs.isEmpty()) {
+            return 0;
+        }
+
+        shards.groupByShard(activityLogs, ActivityLog::getUserId)
+                .forEach((shard, rows) -> shards.runOn(shard, () -> insertShard(rows)));
+        return activityLogs.size();
+    }
+
+    private void insertShard(List<ActivityLog> activityLogs) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                activityLogs.forEach(session::insert);
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+}
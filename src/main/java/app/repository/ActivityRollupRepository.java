@@ -0,0 +1,27 @@
+package app.repository;
+
+import app.model.ActivityRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ActivityRollupRepository extends JpaRepository<ActivityRollup, ActivityRollup.Key> {
+
+    @Query("""
+            select r from ActivityRollup r
+            where r.userId = :userId and r.bucketStart >= :from and r.bucketStart < :to
+            order by r.bucketStart, r.action""")
+    List<ActivityRollup> findByUserIdBetween(UUID userId, LocalDateTime from, LocalDateTime to);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ActivityRollup r where r.userId = :userId")
+    int deleteByUserId(UUID userId);
+}
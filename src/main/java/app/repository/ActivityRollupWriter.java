@@ -0,0 +1,60 @@
+package app.repository;
+
+import app.jdbc.Shards;
+import app.model.ActivityRollup;
+import app.util.UuidBytes;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@Observed(name = "activitylog.jdbc")
+public class ActivityRollupWriter {
+
+    private static final String UPSERT_SQL = """
+            insert into activity_rollup (user_id, bucket_start, action_hash, action, event_count)
+            values (?, ?, ?, ?, ?)
+            on duplicate key update event_count = event_count + ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+    private final TransactionTemplate transactionTemplate;
+
+    public ActivityRollupWriter(JdbcTemplate jdbcTemplate,
+                                Shards shards,
+                                PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Adds each rollup's {@code eventCount} to the stored counter, creating the row if needed, in one transaction
+     * per shard.
+     */
+    public void increment(Collection<ActivityRollup> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        shards.groupByShard(deltas, ActivityRollup::getUserId).forEach((shard, rollups) -> shards.runOn(shard,
+                () -> transactionTemplate.executeWithoutResult(status -> incrementShard(rollups))));
+    }
+
+    private void incrementShard(List<ActivityRollup> deltas) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setBytes(1, UuidBytes.toBytes(delta.getUserId()));
+            ps.setTimestamp(2, Timestamp.valueOf(delta.getBucketStart()));
+            ps.setBytes(3, UuidBytes.toBytes(delta.getActionHash()));
+            ps.setString(4, delta.getAction());
+            ps.setLong(5, delta.getEventCount());
+            ps.setLong(6, delta.getEventCount());
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package app.retention;
+
+import app.config.RetentionProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+public class RetentionPolicy {
+
+    // Lower bound used when retention is off; still a valid TIMESTAMP on every supported database.
+    public static final LocalDateTime UNBOUNDED = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final RetentionProperties properties;
+
+    public LocalDateTime visibleSince() {
+        return properties.isEnabled() ? expiredBefore(LocalDateTime.now()) : UNBOUNDED;
+    }
+
+    public LocalDateTime expiredBefore(LocalDateTime now) {
+        return now.minus(properties.getMaxAge());
+    }
+
+    public LocalDateTime softDeletedBefore(LocalDateTime now) {
+        return now.minus(properties.getSoftDeletedGracePeriod());
+    }
+}
@@ -0,0 +1,125 @@
+package app.retention;
+
+import app.config.RetentionProperties;
+import app.ingestion.WriteBehindQueue;
+import app.jdbc.Shards;
+import app.repository.ActivityLogPartitionManager;
+import app.repository.ActivityLogPurger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Periodically removes expired and soft-deleted events. Work is split into small statements with a pause in
+ * between, and the job backs off while the write-behind queue is filling up so it does not compete with ingestion.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "activity-log.retention", name = "enabled", havingValue = "true")
+public class RetentionPurgeJob {
+
+    private final RetentionProperties properties;
+    private final RetentionPolicy retentionPolicy;
+    private final ActivityLogPurger purger;
+    private final ActivityLogPartitionManager partitionManager;
+    private final WriteBehindQueue writeBehindQueue;
+    private final Shards shards;
+
+    private final Counter expiredCounter;
+    private final Counter softDeletedCounter;
+    private final Counter partitionsDroppedCounter;
+
+    public RetentionPurgeJob(RetentionProperties properties,
+                             RetentionPolicy retentionPolicy,
+                             ActivityLogPurger purger,
+                             ActivityLogPartitionManager partitionManager,
+                             WriteBehindQueue writeBehindQueue,
+                             Shards shards,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.retentionPolicy = retentionPolicy;
+        this.purger = purger;
+        this.partitionManager = partitionManager;
+        this.writeBehindQueue = writeBehindQueue;
+        this.shards = shards;
+
+        this.expiredCounter = Counter.builder("activitylog.retention.purged")
+                .tag("reason", "expired")
+                .description("Rows deleted because they were older than the retention window")
+                .register(meterRegistry);
+        this.softDeletedCounter = Counter.builder("activitylog.retention.purged")
+                .tag("reason", "soft_deleted")
+                .description("Soft-deleted rows removed after the grace period")
+                .register(meterRegistry);
+        this.partitionsDroppedCounter = Counter.builder("activitylog.retention.partitions.dropped")
+                .description("Expired monthly partitions dropped")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${activity-log.retention.purge-interval:1h}",
+            fixedDelayString = "${activity-log.retention.purge-interval:1h}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        long deadline = System.nanoTime() + properties.getMaxRunTime().toNanos();
+        shards.forEach(shard -> purge(shard, now, deadline));
+    }
+
+    private void purge(String shard, LocalDateTime now, long deadline) {
+        long expired = 0;
+        if (properties.getStrategy() == RetentionProperties.Strategy.PARTITIONS) {
+            partitionManager.addPartitionsThrough(YearMonth.from(now).plusMonths(properties.getPartitionsAhead()));
+            int dropped = partitionManager.dropPartitionsBefore(retentionPolicy.expiredBefore(now).toLocalDate());
+            partitionsDroppedCounter.increment(dropped);
+        } else {
+            LocalDateTime cutoff = retentionPolicy.expiredBefore(now);
+            expired = purgeInChunks(limit -> purger.deleteCreatedBefore(cutoff, limit), expiredCounter, deadline);
+        }
+
+        LocalDateTime softDeletedCutoff = retentionPolicy.softDeletedBefore(now);
+        long softDeleted = purgeInChunks(limit -> purger.deleteSoftDeletedBefore(softDeletedCutoff, limit),
+                softDeletedCounter, deadline);
+
+        log.info("Retention purge removed {} expired and {} soft-deleted activity logs from shard {}",
+                expired, softDeleted, shard);
+    }
+
+    private long purgeInChunks(IntUnaryOperator deleteChunk, Counter counter, long deadline) {
+        int chunkSize = properties.getChunkSize();
+        long total = 0;
+
+        while (true) {
+            int deleted = deleteChunk.applyAsInt(chunkSize);
+            total += deleted;
+            counter.increment(deleted);
+
+            if (deleted < chunkSize || !throttle(deadline)) {
+                return total;
+            }
+        }
+    }
+
+    private boolean throttle(long deadline) {
+        do {
+            if (System.nanoTime() >= deadline) {
+                log.info("Retention purge reached its {} budget, continuing next run", properties.getMaxRunTime());
+                return false;
+            }
+
+            try {
+                Thread.sleep(properties.getPauseBetweenChunks().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        } while (writeBehindQueue.isEnabled() && writeBehindQueue.size() > properties.getYieldAboveQueueDepth());
+
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+package app.service;
+
+import app.config.ActionDictionaryProperties;
+import app.jdbc.Shards;
+import app.model.ActivityAction;
+import app.model.ActivityLog;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static app.repository.ActivityLogSpecifications.escapeLike;
+
+/**
+ * Maps frequent action strings to integer codes and back. Both directions are held in memory, so encoding on write
+ * and decoding on read only touch the database for actions this instance has not seen yet. Codes are never
+ * reassigned, which makes the cached mappings safe to keep for the lifetime of the process.
+ */
+@Slf4j
+@Component
+public class ActionDictionary {
+
+    private static final String SELECT_ALL_SQL = "select id, action from activity_action";
+    private static final String SELECT_BY_ID_SQL = "select action from activity_action where id = ?";
+    private static final String SELECT_BY_ACTION_SQL = "select id from activity_action where action = ?";
+    // Backslash is the default LIKE escape on MySQL and H2; spelling it out needs different quoting on each.
+    private static final String SELECT_BY_PREFIX_SQL = "select id from activity_action where action like ?";
+    private static final String INSERT_SQL = "insert into activity_action (action) values (?)";
+
+    private final ActionDictionaryProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final Map<Integer, String> actions = new ConcurrentHashMap<>();
+    private final Cache<String, AtomicInteger> candidates;
+
+    // The dictionary lives on the primary only; pinning to it keeps lookups made while a shard is selected there.
+    public ActionDictionary(ActionDictionaryProperties properties, Shards shards) {
+        this.properties = properties;
+        this.jdbcTemplate = new JdbcTemplate(shards.primaryDataSource());
+        this.candidates = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxCandidates())
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+            remember(rs.getInt("id"), rs.getString("action"));
+        });
+        log.info("Loaded {} dictionary actions", actions.size());
+    }
+
+    /**
+     * Sets either the action code or the inline text of a not yet persisted entry. Call it outside a transaction:
+     * a newly admitted action is committed on its own so the code stays valid if the caller rolls back.
+     */
+    public void encode(ActivityLog activityLog) {
+        Integer code = codeFor(activityLog.getAction());
+        activityLog.setActionCode(code);
+        activityLog.setStoredAction(code == null ? activityLog.getAction() : null);
+    }
+
+    public Integer codeFor(String action) {
+        Integer code = codes.get(action);
+        if (code != null || !properties.isEnabled()) {
+            return code;
+        }
+
+        if (action.length() > ActivityAction.MAX_LENGTH || codes.size() >= properties.getMaxEntries()) {
+            return null;
+        }
+
+        AtomicInteger sightings = candidates.get(action, key -> new AtomicInteger());
+        if (sightings.incrementAndGet() < properties.getAdmitAfter()) {
+            return null;
+        }
+
+        candidates.invalidate(action);
+        return admit(action);
+    }
+
+    public String actionFor(int code) {
+        String action = actions.get(code);
+        if (action != null) {
+            return action;
+        }
+
+        // Admitted by another instance since this one started.
+        action = jdbcTemplate.queryForObject(SELECT_BY_ID_SQL, String.class, code);
+        return remember(code, action);
+    }
+
+    /**
+     * Codes of every admitted action starting with {@code prefix}, read from the table so that actions admitted by
+     * other instances are included.
+     */
+    public List<Integer> codesStartingWith(String prefix) {
+        return jdbcTemplate.queryForList(SELECT_BY_PREFIX_SQL, Integer.class, escapeLike(prefix) + "%");
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    private Integer admit(String action) {
+        int code;
+        try {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, action);
+                return ps;
+            }, keyHolder);
+            code = keyHolder.getKey().intValue();
+        } catch (DuplicateKeyException e) {
+            try {
+                code = jdbcTemplate.queryForObject(SELECT_BY_ACTION_SQL, Integer.class, action);
+            } catch (EmptyResultDataAccessException notFound) {
+                return null;
+            }
+        }
+
+        remember(code, action);
+        return codes.get(action);
+    }
+
+    private String remember(int code, String action) {
+        // Keep one String instance per action, shared by every entity that decodes to it.
+        String shared = actions.computeIfAbsent(code, key -> action);
+        codes.putIfAbsent(shared, code);
+        return shared;
+    }
+}
@@ -0,0 +1,48 @@
+package app.service;
+
+import app.event.ActivityLogsDeletedEvent;
+import app.event.ActivityLogsWrittenEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Business-level meters. Counting hangs off the write and delete events, so the write path only pays for a counter
+ * increment per batch.
+ */
+@Component
+public class ActivityLogMetrics {
+
+    private final Counter writtenCounter;
+    private final Counter deletedCounter;
+    private final DistributionSummary resultSize;
+
+    public ActivityLogMetrics(MeterRegistry meterRegistry) {
+        this.writtenCounter = Counter.builder("activitylog.events.written")
+                .description("Events committed to the database")
+                .register(meterRegistry);
+        this.deletedCounter = Counter.builder("activitylog.events.deleted")
+                .description("Events soft deleted")
+                .register(meterRegistry);
+        this.resultSize = DistributionSummary.builder("activitylog.query.result.size")
+                .description("Events returned by one read of a user's activity")
+                .baseUnit("events")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onWritten(ActivityLogsWrittenEvent event) {
+        writtenCounter.increment(event.activityLogs().size());
+    }
+
+    @EventListener
+    public void onDeleted(ActivityLogsDeletedEvent event) {
+        deletedCounter.increment(event.deletedCount());
+    }
+
+    public void recordResultSize(int size) {
+        resultSize.record(size);
+    }
+}
@@ -0,0 +1,118 @@
+package app.service;
+
+import app.config.PaginationProperties;
+import app.config.SearchProperties;
+import app.exception.InvalidRangeException;
+import app.exception.InvalidSearchException;
+import app.jdbc.ReadFromReplica;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.model.ActivityLogOrder;
+import app.model.ActivityLogPage;
+import app.model.ActivityLogSearch;
+import app.model.ActivityLogView;
+import app.repository.ActivityLogRepository;
+import app.retention.RetentionPolicy;
+import io.micrometer.observation.annotation.Observed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static app.repository.ActivityLogSpecifications.actionStartsWith;
+import static app.repository.ActivityLogSpecifications.after;
+import static app.repository.ActivityLogSpecifications.createdBetween;
+import static app.repository.ActivityLogSpecifications.notDeleted;
+import static app.repository.ActivityLogSpecifications.userIdIn;
+
+/**
+ * Searches across users. Every search is bounded by a createdOn range, so even one without other filters reads a
+ * bounded slice of the table, and results are walked with the same keyset cursor as a single user's pages. With
+ * sharding, each shard holding a searched user is queried for a full page and the pages are merged.
+ */
+@Service
+@Observed(name = "activitylog.service")
+@RequiredArgsConstructor
+public class ActivityLogSearchService {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdOn"), Sort.Order.desc("id"));
+
+    private final ActivityLogRepository activityLogRepository;
+    private final ActionDictionary actionDictionary;
+    private final SearchProperties searchProperties;
+    private final PaginationProperties paginationProperties;
+    private final RetentionPolicy retentionPolicy;
+    private final ActivityLogMetrics activityLogMetrics;
+    private final Shards shards;
+
+    @ReadFromReplica
+    public ActivityLogPage search(ActivityLogSearch search) {
+        LocalDateTime to = search.to() != null ? search.to() : LocalDateTime.now();
+        LocalDateTime from = search.from() != null ? search.from() : to.minus(searchProperties.getDefaultRange());
+        if (!from.isBefore(to)) {
+            throw new InvalidRangeException("from must be before to");
+        }
+        if (Duration.between(from, to).compareTo(searchProperties.getMaxRange()) > 0) {
+            throw new InvalidRangeException("Range must not exceed " + searchProperties.getMaxRange());
+        }
+        if (search.userIds() != null && search.userIds().size() > searchProperties.getMaxUsers()) {
+            throw new InvalidSearchException("At most " + searchProperties.getMaxUsers() + " users may be searched at once");
+        }
+
+        LocalDateTime visibleSince = retentionPolicy.visibleSince();
+        Specification<ActivityLog> specification = notDeleted()
+                .and(createdBetween(from.isBefore(visibleSince) ? visibleSince : from, to));
+        if (search.actionPrefix() != null && !search.actionPrefix().isEmpty()) {
+            String prefix = search.actionPrefix();
+            specification = specification.and(actionStartsWith(prefix, actionDictionary.codesStartingWith(prefix)));
+        }
+        if (search.after() != null) {
+            specification = specification.and(after(search.after()));
+        }
+
+        int pageSize = search.limit() == null
+                ? paginationProperties.getDefaultPageSize()
+                : Math.max(1, Math.min(search.limit(), paginationProperties.getMaxPageSize()));
+
+        Specification<ActivityLog> filters = specification;
+        List<ActivityLog> activityLogs;
+        if (search.userIds() != null && !search.userIds().isEmpty()) {
+            Map<String, List<UUID>> usersByShard = shards.groupByShard(search.userIds(), userId -> userId);
+            activityLogs = merge(shards.scatter(usersByShard.keySet(),
+                    shard -> find(filters.and(userIdIn(usersByShard.get(shard))), pageSize + 1)), pageSize + 1);
+        } else {
+            activityLogs = merge(shards.scatter(shards.names(), shard -> find(filters, pageSize + 1)), pageSize + 1);
+        }
+
+        ActivityLogPage page = ActivityLogPage.of(activityLogs.stream()
+                .map(ActivityLogView::of)
+                .toList(), pageSize);
+        activityLogMetrics.recordResultSize(page.items().size());
+        return page;
+    }
+
+    private List<ActivityLog> find(Specification<ActivityLog> specification, int limit) {
+        return activityLogRepository.findBy(specification, query -> query
+                .sortBy(NEWEST_FIRST)
+                .limit(limit)
+                .all());
+    }
+
+    private static List<ActivityLog> merge(List<List<ActivityLog>> pages, int limit) {
+        if (pages.size() == 1) {
+            return pages.get(0);
+        }
+        return pages.stream()
+                .flatMap(Collection::stream)
+                .sorted(ActivityLogOrder.NEWEST_FIRST)
+                .limit(limit)
+                .toList();
+    }
+}
@@ -1,45 +1,428 @@
 package app.service;
 
+import app.archive.ActivityLogArchive;
+import app.cache.RecentActivityCache;
+import app.config.DataAccessProperties;
+import app.config.DeletionProperties;
+import app.config.IngestionProperties;
+import app.config.PaginationProperties;
+import app.event.ActivityLogsDeletedEvent;
+import app.event.ActivityLogsWrittenEvent;
+import app.exception.InvalidBulkItemException;
+import app.exception.MalformedBulkPayloadException;
+import app.ingestion.ActivityLogSpool;
+import app.ingestion.IdempotencyGuard;
+import app.ingestion.WriteBehindQueue;
+import app.jdbc.ReadFromReplica;
+import app.jdbc.ReplicaRouting;
+import app.jdbc.ShardKey;
+import app.jdbc.Shards;
 import app.model.ActivityLog;
+import app.model.ActivityLogCursor;
+import app.model.ActivityLogPage;
+import app.model.ActivityLogView;
+import app.model.id.TimeOrderedUuids;
+import app.repository.ActivityLogBatchWriter;
+import app.repository.ActivityLogEntityReader;
+import app.repository.ActivityLogProjectionReader;
+import app.repository.ActivityLogReader;
 import app.repository.ActivityLogRepository;
+import app.repository.ActivityLogStatelessWriter;
+import app.retention.RetentionPolicy;
 import app.web.dto.ActivityLogRequest;
+import app.web.dto.BulkIngestError;
+import app.web.dto.BulkIngestResponse;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
+@Observed(name = "activitylog.service")
 public class ActivityLogService {
 
+    private static final int MAX_ACTION_LENGTH = 1000;
+    private static final int IDEMPOTENCY_LOCK_STRIPES = 256;
+
     private final ActivityLogRepository activityLogRepository;
+    private final ActivityLogBatchWriter activityLogBatchWriter;
+    private final ActivityLogEntityReader activityLogEntityReader;
+    private final ActivityLogProjectionReader activityLogProjectionReader;
+    private final ActivityLogStatelessWriter activityLogStatelessWriter;
+    private final DataAccessProperties dataAccessProperties;
+    private final WriteBehindQueue writeBehindQueue;
+    private final ActivityLogSpool activityLogSpool;
+    private final IngestionProperties ingestionProperties;
+    private final DeletionProperties deletionProperties;
+    private final PaginationProperties paginationProperties;
+    private final EntityManager entityManager;
+    private final RecentActivityCache recentActivityCache;
+    private final RetentionPolicy retentionPolicy;
+    private final ActionDictionary actionDictionary;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ActivityLogMetrics activityLogMetrics;
+    private final IdempotencyGuard idempotencyGuard;
+    private final Shards shards;
+    private final ActivityLogArchive activityLogArchive;
+
+    private final ReentrantLock[] idempotencyLocks = newLocks(IDEMPOTENCY_LOCK_STRIPES);
 
     public ActivityLog logActivity(ActivityLogRequest request) {
+        return logActivity(request, null);
+    }
+
+    /**
+     * Logs an event at most once per user and idempotency key; a retry with a known key returns the event that was
+     * logged first.
+     */
+    public ActivityLog logActivity(ActivityLogRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return log(request, null);
+        }
+        IdempotencyGuard.validate(idempotencyKey);
+        if (!isWriteBehind()) {
+            return findOriginalOrLog(request, idempotencyKey);
+        }
+
+        // A write-behind event is acknowledged before its key reaches the table, so retries with the same key are
+        // serialized until the first one is remembered.
+        ReentrantLock lock = idempotencyLock(request.getUserId(), idempotencyKey);
+        lock.lock();
+        try {
+            return findOriginalOrLog(request, idempotencyKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ActivityLog findOriginalOrLog(ActivityLogRequest request, String idempotencyKey) {
+        return idempotencyGuard.findOriginal(request.getUserId(), idempotencyKey)
+                .orElseGet(() -> log(request, idempotencyKey));
+    }
+
+    private ActivityLog log(ActivityLogRequest request, String idempotencyKey) {
         ActivityLog log = ActivityLog.builder()
                 .userId(request.getUserId())
                 .action(request.getAction())
-                .createdOn(LocalDateTime.now())
+                .createdOn(now())
+                .idempotencyKey(idempotencyKey)
                 .build();
+        actionDictionary.encode(log);
 
-        return activityLogRepository.save(log);
+        if (isWriteBehind()) {
+            // The id is assigned up front so a replayed spool record is recognised as already stored.
+            log.setId(TimeOrderedUuids.next());
+            if (activityLogSpool.isEnabled()) {
+                activityLogSpool.append(log);
+            } else {
+                writeBehindQueue.enqueue(log);
+            }
+            rememberKey(log);
+            recentActivityCache.append(log);
+            return log;
+        }
+
+        ActivityLog saved;
+        if (idempotencyKey == null) {
+            saved = isStatelessWrite()
+                    ? activityLogStatelessWriter.insert(log)
+                    : shards.callFor(log.getUserId(), () -> activityLogRepository.save(log));
+        } else {
+            // The batch writer stores the key in the same transaction and skips the event if the key exists.
+            log.setId(TimeOrderedUuids.next());
+            if (activityLogBatchWriter.insertAll(List.of(log)) == 0) {
+                return idempotencyGuard.loadOriginal(log.getUserId(), idempotencyKey).orElseThrow();
+            }
+            saved = log;
+            rememberKey(saved);
+        }
+        recentActivityCache.append(saved);
+        eventPublisher.publishEvent(new ActivityLogsWrittenEvent(List.of(saved)));
+        return saved;
     }
 
-    public List<ActivityLog> getByUserId(UUID userId) {
-      return activityLogRepository.findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(userId);
+    public BulkIngestResponse logActivities(Iterator<ActivityLogRequest> requests) {
+        IngestionProperties.Bulk bulk = ingestionProperties.getBulk();
+        List<ActivityLog> chunk = new ArrayList<>(bulk.getChunkSize());
+        List<BulkIngestError> errors = new ArrayList<>();
+        long index = 0;
+        long chunkStart = 0;
+        long accepted = 0;
+        long rejected = 0;
+
+        try {
+            for (; requests.hasNext(); index++) {
+                String problem;
+                try {
+                    ActivityLogRequest request = requests.next();
+                    problem = validate(request);
+                    if (problem == null) {
+                        if (chunk.isEmpty()) {
+                            chunkStart = index;
+                        }
+                        ActivityLog activityLog = ActivityLog.builder()
+                                .id(TimeOrderedUuids.next())
+                                .userId(request.getUserId())
+                                .action(request.getAction())
+                                .createdOn(now())
+                                .build();
+                        actionDictionary.encode(activityLog);
+                        chunk.add(activityLog);
+                    }
+                } catch (InvalidBulkItemException e) {
+                    problem = e.getMessage();
+                }
+
+                if (problem != null) {
+                    rejected++;
+                    addError(errors, index, problem, bulk);
+                }
+
+                if (chunk.size() >= bulk.getChunkSize()) {
+                    long written = writeChunk(chunk, chunkStart, errors, bulk);
+                    accepted += written;
+                    rejected += chunk.size() - written;
+                    chunk.clear();
+                }
+            }
+        } catch (MalformedBulkPayloadException e) {
+            addError(errors, index, "Malformed payload, remaining items were not read: " + e.getMessage(), bulk);
+        }
+
+        long written = writeChunk(chunk, chunkStart, errors, bulk);
+        accepted += written;
+        rejected += chunk.size() - written;
+
+        return BulkIngestResponse.builder()
+                .accepted(accepted)
+                .rejected(rejected)
+                .errors(errors)
+                .build();
     }
 
-    public boolean deleteByUserId(UUID userId) {
-        if (activityLogRepository.existsByUserId(userId)) {
-            activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(userId)
-                    .forEach(activityLog -> {
-                activityLog.setDeleted(true);
-                activityLogRepository.save(activityLog);
-            });
+    private long writeChunk(List<ActivityLog> chunk, long chunkStart, List<BulkIngestError> errors,
+                            IngestionProperties.Bulk bulk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            int written = isStatelessWrite()
+                    ? activityLogStatelessWriter.insertAll(chunk)
+                    : activityLogBatchWriter.insertAll(chunk);
+            invalidateUsers(chunk);
+            eventPublisher.publishEvent(new ActivityLogsWrittenEvent(List.copyOf(chunk)));
+            return written;
+        } catch (DataAccessException | TransactionException e) {
+            log.error("Failed to persist bulk chunk of {} activity logs", chunk.size(), e);
+            addError(errors, chunkStart, "Could not persist " + chunk.size() + " items starting at this index", bulk);
+            return 0;
+        }
+    }
+
+    private void invalidateUsers(List<ActivityLog> activityLogs) {
+        if (!recentActivityCache.isEnabled()) {
+            return;
+        }
+
+        // Dropping whole users is cheaper than merging a large chunk into their cached heads.
+        Set<UUID> userIds = new HashSet<>();
+        for (ActivityLog activityLog : activityLogs) {
+            if (userIds.add(activityLog.getUserId())) {
+                recentActivityCache.invalidate(activityLog.getUserId());
+            }
+        }
+    }
+
+    private static String validate(ActivityLogRequest request) {
+        if (request.getUserId() == null) {
+            return "userId is required";
+        }
+        if (request.getAction() == null || request.getAction().isBlank()) {
+            return "action is required";
+        }
+        if (request.getAction().length() > MAX_ACTION_LENGTH) {
+            return "action must be at most " + MAX_ACTION_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static void addError(List<BulkIngestError> errors, long index, String message,
+                                 IngestionProperties.Bulk bulk) {
+        if (errors.size() < bulk.getMaxReportedErrors()) {
+            errors.add(BulkIngestError.builder()
+                    .index(index)
+                    .message(message)
+                    .build());
+        }
+    }
+
+    private ReentrantLock idempotencyLock(UUID userId, String idempotencyKey) {
+        int hash = 31 * userId.hashCode() + idempotencyKey.hashCode();
+        return idempotencyLocks[(hash & Integer.MAX_VALUE) % IDEMPOTENCY_LOCK_STRIPES];
+    }
+
+    private static ReentrantLock[] newLocks(int stripes) {
+        ReentrantLock[] locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private void rememberKey(ActivityLog activityLog) {
+        if (activityLog.getIdempotencyKey() != null) {
+            idempotencyGuard.remember(activityLog);
+        }
+    }
+
+    // Stored timestamps keep microseconds; cursors taken from entities that never went through the database
+    // (cached or live-tailed ones) must compare equal to the stored row.
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehindQueue.isEnabled() || activityLogSpool.isEnabled();
+    }
+
+    private boolean isStatelessWrite() {
+        return dataAccessProperties.getWritePath() == DataAccessProperties.WritePath.STATELESS;
+    }
+
+    private ActivityLogReader reader() {
+        return dataAccessProperties.getReadPath() == DataAccessProperties.ReadPath.PROJECTION
+                ? activityLogProjectionReader
+                : activityLogEntityReader;
+    }
+
+    // Reads that fill the cache use the primary: a lagging replica would keep a stale history cached until it
+    // expires. Only reads the cache does not keep go to a replica.
+    public List<ActivityLogView> getByUserId(@ShardKey UUID userId) {
+        LocalDateTime notBefore = retentionPolicy.visibleSince();
+        Supplier<List<ActivityLogView>> loader = () -> withArchived(userId, notBefore, null,
+                reader().findAllByUserIdSince(userId, notBefore), Integer.MAX_VALUE);
+        List<ActivityLogView> activityLogs = recentActivityCache.isEnabled()
+                ? recentActivityCache.getAll(userId, loader)
+                : ReplicaRouting.call(loader);
+        activityLogMetrics.recordResultSize(activityLogs.size());
+        return activityLogs;
+    }
+
+    public ActivityLogPage getPageByUserId(@ShardKey UUID userId, ActivityLogCursor cursor, Integer limit) {
+        int pageSize = limit == null
+                ? paginationProperties.getDefaultPageSize()
+                : Math.max(1, Math.min(limit, paginationProperties.getMaxPageSize()));
 
-            return true;
+        int fetchSize = pageSize + 1;
+        LocalDateTime notBefore = retentionPolicy.visibleSince();
+        List<ActivityLogView> activityLogs;
+        if (cursor != null) {
+            activityLogs = ReplicaRouting.call(() -> withArchived(userId, notBefore, cursor,
+                    reader().findPageByUserIdAfter(userId, notBefore, cursor.createdOn(), cursor.id(),
+                            Limit.of(fetchSize)), fetchSize));
+        } else if (recentActivityCache.cachesRecent(fetchSize)) {
+            activityLogs = recentActivityCache.getRecent(userId, fetchSize,
+                    count -> firstPage(userId, notBefore, count));
+        } else {
+            activityLogs = ReplicaRouting.call(() -> firstPage(userId, notBefore, fetchSize));
         }
-        return false;
+
+        return ActivityLogPage.of(activityLogs, pageSize);
+    }
+
+    private List<ActivityLogView> firstPage(UUID userId, LocalDateTime notBefore, int count) {
+        return withArchived(userId, notBefore, null,
+                reader().findPageByUserId(userId, notBefore, Limit.of(count)), count);
+    }
+
+    // Archived rows are older than the rows left in the table, so a full result from the table that ends after
+    // the archived months needs nothing from the archive.
+    private List<ActivityLogView> withArchived(UUID userId, LocalDateTime notBefore, ActivityLogCursor after,
+                                               List<ActivityLogView> activityLogs, int limit) {
+        if (!activityLogArchive.isEnabled()) {
+            return activityLogs;
+        }
+        if (activityLogs.size() >= limit) {
+            LocalDateTime oldest = activityLogs.get(activityLogs.size() - 1).createdOn();
+            if (!oldest.isBefore(activityLogArchive.archivedThrough())) {
+                return activityLogs;
+            }
+        }
+        List<ActivityLogView> archived = activityLogArchive.find(userId, notBefore, after, limit);
+        return archived.isEmpty() ? activityLogs : ActivityLogArchive.merge(activityLogs, archived, limit);
+    }
+
+    /**
+     * Events written after {@code cursor}, oldest first, for resuming a live tail.
+     */
+    public List<ActivityLogView> getNewerThan(@ShardKey UUID userId, ActivityLogCursor cursor, int limit) {
+        return reader().findPageByUserIdNewerThan(
+                userId, retentionPolicy.visibleSince(), cursor.createdOn(), cursor.id(), Limit.of(limit));
+    }
+
+    @ReadFromReplica
+    @Transactional(readOnly = true)
+    public void exportByUserId(@ShardKey UUID userId, Consumer<ActivityLog> consumer) {
+        LocalDateTime notBefore = retentionPolicy.visibleSince();
+        LocalDateTime archivedThrough = activityLogArchive.isEnabled()
+                ? activityLogArchive.archivedThrough()
+                : LocalDateTime.MIN;
+        // Rows of an archived month still in the table are exported from the table only.
+        Set<UUID> exportedArchivedIds = new HashSet<>();
+        try (Stream<ActivityLog> activityLogs = activityLogRepository.streamByUserId(userId, notBefore)) {
+            activityLogs.forEach(activityLog -> {
+                consumer.accept(activityLog);
+                if (activityLog.getCreatedOn().isBefore(archivedThrough)) {
+                    exportedArchivedIds.add(activityLog.getId());
+                }
+                // Keep the persistence context empty so memory does not grow with the history size.
+                entityManager.detach(activityLog);
+            });
+        }
+        if (activityLogArchive.isEnabled()) {
+            activityLogArchive.forEach(userId, notBefore, activityLog -> {
+                if (!exportedArchivedIds.contains(activityLog.getId())) {
+                    consumer.accept(activityLog);
+                }
+            });
+        }
+    }
+
+    public long deleteByUserId(@ShardKey UUID userId) {
+        int chunkSize = deletionProperties.getChunkSize();
+        long deleted = 0;
+        int affected;
+
+        do {
+            affected = activityLogRepository.softDeleteChunkByUserId(userId, chunkSize);
+            deleted += affected;
+        } while (affected > 0);
+        deleted += activityLogArchive.deleteByUserId(userId);
+
+        recentActivityCache.invalidate(userId);
+        eventPublisher.publishEvent(new ActivityLogsDeletedEvent(userId, deleted));
+        return deleted;
     }
 }
\ No newline at end of file
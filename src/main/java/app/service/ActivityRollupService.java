@@ -0,0 +1,374 @@
+package app.service;
+
+import app.archive.ActivityLogArchive;
+import app.config.RollupProperties;
+import app.event.ActivityLogsDeletedEvent;
+import app.event.ActivityLogsWrittenEvent;
+import app.exception.InvalidRangeException;
+import app.jdbc.ShardKey;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.model.ActivityRollup;
+import app.model.RollupGranularity;
+import app.repository.ActivityLogRepository;
+import app.repository.ActivityRollupRepository;
+import app.repository.ActivityRollupWriter;
+import app.retention.RetentionPolicy;
+import app.web.dto.RollupRebuildResponse;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Hourly per-user, per-action event counters. Written events are counted in memory and added to the stored
+ * counters in one batched upsert per {@code flush-interval}; queries merge in what is still pending, so answers
+ * cost one row per bucket regardless of how many events it holds.
+ */
+@Slf4j
+@Service
+public class ActivityRollupService implements SmartLifecycle {
+
+    // Stop after the write-behind queue has drained so its last batches are counted.
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+
+    private final RollupProperties properties;
+    private final ActivityRollupRepository rollupRepository;
+    private final ActivityRollupWriter rollupWriter;
+    private final ActivityLogRepository activityLogRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final Shards shards;
+    private final ActivityLogArchive activityLogArchive;
+
+    private static final int USER_LOCK_STRIPES = 64;
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private final Map<PendingKey, Long> pending = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    // Rebuilds and deletions of the same user run one at a time. A stripe's counter lock is held for writing while
+    // its deltas are flushed or a user's counters are replaced, and for reading by queries, so a query never sees
+    // a delta that has left pending but is not yet committed.
+    private final ReentrantLock[] userLocks = new ReentrantLock[USER_LOCK_STRIPES];
+    private final ReentrantReadWriteLock[] counterLocks = new ReentrantReadWriteLock[USER_LOCK_STRIPES];
+    // Events written while a user's counters are being rebuilt, held until the rebuild knows which it counted.
+    private final Map<UUID, List<ActivityLog>> rebuilding = new ConcurrentHashMap<>();
+
+    public ActivityRollupService(RollupProperties properties,
+                                 ActivityRollupRepository rollupRepository,
+                                 ActivityRollupWriter rollupWriter,
+                                 ActivityLogRepository activityLogRepository,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 Shards shards,
+                                 ActivityLogArchive activityLogArchive) {
+        this.properties = properties;
+        this.rollupRepository = rollupRepository;
+        this.rollupWriter = rollupWriter;
+        this.activityLogRepository = activityLogRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        this.shards = shards;
+        this.activityLogArchive = activityLogArchive;
+        for (int i = 0; i < USER_LOCK_STRIPES; i++) {
+            userLocks[i] = new ReentrantLock();
+            counterLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @EventListener
+    public void onWritten(ActivityLogsWrittenEvent event) {
+        for (ActivityLog activityLog : event.activityLogs()) {
+            rebuilding.compute(activityLog.getUserId(), (userId, held) -> {
+                if (held == null) {
+                    count(pending, activityLog);
+                } else {
+                    held.add(activityLog);
+                }
+                return held;
+            });
+        }
+    }
+
+    @EventListener
+    public void onDeleted(ActivityLogsDeletedEvent event) {
+        UUID userId = event.userId();
+        ReentrantLock userLock = userLock(userId);
+        Lock counterLock = counterLock(userId).writeLock();
+        userLock.lock();
+        counterLock.lock();
+        try {
+            pending.keySet().removeIf(key -> key.userId().equals(userId));
+            shards.runFor(userId, () -> rollupRepository.deleteByUserId(userId));
+        } finally {
+            counterLock.unlock();
+            userLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${activity-log.rollup.flush-interval:1s}")
+    public void flush() {
+        Map<Integer, List<PendingKey>> keysByStripe = new HashMap<>();
+        for (PendingKey key : pending.keySet()) {
+            keysByStripe.computeIfAbsent(stripe(key.userId()), stripe -> new ArrayList<>()).add(key);
+        }
+        keysByStripe.forEach(this::flush);
+    }
+
+    // Each stripe is written on its own, so queries only wait for the stripe of the user they read.
+    private void flush(int stripe, List<PendingKey> keys) {
+        Lock lock = counterLocks[stripe].writeLock();
+        lock.lock();
+        try {
+            List<ActivityRollup> deltas = new ArrayList<>(keys.size());
+            for (PendingKey key : keys) {
+                Long count = pending.remove(key);
+                if (count != null) {
+                    deltas.add(key.toRollup(count));
+                }
+            }
+
+            try {
+                rollupWriter.increment(deltas);
+            } catch (RuntimeException e) {
+                // Put the counts back so the next flush retries them.
+                deltas.forEach(delta -> pending.merge(PendingKey.of(delta), delta.getEventCount(), Long::sum));
+                log.error("Failed to flush {} activity rollups", deltas.size(), e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<ActivityRollup> getStats(@ShardKey UUID userId, LocalDateTime from, LocalDateTime to,
+                                         RollupGranularity granularity) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(properties.getDefaultRange());
+        if (!start.isBefore(end)) {
+            throw new InvalidRangeException("from must be before to");
+        }
+        if (Duration.between(start, end).compareTo(properties.getMaxRange()) > 0) {
+            throw new InvalidRangeException("Range must not exceed " + properties.getMaxRange());
+        }
+
+        // Widen to whole hours so partially covered buckets are included.
+        LocalDateTime bucketFrom = RollupGranularity.HOUR.bucketOf(start);
+        Map<PendingKey, Long> counts = new LinkedHashMap<>();
+        Lock lock = counterLock(userId).readLock();
+        lock.lock();
+        try {
+            for (ActivityRollup rollup : rollupRepository.findByUserIdBetween(userId, bucketFrom, end)) {
+                counts.merge(new PendingKey(userId, granularity.bucketOf(rollup.getBucketStart()),
+                        rollup.getAction()), rollup.getEventCount(), Long::sum);
+            }
+            pending.forEach((key, count) -> {
+                if (key.userId().equals(userId) && !key.bucketStart().isBefore(bucketFrom)
+                        && key.bucketStart().isBefore(end)) {
+                    counts.merge(new PendingKey(userId, granularity.bucketOf(key.bucketStart()), key.action()),
+                            count, Long::sum);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+
+        return counts.entrySet().stream()
+                .map(entry -> entry.getKey().toRollup(entry.getValue()))
+                .sorted(Comparator.comparing(ActivityRollup::getBucketStart).thenComparing(ActivityRollup::getAction))
+                .toList();
+    }
+
+    /**
+     * Recomputes a user's counters from the stored and archived events, replacing whatever was there.
+     *
+     * @return number of hourly buckets written
+     */
+    public long rebuild(@ShardKey UUID userId) {
+        ReentrantLock userLock = userLock(userId);
+        ReentrantReadWriteLock.WriteLock counterLock = counterLock(userId).writeLock();
+        userLock.lock();
+        // Events written from here on are held until the recount is done. Held events and the pending counts the
+        // rebuild takes over are put back if it fails.
+        Map<PendingKey, Long> replaced = new HashMap<>();
+        List<ActivityLog> held = new ArrayList<>();
+        try {
+            rebuilding.put(userId, new ArrayList<>());
+            return replaceCounters(userId, counterLock, replaced, held);
+        } catch (RuntimeException e) {
+            replaced.forEach((key, count) -> pending.merge(key, count, Long::sum));
+            List<ActivityLog> stillHeld = rebuilding.remove(userId);
+            if (stillHeld != null) {
+                held.addAll(stillHeld);
+            }
+            held.forEach(activityLog -> count(pending, activityLog));
+            throw e;
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    // The recount and the check of which held events it saw share one snapshot, so each held event is counted
+    // either by the recount or afterwards, never by both.
+    private long replaceCounters(UUID userId, ReentrantReadWriteLock.WriteLock counterLock,
+                                 Map<PendingKey, Long> replaced, List<ActivityLog> held) {
+        LocalDateTime archivedThrough = activityLogArchive.isEnabled()
+                ? activityLogArchive.archivedThrough()
+                : LocalDateTime.MIN;
+        Map<PendingKey, Long> counts = new LinkedHashMap<>();
+        Set<UUID> counted = new HashSet<>();
+        try {
+            snapshotTemplate.executeWithoutResult(status -> {
+                // Rows of an archived month still in the table are counted from the table only.
+                Set<UUID> countedArchivedIds = new HashSet<>();
+                try (Stream<ActivityLog> activityLogs = activityLogRepository.streamByUserId(userId,
+                        RetentionPolicy.UNBOUNDED)) {
+                    activityLogs.forEach(activityLog -> {
+                        count(counts, activityLog);
+                        if (activityLog.getCreatedOn().isBefore(archivedThrough)) {
+                            countedArchivedIds.add(activityLog.getId());
+                        }
+                        entityManager.detach(activityLog);
+                    });
+                }
+                if (activityLogArchive.isEnabled()) {
+                    activityLogArchive.forEach(userId, RetentionPolicy.UNBOUNDED, activityLog -> {
+                        if (!countedArchivedIds.contains(activityLog.getId())) {
+                            count(counts, activityLog);
+                        }
+                    });
+                }
+
+                // Kept until the counters are replaced, so nothing is flushed onto the old ones. Pending counts are
+                // of events stored before the rebuild began, which the recount has; events written from here on go
+                // to pending again.
+                counterLock.lock();
+                for (PendingKey key : pending.keySet()) {
+                    if (key.userId().equals(userId)) {
+                        replaced.put(key, pending.remove(key));
+                    }
+                }
+                held.addAll(rebuilding.remove(userId));
+                for (int from = 0; from < held.size(); from += ID_CHUNK_SIZE) {
+                    List<UUID> ids = held.subList(from, Math.min(from + ID_CHUNK_SIZE, held.size())).stream()
+                            .map(ActivityLog::getId)
+                            .toList();
+                    counted.addAll(activityLogRepository.findLiveIds(ids));
+                }
+            });
+
+            List<ActivityRollup> rollups = counts.entrySet().stream()
+                    .map(entry -> entry.getKey().toRollup(entry.getValue()))
+                    .toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                rollupRepository.deleteByUserId(userId);
+                rollupWriter.increment(rollups);
+            });
+            held.stream()
+                    .filter(activityLog -> !counted.contains(activityLog.getId()))
+                    .forEach(activityLog -> count(pending, activityLog));
+            return rollups.size();
+        } finally {
+            if (counterLock.isHeldByCurrentThread()) {
+                counterLock.unlock();
+            }
+        }
+    }
+
+    public RollupRebuildResponse rebuildAll() {
+        long users = 0;
+        long buckets = 0;
+        for (String shard : shards.names()) {
+            for (UUID userId : shards.callOn(shard, activityLogRepository::findDistinctUserIds)) {
+                buckets += shards.callFor(userId, () -> rebuild(userId));
+                users++;
+            }
+        }
+
+        return RollupRebuildResponse.builder()
+                .users(users)
+                .buckets(buckets)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private static void count(Map<PendingKey, Long> counts, ActivityLog activityLog) {
+        LocalDateTime bucketStart = RollupGranularity.HOUR.bucketOf(activityLog.getCreatedOn());
+        counts.merge(new PendingKey(activityLog.getUserId(), bucketStart, activityLog.getAction()), 1L, Long::sum);
+    }
+
+    private ReentrantLock userLock(UUID userId) {
+        return userLocks[stripe(userId)];
+    }
+
+    private ReentrantReadWriteLock counterLock(UUID userId) {
+        return counterLocks[stripe(userId)];
+    }
+
+    private static int stripe(UUID userId) {
+        return (userId.hashCode() & Integer.MAX_VALUE) % USER_LOCK_STRIPES;
+    }
+
+    private record PendingKey(UUID userId, LocalDateTime bucketStart, String action) {
+
+        static PendingKey of(ActivityRollup rollup) {
+            return new PendingKey(rollup.getUserId(), rollup.getBucketStart(), rollup.getAction());
+        }
+
+        ActivityRollup toRollup(long count) {
+            return ActivityRollup.builder()
+                    .userId(userId)
+                    .bucketStart(bucketStart)
+                    .actionHash(ActivityRollup.hashOf(action))
+                    .action(action)
+                    .eventCount(count)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package app.service;
+
+import app.config.DeletionProperties;
+import app.model.DeletionJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeletionJobService {
+
+    private final ActivityLogService activityLogService;
+    private final DeletionProperties deletionProperties;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+
+    private final Map<UUID, DeletionJob> jobs = new ConcurrentHashMap<>();
+    // Latest job of each user; replaced atomically so concurrent submits for one user start a single job.
+    private final Map<UUID, DeletionJob> activeByUser = new ConcurrentHashMap<>();
+
+    public DeletionJob submit(UUID userId) {
+        evictFinishedJobs();
+
+        DeletionJob submitted = new DeletionJob(UUID.randomUUID(), userId, LocalDateTime.now());
+        DeletionJob job = activeByUser.compute(userId,
+                (id, active) -> active != null && !active.isFinished() ? active : submitted);
+        if (job == submitted) {
+            jobs.put(job.getId(), job);
+            applicationTaskExecutor.execute(() -> run(job));
+        }
+
+        return job;
+    }
+
+    public Optional<DeletionJob> getJob(UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(DeletionJob job) {
+        job.markRunning();
+        try {
+            job.markCompleted(activityLogService.deleteByUserId(job.getUserId()));
+        } catch (RuntimeException e) {
+            log.error("Deletion job {} for user {} failed", job.getId(), job.getUserId(), e);
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(deletionProperties.getJobRetention());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedOn().isBefore(cutoff));
+        activeByUser.values().removeIf(DeletionJob::isFinished);
+    }
+}
@@ -0,0 +1,163 @@
+package app.service;
+
+import app.config.DatabaseProperties;
+import app.jdbc.Shards;
+import app.model.RebalanceJob;
+import app.util.UuidBytes;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Moves users whose shard changed, after shards were added to or removed from the ring, to the shard that now owns
+ * them. A user's rows are copied to the new shard before they are deleted from the old one and copying a row twice
+ * changes nothing, so an interrupted run is completed by running it again. Until it finishes, reads of a moving
+ * user see only the part of their history that already arrived. Runs in the background, one run at a time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShardRebalancer {
+
+    // One page of users after the given one, each table read in user_id order up to the page size.
+    private static final String SELECT_USERS_SQL = """
+            select user_id from (
+                (select distinct user_id from activity_log where user_id > ? order by user_id limit ?)
+                union (select distinct user_id from idempotency_key where user_id > ? order by user_id limit ?)
+                union (select distinct user_id from activity_rollup where user_id > ? order by user_id limit ?)
+            ) users order by user_id limit ?""";
+    private static final String SELECT_EVENTS_SQL = """
+            select id, action, action_code, created_on, is_deleted, deleted_on from activity_log
+            where user_id = ? and id > ? order by id limit ?""";
+    private static final String INSERT_EVENT_SQL = """
+            insert into activity_log (id, user_id, action, action_code, created_on, is_deleted, deleted_on)
+            values (?, ?, ?, ?, ?, ?, ?)
+            on duplicate key update id = id""";
+    private static final String SELECT_KEYS_SQL =
+            "select idempotency_key, activity_log_id, created_on from idempotency_key where user_id = ?";
+    private static final String INSERT_KEY_SQL =
+            "insert ignore into idempotency_key (user_id, idempotency_key, activity_log_id, created_on) values (?, ?, ?, ?)";
+    private static final String DELETE_EVENTS_SQL = "delete from activity_log where user_id = ? limit ?";
+    private static final String DELETE_KEYS_SQL = "delete from idempotency_key where user_id = ?";
+    private static final String DELETE_ROLLUPS_SQL = "delete from activity_rollup where user_id = ?";
+
+    private static final byte[] MIN_ID = new byte[16];
+
+    private final Shards shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityRollupService activityRollupService;
+    private final DatabaseProperties databaseProperties;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+
+    private final AtomicReference<RebalanceJob> lastJob = new AtomicReference<>();
+
+    /**
+     * Starts a rebalance, or returns the one still running.
+     */
+    public RebalanceJob submit() {
+        while (true) {
+            RebalanceJob last = lastJob.get();
+            if (last != null && !last.isFinished()) {
+                return last;
+            }
+            RebalanceJob job = new RebalanceJob(UUID.randomUUID(), LocalDateTime.now());
+            if (lastJob.compareAndSet(last, job)) {
+                applicationTaskExecutor.execute(() -> run(job));
+                return job;
+            }
+        }
+    }
+
+    public Optional<RebalanceJob> getJob(UUID jobId) {
+        return Optional.ofNullable(lastJob.get()).filter(job -> job.getId().equals(jobId));
+    }
+
+    private void run(RebalanceJob job) {
+        job.markRunning();
+        try {
+            for (String source : shards.names()) {
+                rebalance(job, source);
+            }
+            job.markCompleted();
+            log.info("Rebalancing moved {} users with {} events", job.getMovedUsers(), job.getMovedEvents());
+        } catch (RuntimeException e) {
+            log.error("Rebalance job {} failed after moving {} users", job.getId(), job.getMovedUsers(), e);
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    private void rebalance(RebalanceJob job, String source) {
+        int pageSize = databaseProperties.getRebalanceChunkSize();
+        byte[] after = MIN_ID;
+        List<byte[]> page;
+        do {
+            byte[] from = after;
+            page = shards.callOn(source, () -> jdbcTemplate.query(SELECT_USERS_SQL, (rs, row) -> rs.getBytes(1),
+                    from, pageSize, from, pageSize, from, pageSize, pageSize));
+            for (byte[] user : page) {
+                UUID userId = UuidBytes.fromBytes(user);
+                String target = shards.shardFor(userId);
+                if (!target.equals(source)) {
+                    job.recordMove(move(userId, source, target));
+                }
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1);
+            }
+        } while (page.size() == pageSize);
+    }
+
+    private long move(UUID userId, String source, String target) {
+        byte[] user = UuidBytes.toBytes(userId);
+        int chunkSize = databaseProperties.getRebalanceChunkSize();
+
+        long copied = 0;
+        byte[] after = MIN_ID;
+        List<Object[]> chunk;
+        do {
+            byte[] from = after;
+            chunk = shards.callOn(source, () -> jdbcTemplate.query(SELECT_EVENTS_SQL, (rs, row) -> new Object[]{
+                    rs.getBytes(1), user, rs.getString(2), rs.getObject(3), rs.getTimestamp(4),
+                    rs.getBoolean(5), rs.getTimestamp(6)}, user, from, chunkSize));
+            if (!chunk.isEmpty()) {
+                List<Object[]> rows = chunk;
+                shards.runOn(target, () -> jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, rows, new int[]{
+                        Types.BINARY, Types.BINARY, Types.VARCHAR, Types.INTEGER, Types.TIMESTAMP,
+                        Types.BOOLEAN, Types.TIMESTAMP}));
+                after = (byte[]) chunk.get(chunk.size() - 1)[0];
+                copied += chunk.size();
+            }
+        } while (chunk.size() == chunkSize);
+
+        List<Object[]> keys = shards.callOn(source, () -> jdbcTemplate.query(SELECT_KEYS_SQL, (rs, row) -> new Object[]{
+                user, rs.getString(1), rs.getBytes(2), rs.getTimestamp(3)}, user));
+        if (!keys.isEmpty()) {
+            shards.runOn(target, () -> jdbcTemplate.batchUpdate(INSERT_KEY_SQL, keys, new int[]{
+                    Types.BINARY, Types.VARCHAR, Types.BINARY, Types.TIMESTAMP}));
+        }
+
+        // Everything is on the target now, so its counters can be recomputed from the events there.
+        activityRollupService.rebuild(userId);
+
+        shards.runOn(source, () -> {
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update(DELETE_EVENTS_SQL, user, chunkSize);
+            } while (deleted == chunkSize);
+            jdbcTemplate.update(DELETE_KEYS_SQL, user);
+            jdbcTemplate.update(DELETE_ROLLUPS_SQL, user);
+        });
+
+        log.debug("Moved user {} with {} events from shard {} to {}", userId, copied, source, target);
+        return copied;
+    }
+}
@@ -0,0 +1,61 @@
+package app.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket in its virtual scheduling form (GCRA). A bucket's whole state is the time at which it is full again,
+ * held in one {@link AtomicLong} and advanced by compare-and-set, so callers never block each other and a bucket
+ * costs a single small object. The rate and burst live here and are shared by every bucket of the same limit.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000 / permitsPerSecond));
+        this.capacityNanos = Math.multiplyExact(intervalNanos, (long) burst);
+    }
+
+    /**
+     * A full bucket, whenever it is first used.
+     */
+    public AtomicLong newBucket() {
+        return new AtomicLong(Long.MIN_VALUE);
+    }
+
+    /**
+     * Takes one permit. Returns 0 when it was granted, otherwise the nanoseconds until one is available.
+     */
+    public long tryAcquire(AtomicLong bucket, long nowNanos) {
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, nowNanos) + intervalNanos;
+            long wait = next - capacityNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit granted by {@link #tryAcquire} that ended up unused.
+     */
+    public void release(AtomicLong bucket) {
+        bucket.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * How long an untouched bucket takes to fill up from empty.
+     */
+    public Duration refillTime() {
+        return Duration.ofNanos(capacityNanos);
+    }
+}
@@ -0,0 +1,280 @@
+package app.web;
+
+import app.config.LiveTailProperties;
+import app.event.ActivityLogsWrittenEvent;
+import app.exception.SubscriptionLimitExceededException;
+import app.model.ActivityLog;
+import app.model.ActivityLogCursor;
+import app.model.ActivityLogView;
+import app.service.ActivityLogService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static app.web.mapper.DtoMapper.fromActivityLogView;
+
+/**
+ * Fans written events out to Server-Sent Events subscribers. Idle subscribers hold no thread: each one has a bounded
+ * buffer that the write path appends to, and a task on the hub's own executor drains it only while there is something
+ * to send, so thousands of subscribers cannot starve other background work. A subscriber whose buffer fills up is
+ * disconnected and resumes from its last event id.
+ */
+@Slf4j
+@Component
+public class ActivityFeedHub {
+
+    static final String ACTIVITY_EVENT = "activity";
+    static final String RESET_EVENT = "reset";
+
+    private final LiveTailProperties properties;
+    private final ActivityLogService activityLogService;
+    private final TaskExecutor feedExecutor;
+
+    private final Map<UUID, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter overflowCounter;
+
+    @Autowired
+    public ActivityFeedHub(LiveTailProperties properties,
+                           ActivityLogService activityLogService,
+                           MeterRegistry meterRegistry) {
+        this(properties, activityLogService, newFeedExecutor(properties), meterRegistry);
+    }
+
+    ActivityFeedHub(LiveTailProperties properties,
+                    ActivityLogService activityLogService,
+                    TaskExecutor feedExecutor,
+                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.activityLogService = activityLogService;
+        this.feedExecutor = feedExecutor;
+        Gauge.builder("activitylog.feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open live tail subscriptions")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("activitylog.feed.disconnected")
+                .description("Subscribers disconnected because they fell behind")
+                .tag("reason", "overflow")
+                .register(meterRegistry);
+    }
+
+    // Not a bean: a TaskExecutor bean would replace the application task executor that Spring Boot configures.
+    private static TaskExecutor newFeedExecutor(LiveTailProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        // A subscriber has at most one drain task queued.
+        executor.setQueueCapacity(properties.getMaxSubscribers());
+        executor.setThreadNamePrefix("live-tail-");
+        executor.initialize();
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (feedExecutor instanceof ThreadPoolTaskExecutor executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Opens a subscription to {@code userId}'s new events. With a {@code resumeAfter} cursor, events written after
+     * it are sent first.
+     */
+    public SseEmitter subscribe(UUID userId, ActivityLogCursor resumeAfter) {
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new SubscriptionLimitExceededException("Too many live tail subscribers");
+        }
+
+        SseEmitter emitter = newEmitter(properties.getTimeout().toMillis());
+        Subscription subscription = new Subscription(userId, emitter, resumeAfter);
+        // Register before replaying so nothing written in between is missed; duplicates are skipped on drain.
+        subscriptions.compute(userId, (id, subscribers) -> {
+            Set<Subscription> registered = subscribers == null ? new CopyOnWriteArraySet<>() : subscribers;
+            registered.add(subscription);
+            return registered;
+        });
+
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+
+        subscription.schedule();
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @EventListener
+    public void onWritten(ActivityLogsWrittenEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        for (ActivityLog activityLog : event.activityLogs()) {
+            Set<Subscription> subscribers = subscriptions.get(activityLog.getUserId());
+            if (subscribers != null) {
+                ActivityLogView view = ActivityLogView.of(activityLog);
+                subscribers.forEach(subscription -> subscription.offer(view));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${activity-log.live-tail.heartbeat-interval:15s}")
+    public void heartbeat() {
+        subscriptions.values().forEach(subscribers -> subscribers.forEach(Subscription::requestHeartbeat));
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private final class Subscription {
+
+        private final UUID userId;
+        private final SseEmitter emitter;
+        private final Queue<ActivityLogView> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        // Only touched by the drain task, which never runs twice at once.
+        private ActivityLogCursor resumeAfter;
+        private Set<UUID> replayed;
+        private boolean replayAged;
+
+        Subscription(UUID userId, SseEmitter emitter, ActivityLogCursor resumeAfter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.resumeAfter = resumeAfter;
+            this.buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+        }
+
+        void offer(ActivityLogView activityLog) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(activityLog)) {
+                overflowCounter.increment();
+                log.debug("Disconnecting live tail subscriber of user {} after its buffer filled up", userId);
+                close();
+                emitter.complete();
+                return;
+            }
+            schedule();
+        }
+
+        void requestHeartbeat() {
+            heartbeatDue.set(true);
+            schedule();
+        }
+
+        void schedule() {
+            if (!closed.get() && scheduled.compareAndSet(false, true)) {
+                try {
+                    feedExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    log.warn("Disconnecting live tail subscriber of user {}, the feed executor is saturated", userId);
+                    close();
+                    emitter.complete();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    drainOnce();
+                    scheduled.set(false);
+                    // Recheck: an offer may have lost the race with the reset above.
+                } while (!closed.get() && (!buffer.isEmpty() || heartbeatDue.get())
+                        && scheduled.compareAndSet(false, true));
+            } catch (IOException e) {
+                // The container reports the broken connection through onError as well.
+                log.debug("Live tail subscriber of user {} went away", userId, e);
+                close();
+            } catch (RuntimeException e) {
+                log.warn("Live tail of user {} failed", userId, e);
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void drainOnce() throws IOException {
+            if (resumeAfter != null) {
+                replay();
+            }
+            ActivityLogView activityLog;
+            while (!closed.get() && (activityLog = buffer.poll()) != null) {
+                if (replayed == null || !replayed.contains(activityLog.id())) {
+                    send(activityLog);
+                }
+            }
+            if (heartbeatDue.getAndSet(false) && !closed.get()) {
+                // A full heartbeat interval after the replay, every event it returned has been published.
+                if (replayAged) {
+                    replayed = null;
+                }
+                replayAged = replayed != null;
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+
+        private void replay() throws IOException {
+            List<ActivityLogView> missed = activityLogService.getNewerThan(userId, resumeAfter, properties.getMaxReplay() + 1);
+            resumeAfter = null;
+            if (missed.size() > properties.getMaxReplay()) {
+                // Too far behind to catch up event by event; the client reloads through the regular endpoints.
+                emitter.send(SseEmitter.event().name(RESET_EVENT).data(""));
+                return;
+            }
+            replayed = new HashSet<>(missed.size());
+            for (ActivityLogView activityLog : missed) {
+                send(activityLog);
+                replayed.add(activityLog.id());
+            }
+        }
+
+        private void send(ActivityLogView activityLog) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(ActivityLogCursor.of(activityLog).encode())
+                    .name(ACTIVITY_EVENT)
+                    .data(fromActivityLogView(activityLog), MediaType.APPLICATION_JSON));
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscriptions.computeIfPresent(userId, (id, subscribers) -> {
+                    subscribers.remove(this);
+                    return subscribers.isEmpty() ? null : subscribers;
+                });
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
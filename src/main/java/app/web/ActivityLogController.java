@@ -1,19 +1,53 @@
 package app.web;
 
+import app.ingestion.IngestionRateLimiter;
 import app.model.ActivityLog;
+import app.model.ActivityLogCursor;
+import app.model.ActivityLogPage;
+import app.model.ActivityLogView;
+import app.model.ActivityLogSearch;
+import app.model.DeletionJob;
+import app.model.RebalanceJob;
+import app.model.RollupGranularity;
+import app.service.ActivityLogSearchService;
 import app.service.ActivityLogService;
+import app.service.ActivityRollupService;
+import app.service.DeletionJobService;
+import app.service.ShardRebalancer;
 import app.web.dto.ActivityLogRequest;
 import app.web.dto.ActivityLogResponse;
+import app.web.dto.ActivityStatsResponse;
+import app.web.dto.BulkIngestResponse;
+import app.web.dto.DeletionJobResponse;
+import app.web.dto.RollupRebuildResponse;
+import app.web.dto.ShardRebalanceResponse;
 import app.web.mapper.DtoMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import static app.web.mapper.DtoMapper.fromActivityLog;
+import static app.web.mapper.DtoMapper.fromDeletionJob;
+import static app.web.mapper.DtoMapper.fromRebalanceJob;
 
 @RestController
 @RequestMapping("/api/v1/activity-log")
@@ -21,25 +55,55 @@ import static app.web.mapper.DtoMapper.fromActivityLog;
 public class ActivityLogController {
 
     private final ActivityLogService activityLogService;
+    private final ActivityLogRequestReader activityLogRequestReader;
+    private final DeletionJobService deletionJobService;
+    private final ActivityLogExportWriter activityLogExportWriter;
+    private final ActivityRollupService activityRollupService;
+    private final ActivityFeedHub activityFeedHub;
+    private final ActivityLogSearchService activityLogSearchService;
+    private final ShardRebalancer shardRebalancer;
+    private final IngestionRateLimiter ingestionRateLimiter;
 
     @PostMapping
-    public ResponseEntity<ActivityLogResponse> logActivity(@RequestBody ActivityLogRequest request) {
-        ActivityLog activityLog = activityLogService.logActivity(request);
+    public ResponseEntity<ActivityLogResponse> logActivity(@RequestBody ActivityLogRequest request,
+                                                           @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        ingestionRateLimiter.acquire(request.getUserId());
+
+        ActivityLog activityLog = activityLogService.logActivity(request, idempotencyKey);
 
         ActivityLogResponse activityLogResponse = fromActivityLog(activityLog);
 
+        // In write-behind mode the event is only queued at this point.
+        HttpStatus status = activityLogService.isWriteBehind() ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+
         return ResponseEntity
-                .status(HttpStatus.CREATED)
+                .status(status)
                 .body(activityLogResponse);
     }
 
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkIngestResponse> logActivities(InputStream body) throws IOException {
+        BulkIngestResponse bulkIngestResponse = activityLogService.logActivities(
+                ingestionRateLimiter.limit(activityLogRequestReader.read(body)));
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(bulkIngestResponse);
+    }
+
     @GetMapping
-    public ResponseEntity<List<ActivityLogResponse>> getActivityLog(@RequestParam(name = "userId") UUID userId) {
-        List<ActivityLog> activityLog = activityLogService.getByUserId(userId);
+    public ResponseEntity<List<ActivityLogResponse>> getActivityLog(@RequestParam(name = "userId") UUID userId,
+                                                                    @RequestParam(name = "limit", required = false) Integer limit,
+                                                                    @RequestParam(name = "cursor", required = false) String cursor) {
+        if (limit != null || cursor != null) {
+            return getActivityLogPage(userId, limit, cursor);
+        }
+
+        List<ActivityLogView> activityLog = activityLogService.getByUserId(userId);
 
         List<ActivityLogResponse> activityLogResponse = activityLog
                 .stream()
-                .map(DtoMapper::fromActivityLog)
+                .map(DtoMapper::fromActivityLogView)
                 .toList();
 
         return ResponseEntity
@@ -47,14 +111,169 @@ public class ActivityLogController {
                 .body(activityLogResponse);
     }
 
+    private ResponseEntity<List<ActivityLogResponse>> getActivityLogPage(UUID userId, Integer limit, String cursor) {
+        ActivityLogCursor after = cursor == null ? null : ActivityLogCursor.decode(cursor);
+        ActivityLogPage page = activityLogService.getPageByUserId(userId, after, limit);
+
+        return pageResponse(page);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<ActivityLogResponse>> searchActivityLog(@RequestParam(name = "userId", required = false) Set<UUID> userIds,
+                                                                       @RequestParam(name = "action", required = false) String action,
+                                                                       @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                       @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                       @RequestParam(name = "limit", required = false) Integer limit,
+                                                                       @RequestParam(name = "cursor", required = false) String cursor) {
+        ActivityLogSearch search = ActivityLogSearch.builder()
+                .userIds(userIds)
+                .actionPrefix(action)
+                .from(from)
+                .to(to)
+                .after(cursor == null ? null : ActivityLogCursor.decode(cursor))
+                .limit(limit)
+                .build();
+
+        return pageResponse(activityLogSearchService.search(search));
+    }
+
+    private ResponseEntity<List<ActivityLogResponse>> pageResponse(ActivityLogPage page) {
+        List<ActivityLogResponse> activityLogResponse = page.items()
+                .stream()
+                .map(DtoMapper::fromActivityLogView)
+                .toList();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor().encode());
+        }
+
+        return response.body(activityLogResponse);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportActivityLog(@RequestParam(name = "userId") UUID userId,
+                                                                   @RequestParam(name = "format", defaultValue = "ndjson") String format,
+                                                                   @RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, true) : out;
+            try (ActivityLogExportWriter.RowWriter rows = activityLogExportWriter.open(exportFormat, target)) {
+                activityLogService.exportByUserId(userId, activityLog -> rows.write(fromActivityLog(activityLog)));
+            }
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("activity-log-" + userId + "." + exportFormat.getExtension())
+                        .build()
+                        .toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.body(body);
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamActivityLog(@RequestParam(name = "userId") UUID userId,
+                                        @RequestParam(name = "cursor", required = false) String cursor,
+                                        @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        // Browsers resend the last event id on reconnect; an explicit cursor wins.
+        String resumeFrom = cursor != null ? cursor : lastEventId;
+        ActivityLogCursor resumeAfter = resumeFrom == null || resumeFrom.isEmpty() ? null : ActivityLogCursor.decode(resumeFrom);
+
+        return activityFeedHub.subscribe(userId, resumeAfter);
+    }
+
     @DeleteMapping
     public ResponseEntity<String> deleteActivityLog(@RequestParam(name = "userId") UUID userId) {
-        boolean deleted = activityLogService.deleteByUserId(userId);
+        long deleted = activityLogService.deleteByUserId(userId);
 
-        if (deleted) {
-            return ResponseEntity.ok("Activity logs deleted for user: " + userId);
+        if (deleted > 0) {
+            return ResponseEntity.ok()
+                    .header("X-Deleted-Count", String.valueOf(deleted))
+                    .body("Activity logs deleted for user: " + userId);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
+
+    @DeleteMapping(params = "async=true")
+    public ResponseEntity<DeletionJobResponse> deleteActivityLogAsync(@RequestParam(name = "userId") UUID userId) {
+        DeletionJob deletionJob = deletionJobService.submit(userId);
+
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/v1/activity-log/deletion-jobs/" + deletionJob.getId()))
+                .body(fromDeletionJob(deletionJob));
+    }
+
+    @GetMapping("/deletion-jobs/{jobId}")
+    public ResponseEntity<DeletionJobResponse> getDeletionJob(@PathVariable UUID jobId) {
+        return deletionJobService.getJob(jobId)
+                .map(DtoMapper::fromDeletionJob)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<ActivityStatsResponse>> getActivityStats(@RequestParam(name = "userId") UUID userId,
+                                                                        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                        @RequestParam(name = "granularity", defaultValue = "hour") String granularity) {
+        List<ActivityStatsResponse> activityStatsResponse = activityRollupService
+                .getStats(userId, from, to, parseGranularity(granularity))
+                .stream()
+                .map(DtoMapper::fromActivityRollup)
+                .toList();
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(activityStatsResponse);
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<RollupRebuildResponse> rebuildActivityStats(@RequestParam(name = "userId", required = false) UUID userId) {
+        RollupRebuildResponse rollupRebuildResponse = userId == null
+                ? activityRollupService.rebuildAll()
+                : RollupRebuildResponse.builder()
+                        .users(1)
+                        .buckets(activityRollupService.rebuild(userId))
+                        .build();
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(rollupRebuildResponse);
+    }
+
+    @PostMapping("/shards/rebalance")
+    public ResponseEntity<ShardRebalanceResponse> rebalanceShards() {
+        RebalanceJob rebalanceJob = shardRebalancer.submit();
+
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/v1/activity-log/shards/rebalance/" + rebalanceJob.getId()))
+                .body(fromRebalanceJob(rebalanceJob));
+    }
+
+    @GetMapping("/shards/rebalance/{jobId}")
+    public ResponseEntity<ShardRebalanceResponse> getRebalanceJob(@PathVariable UUID jobId) {
+        return shardRebalancer.getJob(jobId)
+                .map(DtoMapper::fromRebalanceJob)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static RollupGranularity parseGranularity(String value) {
+        return Arrays.stream(RollupGranularity.values())
+                .filter(granularity -> granularity.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported granularity: " + value));
+    }
 }
\ No newline at end of file
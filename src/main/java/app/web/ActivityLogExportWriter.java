@@ -0,0 +1,132 @@
+package app.web;
+
+import app.web.dto.ActivityLogResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes export rows straight to the response stream. Each row is encoded and handed to the stream as it
+ * arrives, and the stream is flushed periodically so clients start receiving data immediately.
+ */
+@Component
+public class ActivityLogExportWriter {
+
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private final ObjectMapper objectMapper;
+
+    public ActivityLogExportWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public RowWriter open(ExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonRowWriter(objectMapper, out);
+            case CSV -> new CsvRowWriter(out);
+        };
+    }
+
+    public abstract static class RowWriter implements AutoCloseable {
+
+        private final OutputStream out;
+        private long rows;
+
+        RowWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        public void write(ActivityLogResponse row) {
+            try {
+                writeRow(row);
+                if (++rows == 1 || rows % FLUSH_EVERY_ROWS == 0) {
+                    flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        abstract void writeRow(ActivityLogResponse row) throws IOException;
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static class NdjsonRowWriter extends RowWriter {
+
+        private final ObjectWriter objectWriter;
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+            super(out);
+            // Flushing is driven by RowWriter, not by every serialized value.
+            this.objectWriter = objectMapper.writerFor(ActivityLogResponse.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator((String) null);
+            this.generator = objectWriter.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        void writeRow(ActivityLogResponse row) throws IOException {
+            objectWriter.writeValue(generator, row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+            super.flush();
+        }
+    }
+
+    private static class CsvRowWriter extends RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            super(out);
+            this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write("userId,action,createdOn\n");
+        }
+
+        @Override
+        void writeRow(ActivityLogResponse row) throws IOException {
+            writer.write(row.getUserId().toString());
+            writer.write(',');
+            writer.write(escape(row.getAction()));
+            writer.write(',');
+            writer.write(row.getCreatedOn().toString());
+            writer.write('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+            super.flush();
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package app.web;
+
+import app.exception.InvalidBulkItemException;
+import app.exception.MalformedBulkPayloadException;
+import app.web.dto.ActivityLogRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a bulk body one {@link ActivityLogRequest} at a time. Accepts either a top-level JSON array or
+ * newline-delimited JSON objects; only the item currently being bound is held in memory.
+ */
+@Component
+public class ActivityLogRequestReader {
+
+    private final ObjectReader reader;
+
+    public ActivityLogRequestReader(ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(ActivityLogRequest.class);
+    }
+
+    public Iterator<ActivityLogRequest> read(InputStream body) throws IOException {
+        return new RequestIterator(reader.readValues(body));
+    }
+
+    private static class RequestIterator implements Iterator<ActivityLogRequest> {
+
+        private final MappingIterator<ActivityLogRequest> delegate;
+
+        RequestIterator(MappingIterator<ActivityLogRequest> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return delegate.hasNextValue();
+            } catch (JsonProcessingException e) {
+                throw new MalformedBulkPayloadException(e.getOriginalMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public ActivityLogRequest next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                ActivityLogRequest request = delegate.nextValue();
+                if (request == null) {
+                    throw new InvalidBulkItemException("Item must be a JSON object");
+                }
+                return request;
+            } catch (JsonMappingException e) {
+                // The iterator skips to the end of the broken item, so the rest of the payload is still readable.
+                throw new InvalidBulkItemException(e.getOriginalMessage());
+            } catch (JsonProcessingException e) {
+                throw new MalformedBulkPayloadException(e.getOriginalMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ActivityStatsResponse {
+    private LocalDateTime bucketStart;
+    private String action;
+    private long count;
+}
@@ -0,0 +1,14 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkIngestResponse {
+    private long accepted;
+    private long rejected;
+    private List<BulkIngestError> errors;
+}
@@ -0,0 +1,19 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+public class DeletionJobResponse {
+    private UUID jobId;
+    private UUID userId;
+    private String status;
+    private long deletedCount;
+    private LocalDateTime submittedOn;
+    private LocalDateTime finishedOn;
+    private String error;
+}
@@ -0,0 +1,11 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RollupRebuildResponse {
+    private long users;
+    private long buckets;
+}
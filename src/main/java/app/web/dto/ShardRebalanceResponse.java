@@ -0,0 +1,19 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+public class ShardRebalanceResponse {
+    private UUID jobId;
+    private String status;
+    private long users;
+    private long events;
+    private LocalDateTime submittedOn;
+    private LocalDateTime finishedOn;
+    private String error;
+}
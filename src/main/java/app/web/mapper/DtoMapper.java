@@ -1,7 +1,14 @@
 package app.web.mapper;
 
 import app.model.ActivityLog;
+import app.model.ActivityLogView;
+import app.model.ActivityRollup;
+import app.model.DeletionJob;
+import app.model.RebalanceJob;
 import app.web.dto.ActivityLogResponse;
+import app.web.dto.ActivityStatsResponse;
+import app.web.dto.DeletionJobResponse;
+import app.web.dto.ShardRebalanceResponse;
 import lombok.experimental.UtilityClass;
 
 @UtilityClass
@@ -14,4 +21,44 @@ public class DtoMapper {
                 .createdOn(activityLog.getCreatedOn())
                 .build();
     }
+
+    public static ActivityLogResponse fromActivityLogView(ActivityLogView activityLog) {
+        return ActivityLogResponse.builder()
+                .userId(activityLog.userId())
+                .action(activityLog.action())
+                .createdOn(activityLog.createdOn())
+                .build();
+    }
+
+    public static ActivityStatsResponse fromActivityRollup(ActivityRollup activityRollup) {
+        return ActivityStatsResponse.builder()
+                .bucketStart(activityRollup.getBucketStart())
+                .action(activityRollup.getAction())
+                .count(activityRollup.getEventCount())
+                .build();
+    }
+
+    public static DeletionJobResponse fromDeletionJob(DeletionJob deletionJob) {
+        return DeletionJobResponse.builder()
+                .jobId(deletionJob.getId())
+                .userId(deletionJob.getUserId())
+                .status(deletionJob.getStatus().name())
+                .deletedCount(deletionJob.getDeletedCount())
+                .submittedOn(deletionJob.getSubmittedOn())
+                .finishedOn(deletionJob.getFinishedOn())
+                .error(deletionJob.getError())
+                .build();
+    }
+
+    public static ShardRebalanceResponse fromRebalanceJob(RebalanceJob rebalanceJob) {
+        return ShardRebalanceResponse.builder()
+                .jobId(rebalanceJob.getId())
+                .status(rebalanceJob.getStatus().name())
+                .users(rebalanceJob.getMovedUsers())
+                .events(rebalanceJob.getMovedEvents())
+                .submittedOn(rebalanceJob.getSubmittedOn())
+                .finishedOn(rebalanceJob.getFinishedOn())
+                .error(rebalanceJob.getError())
+                .build();
+    }
 }
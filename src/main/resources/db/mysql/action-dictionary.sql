@@ -0,0 +1,5 @@
+-- Prepares an existing activity_log table for activity-log.action-dictionary.enabled=true.
+-- ddl-auto=update adds activity_action and activity_log.action_code, but does not relax the NOT NULL on action,
+-- which encoded rows leave empty.
+
+ALTER TABLE activity_log MODIFY action VARCHAR(1000) NULL;
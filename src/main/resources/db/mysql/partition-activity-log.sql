@@ -0,0 +1,19 @@
+-- One-off conversion of activity_log to monthly RANGE partitions on created_on, required by
+-- activity-log.retention.strategy=PARTITIONS. The retention job adds future months and drops expired ones.
+--
+-- MySQL requires the partitioning column in every unique key, so the primary key becomes (id, created_on);
+-- ids stay unique on their own since they are generated per row.
+-- Both statements rebuild the table. Run them in a maintenance window or through an online schema change tool.
+-- Set the first bound to the month after the oldest row you still need; p_history holds everything before it and
+-- is dropped by the retention job once that month has expired.
+
+ALTER TABLE activity_log
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_on);
+
+ALTER TABLE activity_log
+    PARTITION BY RANGE (TO_DAYS(created_on)) (
+        PARTITION p_history VALUES LESS THAN (TO_DAYS('2025-01-01')),
+        PARTITION p202501 VALUES LESS THAN (TO_DAYS('2025-02-01')),
+        PARTITION pmax VALUES LESS THAN MAXVALUE
+    );
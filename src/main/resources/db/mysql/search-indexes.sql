@@ -0,0 +1,5 @@
+-- Index for cross-user searches filtered by an inline action prefix.
+-- ddl-auto=update creates the other search indexes from the entity mapping, but MySQL can only index a prefix of
+-- the VARCHAR(1000) action column under utf8mb4, which JPA index definitions cannot express.
+
+CREATE INDEX idx_activity_log_action_created ON activity_log (action(191), created_on);
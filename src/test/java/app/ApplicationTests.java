@@ -1,15 +1,29 @@
 package app;
 
+import app.jdbc.ConcurrencyLimitingDataSource;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
 @SpringBootTest
 @ActiveProfiles("test")
 class ApplicationTests {
 
+    @Autowired
+    private DataSource dataSource;
+
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void dataSourceIsGuarded_WhenMaxConcurrencyIsSet() {
+        assertInstanceOf(ConcurrencyLimitingDataSource.class, dataSource);
+    }
+
 }
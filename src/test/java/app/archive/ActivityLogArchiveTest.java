@@ -0,0 +1,132 @@
+package app.archive;
+
+import app.config.ArchiveProperties;
+import app.model.ActivityLog;
+import app.model.ActivityLogCursor;
+import app.model.ActivityLogView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActivityLogArchiveTest {
+
+    private static final YearMonth FEBRUARY = YearMonth.of(2024, 2);
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+
+    @TempDir
+    private Path directory;
+
+    private ArchiveProperties properties;
+    private ActivityLogArchive archive;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ArchiveProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        archive = new ActivityLogArchive(properties, new SimpleMeterRegistry());
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    public void testFind_ShouldReturnRowsNewestFirst_AcrossMonthsAndShards() throws Exception {
+        ActivityLog february = row(FEBRUARY.atDay(10).atStartOfDay());
+        ActivityLog marchOnPrimary = row(MARCH.atDay(5).atStartOfDay());
+        ActivityLog marchOnOtherShard = row(MARCH.atDay(20).atStartOfDay());
+        write(FEBRUARY, "primary", february);
+        write(MARCH, "primary", marchOnPrimary);
+        write(MARCH, "shard-1", marchOnOtherShard);
+
+        assertIds(List.of(marchOnOtherShard, marchOnPrimary, february),
+                archive.find(userId, LocalDateTime.MIN, null, Integer.MAX_VALUE));
+        assertIds(List.of(marchOnOtherShard, marchOnPrimary), archive.find(userId, LocalDateTime.MIN, null, 2));
+        assertIds(List.of(february), archive.find(userId, LocalDateTime.MIN, ActivityLogCursor.of(marchOnPrimary), 10));
+        assertIds(List.of(marchOnOtherShard, marchOnPrimary),
+                archive.find(userId, MARCH.atDay(1).atStartOfDay(), null, 10));
+        assertEquals(YearMonth.of(2024, 4).atDay(1).atStartOfDay(), archive.archivedThrough());
+    }
+
+    @Test
+    public void testDeleteByUserId_ShouldHideArchivedRows_AfterReopening() throws Exception {
+        write(FEBRUARY, "primary", row(FEBRUARY.atDay(1).atStartOfDay()), row(FEBRUARY.atDay(2).atStartOfDay()));
+
+        assertEquals(2, archive.deleteByUserId(userId));
+        assertTrue(archive.find(userId, LocalDateTime.MIN, null, 10).isEmpty());
+
+        ActivityLogArchive reopened = new ActivityLogArchive(properties, new SimpleMeterRegistry());
+        assertTrue(reopened.find(userId, LocalDateTime.MIN, null, 10).isEmpty());
+        assertEquals(0, reopened.deleteByUserId(userId));
+    }
+
+    @Test
+    public void testWrite_ShouldLeaveNothingBehind_WhenMonthIsNotCommitted() throws Exception {
+        try (ActivityLogArchive.MonthWriter writer = archive.write(FEBRUARY, "primary")) {
+            writer.append(userId, List.of(row(FEBRUARY.atDay(1).atStartOfDay())));
+        }
+        Files.createDirectories(directory.resolve("2024-03_primary.tmp"));
+
+        ActivityLogArchive reopened = new ActivityLogArchive(properties, new SimpleMeterRegistry());
+
+        assertFalse(reopened.contains(FEBRUARY, "primary"));
+        assertTrue(reopened.find(userId, LocalDateTime.MIN, null, 10).isEmpty());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testDropBefore_ShouldDeleteMonthsThatEndedBeforeCutoff() throws Exception {
+        write(FEBRUARY, "primary", row(FEBRUARY.atDay(1).atStartOfDay()));
+        ActivityLog march = row(MARCH.atDay(1).atStartOfDay());
+        write(MARCH, "primary", march);
+
+        assertEquals(1, archive.dropBefore(MARCH.atDay(15).atStartOfDay()));
+
+        assertFalse(archive.contains(FEBRUARY, "primary"));
+        assertFalse(Files.exists(directory.resolve("2024-02_primary")));
+        assertIds(List.of(march), archive.find(userId, LocalDateTime.MIN, null, 10));
+    }
+
+    @Test
+    public void testMerge_ShouldKeepRowsInTableAndArchiveOnce() {
+        ActivityLogView newest = ActivityLogView.of(row(MARCH.atDay(20).atStartOfDay()));
+        ActivityLogView inBoth = ActivityLogView.of(row(MARCH.atDay(10).atStartOfDay()));
+        ActivityLogView oldest = ActivityLogView.of(row(MARCH.atDay(1).atStartOfDay()));
+
+        assertEquals(List.of(newest, inBoth, oldest),
+                ActivityLogArchive.merge(List.of(newest, inBoth), List.of(inBoth, oldest), 10));
+        assertEquals(List.of(newest, inBoth),
+                ActivityLogArchive.merge(List.of(newest, inBoth), List.of(inBoth, oldest), 2));
+    }
+
+    private void write(YearMonth month, String shard, ActivityLog... rows) throws Exception {
+        try (ActivityLogArchive.MonthWriter writer = archive.write(month, shard)) {
+            writer.append(userId, List.of(rows));
+            writer.append(UUID.randomUUID(), List.of(row(month.atDay(1).atStartOfDay())));
+            assertTrue(writer.commit());
+        }
+        assertTrue(archive.contains(month, shard));
+    }
+
+    private ActivityLog row(LocalDateTime createdOn) {
+        return new ActivityLog(UUID.randomUUID(), userId, "action", null, createdOn);
+    }
+
+    private static void assertIds(List<ActivityLog> expected, List<ActivityLogView> actual) {
+        List<UUID> actualIds = new ArrayList<>();
+        actual.forEach(row -> actualIds.add(row.id()));
+        assertEquals(expected.stream().map(ActivityLog::getId).toList(), actualIds);
+    }
+}
@@ -0,0 +1,116 @@
+package app.archive;
+
+import app.config.ArchiveProperties;
+import app.config.DatabaseProperties;
+import app.config.RetentionProperties;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.repository.ActivityLogArchiveSource;
+import app.retention.RetentionPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ArchiveJobTest {
+
+    @Mock
+    private ActivityLogArchiveSource source;
+
+    @TempDir
+    private Path directory;
+
+    private ActivityLogArchive archive;
+    private SimpleMeterRegistry meterRegistry;
+    private ArchiveJob job;
+    private YearMonth oldestMonth;
+
+    @BeforeEach
+    void setUp() {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setDeleteChunkSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        archive = new ActivityLogArchive(properties, meterRegistry);
+        job = new ArchiveJob(properties, archive, source, new RetentionPolicy(new RetentionProperties()),
+                new Shards(new DatabaseProperties(), null, null), meterRegistry);
+        oldestMonth = YearMonth.now().minusMonths(6);
+    }
+
+    @Test
+    public void testArchive_ShouldMoveMonthsOlderThanCutoffAndDeleteTheirRows() {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        LocalDateTime from = oldestMonth.atDay(1).atStartOfDay();
+        LocalDateTime to = oldestMonth.plusMonths(1).atDay(1).atStartOfDay();
+        when(source.findOldestCreatedOn()).thenReturn(from.plusDays(3));
+        doAnswer(invocation -> {
+            Consumer<ActivityLog> consumer = invocation.getArgument(2);
+            consumer.accept(row(userId, from.plusDays(5)));
+            consumer.accept(row(userId, from.plusDays(4)));
+            consumer.accept(row(otherUserId, from.plusDays(3)));
+            return null;
+        }).when(source).forEachCreatedBetween(eq(from), eq(to), any());
+        when(source.deleteCreatedBetween(from, to, 2)).thenReturn(2, 1);
+
+        job.archive();
+
+        assertTrue(archive.contains(oldestMonth, Shards.PRIMARY));
+        assertEquals(2, archive.find(userId, LocalDateTime.MIN, null, 10).size());
+        assertEquals(1, archive.find(otherUserId, LocalDateTime.MIN, null, 10).size());
+        assertEquals(3.0, meterRegistry.get("activitylog.archive.archived").counter().count());
+        verify(source, times(2)).deleteCreatedBetween(from, to, 2);
+        // Later months are read but hold nothing, and nothing newer than the cutoff is touched.
+        verify(source, never()).forEachCreatedBetween(eq(YearMonth.now().minusMonths(2).atDay(1).atStartOfDay()),
+                any(), any());
+        verify(source, never()).deleteCreatedBetween(eq(to), any(), anyInt());
+    }
+
+    @Test
+    public void testArchive_ShouldOnlyDeleteRows_WhenMonthIsAlreadyArchived() throws Exception {
+        LocalDateTime from = oldestMonth.atDay(1).atStartOfDay();
+        LocalDateTime to = oldestMonth.plusMonths(1).atDay(1).atStartOfDay();
+        try (ActivityLogArchive.MonthWriter writer = archive.write(oldestMonth, Shards.PRIMARY)) {
+            writer.append(UUID.randomUUID(), List.of(row(null, from)));
+            writer.commit();
+        }
+        when(source.findOldestCreatedOn()).thenReturn(from);
+
+        job.archive();
+
+        verify(source, never()).forEachCreatedBetween(eq(from), any(), any());
+        verify(source, times(1)).deleteCreatedBetween(from, to, 2);
+    }
+
+    @Test
+    public void testArchive_ShouldDoNothing_WhenTableIsEmpty() {
+        when(source.findOldestCreatedOn()).thenReturn(null);
+
+        job.archive();
+
+        verify(source, never()).forEachCreatedBetween(any(), any(), any());
+        verify(source, never()).deleteCreatedBetween(any(), any(), anyInt());
+    }
+
+    private static ActivityLog row(UUID userId, LocalDateTime createdOn) {
+        return new ActivityLog(UUID.randomUUID(), userId, "action", null, createdOn);
+    }
+}
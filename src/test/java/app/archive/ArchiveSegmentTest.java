@@ -0,0 +1,91 @@
+package app.archive;
+
+import app.model.ActivityLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveSegmentTest {
+
+    private static final LocalDateTime NEWEST = LocalDateTime.of(2024, 3, 31, 23, 59, 59, 123_456_000);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testRead_ShouldReturnRowsAsWritten_WhenUserIsInSegment() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        List<ActivityLog> rows = List.of(
+                row(userId, NEWEST, "login"),
+                row(userId, NEWEST.minusSeconds(1), null),
+                row(userId, NEWEST.minusDays(20).minusNanos(1000), "login"));
+        List<ActivityLog> otherRows = List.of(row(otherUserId, NEWEST.minusDays(3), "logout"));
+
+        ArchiveSegment segment = write(userId, rows, otherUserId, otherRows);
+
+        assertEquals(4, segment.rowCount());
+        assertEquals(NEWEST, segment.newest());
+        assertEquals(NEWEST.minusDays(20).minusNanos(1000), segment.oldest());
+        assertRows(rows, read(segment, userId, LocalDateTime.MIN));
+        assertRows(otherRows, read(segment, otherUserId, LocalDateTime.MIN));
+    }
+
+    @Test
+    public void testRead_ShouldStopAtNotBefore() throws Exception {
+        UUID userId = UUID.randomUUID();
+        List<ActivityLog> rows = List.of(
+                row(userId, NEWEST, "a"),
+                row(userId, NEWEST.minusDays(1), "b"),
+                row(userId, NEWEST.minusDays(2), "c"));
+
+        ArchiveSegment segment = write(userId, rows, UUID.randomUUID(), List.of(row(null, NEWEST, "d")));
+
+        assertRows(rows.subList(0, 2), read(segment, userId, NEWEST.minusDays(1)));
+    }
+
+    @Test
+    public void testRead_ShouldReturnNothing_WhenUserIsNotInSegment() throws Exception {
+        UUID userId = UUID.randomUUID();
+        ArchiveSegment segment = write(userId, List.of(row(userId, NEWEST, "a")),
+                UUID.randomUUID(), List.of(row(null, NEWEST, "b")));
+
+        assertTrue(read(segment, UUID.randomUUID(), LocalDateTime.MIN).isEmpty());
+    }
+
+    private ArchiveSegment write(UUID userId, List<ActivityLog> rows, UUID otherUserId, List<ActivityLog> otherRows)
+            throws Exception {
+        Path path = directory.resolve("part-00000.alar");
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(path)) {
+            writer.append(userId, rows);
+            writer.append(otherUserId, otherRows);
+        }
+        return ArchiveSegment.open(path);
+    }
+
+    private static List<ActivityLog> read(ArchiveSegment segment, UUID userId, LocalDateTime notBefore) {
+        List<ActivityLog> rows = new ArrayList<>();
+        segment.read(userId, notBefore, rows::add);
+        return rows;
+    }
+
+    private static void assertRows(List<ActivityLog> expected, List<ActivityLog> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getAction(), actual.get(i).getAction());
+            assertEquals(expected.get(i).getCreatedOn(), actual.get(i).getCreatedOn());
+        }
+    }
+
+    private static ActivityLog row(UUID userId, LocalDateTime createdOn, String action) {
+        return new ActivityLog(UUID.randomUUID(), userId, action, null, createdOn);
+    }
+}
@@ -0,0 +1,204 @@
+package app.cache;
+
+import app.config.CacheProperties;
+import app.model.ActivityLog;
+import app.model.ActivityLogView;
+import app.model.id.TimeOrderedUuids;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecentActivityCacheTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private CacheProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RecentActivityCache cache;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheProperties();
+        properties.setEnabled(true);
+        properties.setRecentEvents(3);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RecentActivityCache(properties, meterRegistry);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    public void testGetAll_ShouldCallLoaderOnce_WhenHistoryFitsInCache() {
+        List<ActivityLogView> history = history(2);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<ActivityLogView>> loader = () -> {
+            loads.incrementAndGet();
+            return history;
+        };
+
+        assertEquals(history, cache.getAll(userId, loader));
+        assertEquals(history, cache.getAll(userId, loader));
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    public void testGetAll_ShouldAlwaysCallLoader_WhenHistoryIsLongerThanCachedHead() {
+        List<ActivityLogView> history = history(5);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<ActivityLogView>> loader = () -> {
+            loads.incrementAndGet();
+            return history;
+        };
+
+        cache.getAll(userId, loader);
+        assertEquals(history, cache.getAll(userId, loader));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetRecent_ShouldServeFromCachedHead_WhenCountFitsInWindow() {
+        List<ActivityLogView> history = history(5);
+        List<Integer> requested = new ArrayList<>();
+        IntFunction<List<ActivityLogView>> loader = count -> {
+            requested.add(count);
+            return history.subList(0, Math.min(count, history.size()));
+        };
+
+        assertEquals(history.subList(0, 2), cache.getRecent(userId, 2, loader));
+        assertEquals(history.subList(0, 3), cache.getRecent(userId, 3, loader));
+
+        assertEquals(List.of(4), requested, "Loader should be asked for one row past the window, once");
+    }
+
+    @Test
+    public void testGetRecent_ShouldBypassCache_WhenCountIsLargerThanWindow() {
+        List<ActivityLogView> history = history(5);
+        List<Integer> requested = new ArrayList<>();
+
+        cache.getRecent(userId, 4, count -> {
+            requested.add(count);
+            return history.subList(0, count);
+        });
+
+        assertEquals(List.of(4), requested);
+    }
+
+    @Test
+    public void testAppend_ShouldAddNewestEntryToCachedHead_WhenUserIsCached() {
+        List<ActivityLogView> history = history(2);
+        cache.getAll(userId, () -> history);
+
+        ActivityLog newest = activityLog(now.plusMinutes(1));
+        cache.append(newest);
+        cache.append(newest);
+
+        List<ActivityLogView> cached = cache.getAll(userId, () -> fail("Should be served from cache"));
+        assertEquals(List.of(ActivityLogView.of(newest), history.get(0), history.get(1)), cached);
+    }
+
+    @Test
+    public void testAppend_ShouldTrimWindowAndStopServingFullHistory_WhenHeadOverflows() {
+        List<ActivityLogView> history = history(3);
+        cache.getAll(userId, () -> history);
+
+        cache.append(activityLog(now.plusMinutes(1)));
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.getAll(userId, () -> {
+            loads.incrementAndGet();
+            return history;
+        });
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testAppend_ShouldKeepNewestFirstOrder_WhenEntriesArriveOutOfOrder() {
+        List<ActivityLogView> history = history(2);
+        cache.getAll(userId, () -> history);
+
+        ActivityLog between = activityLog(now.minusSeconds(30));
+        cache.append(between);
+
+        List<ActivityLogView> cached = cache.getAll(userId, () -> fail("Should be served from cache"));
+        assertEquals(List.of(history.get(0), ActivityLogView.of(between), history.get(1)), cached);
+    }
+
+    @Test
+    public void testInvalidate_ShouldReloadOnNextRead_WhenUserWasCached() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<ActivityLogView>> loader = () -> {
+            loads.incrementAndGet();
+            return history(1);
+        };
+
+        cache.getAll(userId, loader);
+        cache.invalidate(userId);
+        cache.getAll(userId, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetAll_ShouldNotStoreResult_WhenWriteRacedWithLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<ActivityLogView>> loader = () -> {
+            if (loads.incrementAndGet() == 1) {
+                cache.invalidate(userId);
+            }
+            return history(1);
+        };
+
+        cache.getAll(userId, loader);
+        cache.getAll(userId, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetAll_ShouldPassThrough_WhenCacheIsDisabled() {
+        RecentActivityCache disabled = new RecentActivityCache(new CacheProperties(), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<ActivityLogView>> loader = () -> {
+            loads.incrementAndGet();
+            return history(1);
+        };
+
+        disabled.getAll(userId, loader);
+        disabled.getAll(userId, loader);
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(2, loads.get());
+    }
+
+    private List<ActivityLogView> history(int size) {
+        List<ActivityLogView> activityLogs = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            activityLogs.add(ActivityLogView.of(activityLog(now.minusMinutes(i))));
+        }
+        return activityLogs;
+    }
+
+    private ActivityLog activityLog(LocalDateTime createdOn) {
+        return ActivityLog.builder()
+                .id(TimeOrderedUuids.next())
+                .userId(userId)
+                .action("action")
+                .createdOn(createdOn)
+                .isDeleted(false)
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package app.config;
+
+import app.repository.ActivityLogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NativeHintsConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    public void testRegisterHints_ShouldAllowRepositoryDefaultMethods() throws Exception {
+        new NativeHintsConfig.ActivityLogHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(ActivityLogRepository.class.getMethod("softDeleteChunkByUserId", UUID.class, int.class))
+                .invoke()
+                .test(hints));
+    }
+}
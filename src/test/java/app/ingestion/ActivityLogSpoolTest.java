@@ -0,0 +1,234 @@
+package app.ingestion;
+
+import app.config.IngestionProperties;
+import app.exception.IngestionRejectedException;
+import app.model.ActivityLog;
+import app.model.id.TimeOrderedUuids;
+import app.repository.ActivityLogBatchWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ActivityLogSpoolTest {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private ActivityLogBatchWriter batchWriter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private IngestionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private List<UUID> written;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestionProperties();
+        properties.setMode(IngestionProperties.Mode.SPOOL);
+        properties.setBatchSize(10);
+        properties.setFlushInterval(Duration.ofMillis(10));
+        properties.setShutdownTimeout(Duration.ofSeconds(10));
+        properties.getSpool().setDirectory(directory.toString());
+        properties.getSpool().setSegmentSize(DataSize.ofKilobytes(4));
+        properties.getSpool().setRetryInterval(Duration.ofMillis(10));
+        meterRegistry = new SimpleMeterRegistry();
+        written = new ArrayList<>();
+    }
+
+    @Test
+    public void testStop_ShouldReplayEveryEventOnceAcrossSegments_AndDeleteReplayedSegments() throws IOException {
+        recordWrites();
+        ActivityLogSpool spool = spool();
+        spool.start();
+
+        List<UUID> appended = appendEvents(spool, 100);
+        spool.stop();
+
+        assertEquals(appended, written);
+        assertEquals(0, spool.pendingBytes());
+        assertEquals(1, segmentFiles().size(), "Only the active segment should be left");
+        assertEquals(100, meterRegistry.get("activitylog.spool.replayed").counter().count());
+    }
+
+    @Test
+    public void testStart_ShouldReplayEventsLeftByPreviousRun() throws IOException {
+        when(batchWriter.insertAll(anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        properties.setShutdownTimeout(Duration.ofMillis(100));
+        ActivityLogSpool unavailable = spool();
+        unavailable.start();
+        List<UUID> appended = appendEvents(unavailable, 30);
+        unavailable.stop();
+
+        reset(batchWriter);
+        recordWrites();
+        properties.setShutdownTimeout(Duration.ofSeconds(10));
+        ActivityLogSpool restarted = spool();
+        restarted.start();
+        restarted.stop();
+
+        assertEquals(appended, written);
+        assertEquals(1, segmentFiles().size());
+    }
+
+    @Test
+    public void testStart_ShouldNotReplayCommittedEventsAgain() {
+        recordWrites();
+        ActivityLogSpool spool = spool();
+        spool.start();
+        appendEvents(spool, 5);
+        spool.stop();
+        written.clear();
+
+        ActivityLogSpool restarted = spool();
+        restarted.start();
+        restarted.stop();
+
+        assertEquals(List.of(), written);
+    }
+
+    @Test
+    public void testReplay_ShouldRetryBatch_UntilDatabaseAcceptsIt() {
+        List<UUID> attempts = new ArrayList<>();
+        when(batchWriter.insertAll(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenAnswer(invocation -> {
+                    List<ActivityLog> batch = invocation.getArgument(0);
+                    batch.forEach(activityLog -> attempts.add(activityLog.getId()));
+                    return batch.size();
+                });
+        ActivityLogSpool spool = spool();
+        spool.start();
+
+        List<UUID> appended = appendEvents(spool, 3);
+        spool.stop();
+
+        assertEquals(appended, attempts);
+        assertEquals(2, meterRegistry.get("activitylog.spool.retries").counter().count());
+    }
+
+    @Test
+    public void testAppend_ShouldReject_WhenSpoolIsFull() {
+        when(batchWriter.insertAll(anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        properties.setShutdownTimeout(Duration.ofMillis(100));
+        properties.getSpool().setMaxSize(DataSize.ofKilobytes(8));
+        ActivityLogSpool spool = spool();
+        spool.start();
+
+        assertThrows(IngestionRejectedException.class, () -> appendEvents(spool, 1000));
+        assertEquals(1, meterRegistry.get("activitylog.spool.rejected").counter().count());
+        spool.stop();
+    }
+
+    @Test
+    public void testStart_ShouldIgnoreTornRecordAtEndOfSegment() throws IOException {
+        when(batchWriter.insertAll(anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        properties.setShutdownTimeout(Duration.ofMillis(100));
+        ActivityLogSpool unavailable = spool();
+        unavailable.start();
+        List<ActivityLog> events = List.of(activityLog(), activityLog());
+        events.forEach(unavailable::append);
+        unavailable.stop();
+
+        // A record whose payload was only partly written before the host went down.
+        int end = SpoolSegment.HEADER_SIZE;
+        for (ActivityLog activityLog : events) {
+            end += SpoolSegment.RECORD_HEADER_SIZE + ActivityLogSpool.encode(activityLog).length;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles().get(0).toFile(), "rw")) {
+            file.seek(end);
+            file.writeInt(20);
+            file.writeInt(12345);
+            file.write(new byte[]{1, 2, 3});
+        }
+
+        reset(batchWriter);
+        recordWrites();
+        ActivityLogSpool restarted = spool();
+        restarted.start();
+        restarted.stop();
+
+        assertEquals(events.stream().map(ActivityLog::getId).toList(), written);
+    }
+
+    @Test
+    public void testDecode_ShouldRestoreEncodedEvent() {
+        ActivityLog encoded = activityLog();
+        encoded.setActionCode(7);
+        encoded.setIdempotencyKey("retry-1");
+
+        ActivityLog decoded = ActivityLogSpool.decode(ActivityLogSpool.encode(encoded));
+
+        assertEquals(encoded.getId(), decoded.getId());
+        assertEquals(encoded.getUserId(), decoded.getUserId());
+        assertEquals(encoded.getCreatedOn(), decoded.getCreatedOn());
+        assertEquals(encoded.getAction(), decoded.getAction());
+        assertEquals(7, decoded.getActionCode());
+        assertNull(decoded.getStoredAction());
+        assertEquals("retry-1", decoded.getIdempotencyKey());
+    }
+
+    private ActivityLogSpool spool() {
+        return new ActivityLogSpool(properties, batchWriter, eventPublisher, meterRegistry);
+    }
+
+    private void recordWrites() {
+        when(batchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<ActivityLog> batch = invocation.getArgument(0);
+            batch.forEach(activityLog -> written.add(activityLog.getId()));
+            return batch.size();
+        });
+    }
+
+    private List<UUID> appendEvents(ActivityLogSpool spool, int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ActivityLog activityLog = activityLog();
+            spool.append(activityLog);
+            ids.add(activityLog.getId());
+        }
+        return ids;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static ActivityLog activityLog() {
+        return ActivityLog.builder()
+                .id(TimeOrderedUuids.next())
+                .userId(UUID.randomUUID())
+                .action("You have successfully updated recipe: Cornbread Salad")
+                .createdOn(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
+                .build();
+    }
+}
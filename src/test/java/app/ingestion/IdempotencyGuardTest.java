@@ -0,0 +1,131 @@
+package app.ingestion;
+
+import app.config.DatabaseProperties;
+import app.config.IdempotencyProperties;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.model.id.TimeOrderedUuids;
+import app.repository.ActivityLogBatchWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class IdempotencyGuardTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties({IdempotencyProperties.class, DatabaseProperties.class})
+    @Import({IdempotencyGuard.class, ActivityLogBatchWriter.class, Shards.class})
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private IdempotencyGuard idempotencyGuard;
+
+    @Autowired
+    private ActivityLogBatchWriter batchWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testFindOriginal_ShouldNotQueryDatabase_WhenKeyIsNew() {
+        double before = lookups("database");
+
+        assertEquals(Optional.empty(), idempotencyGuard.findOriginal(UUID.randomUUID(), "new-key"));
+
+        assertEquals(before, lookups("database"));
+    }
+
+    @Test
+    public void testFindOriginal_ShouldAnswerFromMemory_WhenKeyWasRemembered() {
+        ActivityLog activityLog = activityLog(UUID.randomUUID(), "retry-1");
+        double before = lookups("database");
+
+        idempotencyGuard.remember(activityLog);
+
+        assertSame(activityLog, idempotencyGuard.findOriginal(activityLog.getUserId(), "retry-1").orElseThrow());
+        assertEquals(before, lookups("database"));
+    }
+
+    @Test
+    public void testFindOriginal_ShouldLoadFromDatabase_AfterPreload() {
+        ActivityLog stored = activityLog(UUID.randomUUID(), "retry-1");
+        batchWriter.insertAll(List.of(stored));
+
+        idempotencyGuard.preload();
+
+        ActivityLog original = idempotencyGuard.findOriginal(stored.getUserId(), "retry-1").orElseThrow();
+        assertEquals(stored.getId(), original.getId());
+        assertEquals(stored.getAction(), original.getAction());
+    }
+
+    @Test
+    public void testInsertAll_ShouldSkipEvent_WhenItsKeyIsAlreadyStored() {
+        UUID userId = UUID.randomUUID();
+        ActivityLog first = activityLog(userId, "retry-1");
+        ActivityLog retry = activityLog(userId, "retry-1");
+        ActivityLog other = activityLog(userId, "retry-2");
+
+        assertEquals(1, batchWriter.insertAll(List.of(first)));
+        assertEquals(1, batchWriter.insertAll(List.of(retry, other)));
+
+        assertEquals(first.getId(), idempotencyGuard.loadOriginal(userId, "retry-1").orElseThrow().getId());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "select count(*) from activity_log where user_id = ?", Integer.class, userId));
+    }
+
+    @Test
+    public void testPurgeExpired_ShouldDeleteKeysOlderThanWindow() {
+        UUID userId = UUID.randomUUID();
+        ActivityLog old = activityLog(userId, "old");
+        old.setCreatedOn(old.getCreatedOn().minusDays(2));
+        batchWriter.insertAll(List.of(old, activityLog(userId, "fresh")));
+
+        idempotencyGuard.purgeExpired();
+
+        assertEquals(Optional.empty(), idempotencyGuard.loadOriginal(userId, "old"));
+        assertTrue(idempotencyGuard.loadOriginal(userId, "fresh").isPresent());
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("activitylog.idempotency.lookups").tag("result", result).counter().count();
+    }
+
+    private static ActivityLog activityLog(UUID userId, String idempotencyKey) {
+        return ActivityLog.builder()
+                .id(TimeOrderedUuids.next())
+                .userId(userId)
+                .action("action " + idempotencyKey)
+                .createdOn(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
+                .idempotencyKey(idempotencyKey)
+                .build();
+    }
+}
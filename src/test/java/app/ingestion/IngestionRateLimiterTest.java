@@ -0,0 +1,110 @@
+package app.ingestion;
+
+import app.config.RateLimitProperties;
+import app.exception.InvalidBulkItemException;
+import app.exception.RateLimitExceededException;
+import app.web.dto.ActivityLogRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngestionRateLimiterTest {
+
+    private RateLimitProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setEnabled(true);
+        // Slow enough that no permit is refilled while a test runs.
+        properties.setUser(new RateLimitProperties.Limit(0.001, 2));
+        meterRegistry = new SimpleMeterRegistry();
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    public void testAcquire_ShouldReject_WhenUserQuotaIsUsedUp() {
+        IngestionRateLimiter limiter = new IngestionRateLimiter(properties, meterRegistry);
+        limiter.acquire(userId);
+        limiter.acquire(userId);
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire(userId));
+
+        assertTrue(exception.getRetryAfter().toSeconds() > 0);
+        assertEquals(1.0, rejected("user"));
+    }
+
+    @Test
+    public void testAcquire_ShouldKeepUsersApart() {
+        IngestionRateLimiter limiter = new IngestionRateLimiter(properties, meterRegistry);
+        limiter.acquire(userId);
+        limiter.acquire(userId);
+
+        assertDoesNotThrow(() -> limiter.acquire(UUID.randomUUID()));
+    }
+
+    @Test
+    public void testAcquire_ShouldRejectAnyUser_WhenGlobalQuotaIsUsedUp_WithoutChargingTheUser() {
+        properties.setGlobal(new RateLimitProperties.Limit(0.001, 1));
+        IngestionRateLimiter limiter = new IngestionRateLimiter(properties, meterRegistry);
+        limiter.acquire(UUID.randomUUID());
+
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire(userId));
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire(userId));
+
+        assertEquals(2.0, rejected("global"));
+        assertEquals(0.0, rejected("user"));
+    }
+
+    @Test
+    public void testAcquire_ShouldOnlyApplyGlobalQuota_WhenUserRateIsZero() {
+        properties.setUser(new RateLimitProperties.Limit(0, 0));
+        properties.setGlobal(new RateLimitProperties.Limit(0.001, 3));
+        IngestionRateLimiter limiter = new IngestionRateLimiter(properties, meterRegistry);
+        limiter.acquire(userId);
+        limiter.acquire(userId);
+        limiter.acquire(userId);
+
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire(userId));
+
+        assertEquals(1.0, rejected("global"));
+        assertEquals(0.0, rejected("user"));
+    }
+
+    @Test
+    public void testAcquire_ShouldAdmitEverything_WhenDisabled() {
+        properties.setEnabled(false);
+        IngestionRateLimiter limiter = new IngestionRateLimiter(properties, meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(userId);
+        }
+
+        assertEquals(0.0, rejected("user"));
+    }
+
+    @Test
+    public void testLimit_ShouldRejectOnlyItemsOverQuota() {
+        IngestionRateLimiter limiter = new IngestionRateLimiter(properties, meterRegistry);
+        ActivityLogRequest request = ActivityLogRequest.builder().userId(userId).action("action").build();
+        Iterator<ActivityLogRequest> requests = limiter.limit(List.of(request, request, request).iterator());
+
+        assertSame(request, requests.next());
+        assertSame(request, requests.next());
+        assertThrows(InvalidBulkItemException.class, requests::next);
+        assertFalse(requests.hasNext());
+    }
+
+    private double rejected(String limit) {
+        return meterRegistry.get("activitylog.ratelimit.rejected").tag("limit", limit).counter().count();
+    }
+}
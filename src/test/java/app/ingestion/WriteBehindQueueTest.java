@@ -0,0 +1,172 @@
+package app.ingestion;
+
+import app.cache.RecentActivityCache;
+import app.config.IngestionProperties;
+import app.event.ActivityLogsWrittenEvent;
+import app.exception.IngestionRejectedException;
+import app.model.ActivityLog;
+import app.repository.ActivityLogBatchWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindQueueTest {
+
+    @Mock
+    private ActivityLogBatchWriter batchWriter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RecentActivityCache recentActivityCache;
+
+    private IngestionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestionProperties();
+        properties.setMode(IngestionProperties.Mode.WRITE_BEHIND);
+        properties.setBatchSize(10);
+        properties.setFlushInterval(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testStop_ShouldDrainAllQueuedEventsInBatches() {
+        List<List<ActivityLog>> batches = new ArrayList<>();
+        when(batchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<ActivityLog> batch = invocation.getArgument(0);
+            batches.add(List.copyOf(batch));
+            return batch.size();
+        });
+
+        WriteBehindQueue queue = newQueue();
+        queue.start();
+
+        for (int i = 0; i < 25; i++) {
+            queue.enqueue(activityLog());
+        }
+        queue.stop();
+
+        assertEquals(25, batches.stream().mapToInt(List::size).sum());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 10), "Batches should not exceed batch size");
+        assertEquals(0, queue.size());
+        assertEquals(25, meterRegistry.get("activitylog.ingestion.flushed").counter().count());
+        assertFalse(queue.isRunning());
+    }
+
+    @Test
+    public void testEnqueue_ShouldReject_AfterStop() {
+        WriteBehindQueue queue = newQueue();
+        queue.start();
+        queue.stop();
+
+        assertThrows(IngestionRejectedException.class, () -> queue.enqueue(activityLog()));
+    }
+
+    @Test
+    public void testEnqueue_ShouldRejectAndCount_WhenQueueStaysFull() throws Exception {
+        properties.setQueueCapacity(1);
+        properties.setFlushInterval(Duration.ofMillis(500));
+        properties.setBatchSize(2);
+        properties.setBackpressure(IngestionProperties.Backpressure.BLOCK);
+        properties.setOfferTimeout(Duration.ofMillis(10));
+
+        // Keep the writer busy so the single slot stays occupied.
+        when(batchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return 1;
+        });
+
+        WriteBehindQueue queue = newQueue();
+        queue.start();
+
+        queue.enqueue(activityLog());
+        queue.enqueue(activityLog());
+        assertThrows(IngestionRejectedException.class, () -> {
+            for (int i = 0; i < 5; i++) {
+                queue.enqueue(activityLog());
+            }
+        });
+        queue.stop();
+
+        assertTrue(meterRegistry.get("activitylog.ingestion.rejected").counter().count() >= 1);
+    }
+
+    @Test
+    public void testFlush_ShouldCountFailedEventsAndInvalidateCachedUsers_WhenBatchWriteFails() {
+        when(batchWriter.insertAll(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        WriteBehindQueue queue = newQueue();
+        queue.start();
+        ActivityLog activityLog = activityLog();
+        queue.enqueue(activityLog);
+        queue.stop();
+
+        verify(batchWriter, times(1)).insertAll(anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+        verify(recentActivityCache, times(1)).invalidate(activityLog.getUserId());
+        assertEquals(1, meterRegistry.get("activitylog.ingestion.failed").counter().count());
+    }
+
+    @Test
+    public void testFlush_ShouldPublishWrittenEvents_WhenBatchIsWritten() {
+        when(batchWriter.insertAll(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+        List<ActivityLog> published = new ArrayList<>();
+        doAnswer(invocation -> {
+            published.addAll(invocation.<ActivityLogsWrittenEvent>getArgument(0).activityLogs());
+            return null;
+        }).when(eventPublisher).publishEvent(any(ActivityLogsWrittenEvent.class));
+
+        WriteBehindQueue queue = newQueue();
+        queue.start();
+        ActivityLog activityLog = activityLog();
+        queue.enqueue(activityLog);
+        queue.stop();
+
+        assertEquals(List.of(activityLog), published);
+    }
+
+    @Test
+    public void testStart_ShouldNotStartWriter_WhenModeIsSync() {
+        properties.setMode(IngestionProperties.Mode.SYNC);
+
+        WriteBehindQueue queue = newQueue();
+        queue.start();
+
+        assertFalse(queue.isEnabled());
+        assertFalse(queue.isRunning());
+        assertThrows(IngestionRejectedException.class, () -> queue.enqueue(activityLog()));
+    }
+
+    private WriteBehindQueue newQueue() {
+        return new WriteBehindQueue(properties, batchWriter, eventPublisher, recentActivityCache, meterRegistry);
+    }
+
+    private ActivityLog activityLog() {
+        return ActivityLog.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .action("action")
+                .createdOn(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package app.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        // Two separate in-memory H2 databases, each knowing its own role.
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(primary).execute("shutdown");
+        new JdbcTemplate(replica).execute("shutdown");
+    }
+
+    @Test
+    public void testGetConnection_ShouldUsePrimary_OutsideReplicaRouting() {
+        ReadWriteRoutingDataSource dataSource =
+                new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(30));
+
+        assertEquals("primary", role(dataSource));
+    }
+
+    @Test
+    public void testGetConnection_ShouldUseReplica_WhileReplicaRoutingIsActive() {
+        ReadWriteRoutingDataSource dataSource =
+                new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(30));
+
+        boolean previous = ReplicaRouting.activate();
+        try {
+            assertEquals("replica", role(dataSource));
+        } finally {
+            ReplicaRouting.restore(previous);
+        }
+        assertEquals("primary", role(dataSource));
+    }
+
+    @Test
+    public void testGetConnection_ShouldAlternateBetweenReplicas() {
+        DataSource secondReplica = database("second-replica");
+        ReadWriteRoutingDataSource dataSource =
+                new ReadWriteRoutingDataSource(primary, List.of(replica, secondReplica), Duration.ofSeconds(30));
+
+        boolean previous = ReplicaRouting.activate();
+        try {
+            assertEquals("replica", role(dataSource));
+            assertEquals("second-replica", role(dataSource));
+            assertEquals("replica", role(dataSource));
+        } finally {
+            ReplicaRouting.restore(previous);
+            new JdbcTemplate(secondReplica).execute("shutdown");
+        }
+    }
+
+    @Test
+    public void testGetConnection_ShouldFallBackToPrimaryAndSkipReplica_WhenReplicaIsDown() throws SQLException {
+        DataSource downReplica = mock(DataSource.class);
+        when(downReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        ReadWriteRoutingDataSource dataSource =
+                new ReadWriteRoutingDataSource(primary, List.of(downReplica), Duration.ofSeconds(30));
+
+        boolean previous = ReplicaRouting.activate();
+        try {
+            assertEquals("primary", role(dataSource));
+            assertEquals("primary", role(dataSource));
+        } finally {
+            ReplicaRouting.restore(previous);
+        }
+
+        verify(downReplica, times(1)).getConnection();
+    }
+
+    private static DataSource database(String role) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + role + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table node (role varchar(20))");
+        jdbcTemplate.update("insert into node (role) values (?)", role);
+        return dataSource;
+    }
+
+    private static String role(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("select role from node", String.class);
+    }
+}
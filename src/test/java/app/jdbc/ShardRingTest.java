@@ -0,0 +1,66 @@
+package app.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardRingTest {
+
+    private static final int USERS = 30_000;
+
+    @Test
+    public void testShardFor_ShouldSpreadUsersEvenly() {
+        ShardRing ring = new ShardRing(List.of("primary", "east", "west"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < USERS; i++) {
+            counts.merge(ring.shardFor(new UUID(random.nextLong(), random.nextLong())), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertEquals(USERS / 3.0, count, USERS / 3.0 * 0.15));
+    }
+
+    @Test
+    public void testShardFor_ShouldGiveSameShard_ForEqualRings() {
+        ShardRing ring = new ShardRing(List.of("primary", "east", "west"), 128);
+        ShardRing sameRing = new ShardRing(List.of("west", "primary", "east"), 128);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            UUID userId = new UUID(random.nextLong(), random.nextLong());
+            assertEquals(ring.shardFor(userId), sameRing.shardFor(userId));
+        }
+    }
+
+    @Test
+    public void testShardFor_ShouldOnlyMoveUsersToNewShard_WhenShardIsAdded() {
+        ShardRing before = new ShardRing(List.of("primary", "east", "west"), 128);
+        ShardRing after = new ShardRing(List.of("primary", "east", "west", "north"), 128);
+
+        int moved = 0;
+        Random random = new Random(11);
+        for (int i = 0; i < USERS; i++) {
+            UUID userId = new UUID(random.nextLong(), random.nextLong());
+            String owner = after.shardFor(userId);
+            if (!owner.equals(before.shardFor(userId))) {
+                assertEquals("north", owner);
+                moved++;
+            }
+        }
+
+        assertEquals(USERS / 4.0, moved, USERS / 4.0 * 0.15);
+    }
+
+    @Test
+    public void testConstructor_ShouldThrow_WhenNoShardIsGiven() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(List.of(), 128));
+    }
+}
@@ -0,0 +1,32 @@
+package app.model;
+
+import app.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActivityLogCursorTest {
+
+    @Test
+    public void testEncode_ShouldRoundTripThroughDecode() {
+        ActivityLogCursor cursor = new ActivityLogCursor(LocalDateTime.of(2025, 3, 27, 15, 53, 20, 515_123), UUID.randomUUID());
+
+        String token = cursor.encode();
+
+        assertEquals(cursor, ActivityLogCursor.decode(token));
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), "Token should be URL safe");
+    }
+
+    @Test
+    public void testDecode_ShouldThrow_WhenTokenIsNotBase64() {
+        assertThrows(InvalidCursorException.class, () -> ActivityLogCursor.decode("not a cursor!"));
+    }
+
+    @Test
+    public void testDecode_ShouldThrow_WhenTokenHasWrongLength() {
+        assertThrows(InvalidCursorException.class, () -> ActivityLogCursor.decode("AAAA"));
+    }
+}
@@ -0,0 +1,75 @@
+package app.model.id;
+
+import app.util.UuidBytes;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedUuidsTest {
+
+    @Test
+    public void testNext_ShouldProduceVersion7WithRfcVariant() {
+        UUID uuid = TimeOrderedUuids.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void testNext_ShouldEmbedCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeOrderedUuids.next();
+        long after = System.currentTimeMillis();
+
+        long timestamp = TimeOrderedUuids.timestampOf(uuid);
+
+        // A counter overflow may borrow a millisecond or two from the future.
+        assertTrue(timestamp >= before && timestamp <= after + 2, "Timestamp should match generation time");
+    }
+
+    @Test
+    public void testNext_ShouldBeStrictlyIncreasingInByteOrder() {
+        List<byte[]> generated = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            generated.add(UuidBytes.toBytes(TimeOrderedUuids.next()));
+        }
+
+        for (int i = 1; i < generated.size(); i++) {
+            assertTrue(Arrays.compareUnsigned(generated.get(i - 1), generated.get(i)) < 0,
+                    "UUID at position " + i + " should sort after its predecessor");
+        }
+    }
+
+    @Test
+    public void testNext_ShouldBeUniqueAcrossThreads() throws Exception {
+        ConcurrentLinkedQueue<UUID> generated = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    generated.add(TimeOrderedUuids.next());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Set<UUID> unique = new HashSet<>(generated);
+        assertEquals(160_000, unique.size());
+
+        List<Long> timestamps = new ArrayList<>(generated.stream().map(TimeOrderedUuids::timestampOf).toList());
+        assertTrue(Collections.max(timestamps) - Collections.min(timestamps) < 60_000);
+    }
+}
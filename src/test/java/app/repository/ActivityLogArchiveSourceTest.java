@@ -0,0 +1,92 @@
+package app.repository;
+
+import app.config.ActionDictionaryProperties;
+import app.config.ArchiveProperties;
+import app.config.DatabaseProperties;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.service.ActionDictionary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ActivityLogArchiveSourceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 2, 1, 0, 0);
+
+    @TestConfiguration
+    @EnableConfigurationProperties({ActionDictionaryProperties.class, DatabaseProperties.class, ArchiveProperties.class})
+    @Import({ActivityLogArchiveSource.class, ActionDictionary.class, Shards.class})
+    static class Config {
+    }
+
+    @Autowired
+    private ActivityLogArchiveSource source;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Test
+    public void testForEachCreatedBetween_ShouldGroupLiveRowsInRangeByUser_NewestFirst() {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        activityLogRepository.save(activityLog(userId, FROM.plusDays(1), false));
+        activityLogRepository.save(activityLog(otherUserId, FROM.plusDays(2), false));
+        activityLogRepository.save(activityLog(userId, FROM.plusDays(3), false));
+        activityLogRepository.save(activityLog(userId, FROM.plusDays(4), true));
+        activityLogRepository.save(activityLog(userId, TO, false));
+        activityLogRepository.saveAndFlush(activityLog(userId, FROM.minusSeconds(1), false));
+
+        List<ActivityLog> rows = new ArrayList<>();
+        source.forEachCreatedBetween(FROM, TO, rows::add);
+
+        assertEquals(3, rows.size());
+        List<ActivityLog> userRows = rows.stream().filter(row -> row.getUserId().equals(userId)).toList();
+        assertEquals(List.of(FROM.plusDays(3), FROM.plusDays(1)),
+                userRows.stream().map(ActivityLog::getCreatedOn).toList());
+        assertEquals("action", userRows.get(0).getAction());
+        assertEquals(1, rows.indexOf(userRows.get(1)) - rows.indexOf(userRows.get(0)), "rows of a user are adjacent");
+        assertEquals(FROM.minusSeconds(1), source.findOldestCreatedOn());
+    }
+
+    @Test
+    public void testDeleteCreatedBetween_ShouldRemoveAtMostLimitLiveRowsInRange() {
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 4; i++) {
+            activityLogRepository.save(activityLog(userId, FROM.plusDays(i), i == 3));
+        }
+        activityLogRepository.saveAndFlush(activityLog(userId, TO, false));
+
+        assertEquals(2, source.deleteCreatedBetween(FROM, TO, 2));
+        assertEquals(1, source.deleteCreatedBetween(FROM, TO, 2));
+        assertEquals(0, source.deleteCreatedBetween(FROM, TO, 2));
+
+        // The soft-deleted row was not archived, so it stays for the retention purge.
+        assertEquals(2, activityLogRepository.count());
+    }
+
+    private static ActivityLog activityLog(UUID userId, LocalDateTime createdOn, boolean deleted) {
+        return ActivityLog.builder()
+                .userId(userId)
+                .action("action")
+                .createdOn(createdOn)
+                .isDeleted(deleted)
+                .build();
+    }
+}
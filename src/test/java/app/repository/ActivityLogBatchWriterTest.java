@@ -0,0 +1,105 @@
+package app.repository;
+
+import app.config.DatabaseProperties;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@EnableConfigurationProperties(DatabaseProperties.class)
+@Import({ActivityLogBatchWriter.class, Shards.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ActivityLogBatchWriterTest {
+
+    @Autowired
+    private ActivityLogBatchWriter batchWriter;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Test
+    public void testInsertAll_ShouldPersistEveryEvent() {
+        UUID userId = UUID.randomUUID();
+        List<ActivityLog> activityLogs = List.of(
+                activityLog(userId, "action1", 3),
+                activityLog(userId, "action2", 2),
+                activityLog(userId, "action3", 1));
+
+        int inserted = batchWriter.insertAll(activityLogs);
+
+        assertEquals(3, inserted);
+
+        List<ActivityLog> stored = activityLogRepository.findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(userId);
+        assertEquals(3, stored.size());
+        assertEquals(activityLogs.get(2).getId(), stored.get(0).getId());
+        assertEquals("action3", stored.get(0).getAction());
+    }
+
+    @Test
+    public void testInsertAll_ShouldLeaveStoredEventUnchanged_WhenItIsReplayed() {
+        UUID userId = UUID.randomUUID();
+        ActivityLog stored = activityLog(userId, "action1", 1);
+        batchWriter.insertAll(List.of(stored));
+
+        ActivityLog replayed = activityLog(userId, "action2", 0);
+        replayed.setId(stored.getId());
+        batchWriter.insertAll(List.of(replayed, activityLog(userId, "action3", 0)));
+
+        List<ActivityLog> all = activityLogRepository.findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(userId);
+        assertEquals(2, all.size());
+        assertEquals("action1", all.get(1).getAction());
+    }
+
+    @Test
+    public void testInsertAll_ShouldSkipEvents_WhoseIdempotencyKeyIsTaken() {
+        UUID userId = UUID.randomUUID();
+        ActivityLog original = keyed(activityLog(userId, "original", 2), "key-1");
+        batchWriter.insertAll(List.of(original));
+
+        ActivityLog retry = keyed(activityLog(userId, "retry", 1), "key-1");
+        ActivityLog first = keyed(activityLog(userId, "first", 1), "key-2");
+        ActivityLog second = keyed(activityLog(userId, "second", 0), "key-2");
+        ActivityLog unkeyed = activityLog(userId, "unkeyed", 0);
+
+        int inserted = batchWriter.insertAll(List.of(retry, first, second, unkeyed));
+
+        assertEquals(2, inserted);
+        List<ActivityLog> stored = activityLogRepository.findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(userId);
+        assertEquals(Set.of(original.getId(), first.getId(), unkeyed.getId()),
+                stored.stream().map(ActivityLog::getId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testInsertAll_ShouldDoNothing_WhenListIsEmpty() {
+        assertEquals(0, batchWriter.insertAll(List.of()));
+    }
+
+    private static ActivityLog keyed(ActivityLog activityLog, String idempotencyKey) {
+        activityLog.setIdempotencyKey(idempotencyKey);
+        return activityLog;
+    }
+
+    private ActivityLog activityLog(UUID userId, String action, int minutesAgo) {
+        return ActivityLog.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .action(action)
+                .createdOn(LocalDateTime.now().minusMinutes(minutesAgo))
+                .build();
+    }
+}
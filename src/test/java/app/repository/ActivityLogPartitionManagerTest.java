@@ -0,0 +1,76 @@
+package app.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ActivityLogPartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ActivityLogPartitionManager partitionManager;
+
+    @Test
+    public void testDropPartitionsBefore_ShouldDropOnlyFullyExpiredMonths() {
+        givenPartitions(
+                new ActivityLogPartitionManager.Partition("p202401", LocalDate.of(2024, 2, 1)),
+                new ActivityLogPartitionManager.Partition("p202402", LocalDate.of(2024, 3, 1)),
+                new ActivityLogPartitionManager.Partition("p202403", LocalDate.of(2024, 4, 1)),
+                new ActivityLogPartitionManager.Partition("pmax", null));
+
+        int dropped = partitionManager.dropPartitionsBefore(LocalDate.of(2024, 3, 15));
+
+        assertEquals(2, dropped);
+        verify(jdbcTemplate).execute("alter table activity_log drop partition p202401");
+        verify(jdbcTemplate).execute("alter table activity_log drop partition p202402");
+        verify(jdbcTemplate, never()).execute("alter table activity_log drop partition p202403");
+        verify(jdbcTemplate, never()).execute("alter table activity_log drop partition pmax");
+    }
+
+    @Test
+    public void testAddPartitionsThrough_ShouldSplitMissingMonthsOffMaxPartition() {
+        givenPartitions(
+                new ActivityLogPartitionManager.Partition("p202401", LocalDate.of(2024, 2, 1)),
+                new ActivityLogPartitionManager.Partition("pmax", null));
+
+        int added = partitionManager.addPartitionsThrough(YearMonth.of(2024, 3));
+
+        assertEquals(2, added);
+        verify(jdbcTemplate).execute("alter table activity_log reorganize partition pmax into ("
+                + "partition p202402 values less than (to_days('2024-03-01')), "
+                + "partition pmax values less than maxvalue)");
+        verify(jdbcTemplate).execute("alter table activity_log reorganize partition pmax into ("
+                + "partition p202403 values less than (to_days('2024-04-01')), "
+                + "partition pmax values less than maxvalue)");
+    }
+
+    @Test
+    public void testAddPartitionsThrough_ShouldFail_WhenTableIsNotPartitioned() {
+        givenPartitions();
+
+        assertThrows(IllegalStateException.class, () -> partitionManager.addPartitionsThrough(YearMonth.of(2024, 3)));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenPartitions(ActivityLogPartitionManager.Partition... partitions) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(List.of(partitions));
+    }
+}
@@ -0,0 +1,113 @@
+package app.repository;
+
+import app.config.ActionDictionaryProperties;
+import app.config.DatabaseProperties;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.model.ActivityLogView;
+import app.retention.RetentionPolicy;
+import app.service.ActionDictionary;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ActivityLogProjectionReaderTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties({ActionDictionaryProperties.class, DatabaseProperties.class})
+    @Import({ActivityLogProjectionReader.class, ActivityLogEntityReader.class, ActionDictionary.class, Shards.class})
+    static class Config {
+    }
+
+    @Autowired
+    private ActivityLogProjectionReader projectionReader;
+
+    @Autowired
+    private ActivityLogEntityReader entityReader;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Autowired
+    private ActionDictionary actionDictionary;
+
+    @Autowired
+    private ActionDictionaryProperties dictionaryProperties;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void testFindPageByUserId_ShouldReturnSameRowsAsEntityReader_WithoutLoadingEntities() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime createdOn = LocalDateTime.of(2025, 3, 10, 15, 0);
+        for (int i = 0; i < 5; i++) {
+            activityLogRepository.save(activityLog(userId, "action" + i, createdOn.plusMinutes(i % 3)));
+        }
+        activityLogRepository.save(activityLog(UUID.randomUUID(), "other", createdOn));
+        activityLogRepository.flush();
+        entityManager.clear();
+
+        List<ActivityLogView> projected = projectionReader.findPageByUserId(userId, RetentionPolicy.UNBOUNDED,
+                Limit.of(4));
+
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        assertEquals(4, projected.size());
+        assertEquals(entityReader.findPageByUserId(userId, RetentionPolicy.UNBOUNDED, Limit.of(4)), projected);
+
+        ActivityLogView last = projected.get(3);
+        assertEquals(
+                entityReader.findPageByUserIdAfter(userId, RetentionPolicy.UNBOUNDED, last.createdOn(), last.id(),
+                        Limit.of(10)),
+                projectionReader.findPageByUserIdAfter(userId, RetentionPolicy.UNBOUNDED, last.createdOn(), last.id(),
+                        Limit.of(10)));
+        assertEquals(
+                entityReader.findPageByUserIdNewerThan(userId, RetentionPolicy.UNBOUNDED, last.createdOn(), last.id(),
+                        Limit.of(10)),
+                projectionReader.findPageByUserIdNewerThan(userId, RetentionPolicy.UNBOUNDED, last.createdOn(),
+                        last.id(), Limit.of(10)));
+    }
+
+    @Test
+    public void testFindAllByUserIdSince_ShouldResolveEncodedActions() {
+        dictionaryProperties.setEnabled(true);
+        dictionaryProperties.setAdmitAfter(1);
+        UUID userId = UUID.randomUUID();
+        String action = "RECIPE_SHARED " + UUID.randomUUID();
+        ActivityLog encoded = activityLog(userId, action, LocalDateTime.now());
+        actionDictionary.encode(encoded);
+        activityLogRepository.saveAndFlush(encoded);
+        entityManager.clear();
+
+        List<ActivityLogView> projected = projectionReader.findAllByUserIdSince(userId, RetentionPolicy.UNBOUNDED);
+
+        assertNotNull(encoded.getActionCode());
+        assertEquals(1, projected.size());
+        assertSame(actionDictionary.actionFor(encoded.getActionCode()), projected.get(0).action());
+    }
+
+    private static ActivityLog activityLog(UUID userId, String action, LocalDateTime createdOn) {
+        return ActivityLog.builder()
+                .userId(userId)
+                .action(action)
+                .createdOn(createdOn)
+                .build();
+    }
+}
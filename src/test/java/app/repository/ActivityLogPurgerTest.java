@@ -0,0 +1,66 @@
+package app.repository;
+
+import app.model.ActivityLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import(ActivityLogPurger.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ActivityLogPurgerTest {
+
+    @Autowired
+    private ActivityLogPurger purger;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Test
+    public void testDeleteCreatedBefore_ShouldRemoveAtMostLimitExpiredRows() {
+        LocalDateTime now = LocalDateTime.now();
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            activityLogRepository.save(activityLog(userId, now.minusDays(30 + i), null));
+        }
+        activityLogRepository.saveAndFlush(activityLog(userId, now, null));
+
+        assertEquals(2, purger.deleteCreatedBefore(now.minusDays(1), 2));
+        assertEquals(1, purger.deleteCreatedBefore(now.minusDays(1), 2));
+        assertEquals(0, purger.deleteCreatedBefore(now.minusDays(1), 2));
+
+        assertEquals(1, activityLogRepository.count());
+    }
+
+    @Test
+    public void testDeleteSoftDeletedBefore_ShouldOnlyRemoveRowsDeletedBeforeCutoff() {
+        LocalDateTime now = LocalDateTime.now();
+        UUID userId = UUID.randomUUID();
+        activityLogRepository.save(activityLog(userId, now.minusDays(10), now.minusDays(8)));
+        activityLogRepository.save(activityLog(userId, now.minusDays(10), now.minusHours(1)));
+        activityLogRepository.saveAndFlush(activityLog(userId, now.minusDays(10), null));
+
+        assertEquals(1, purger.deleteSoftDeletedBefore(now.minusDays(7), 100));
+
+        assertEquals(2, activityLogRepository.count());
+    }
+
+    private static ActivityLog activityLog(UUID userId, LocalDateTime createdOn, LocalDateTime deletedOn) {
+        return ActivityLog.builder()
+                .userId(userId)
+                .action("action1")
+                .createdOn(createdOn)
+                .isDeleted(deletedOn != null)
+                .deletedOn(deletedOn)
+                .build();
+    }
+}
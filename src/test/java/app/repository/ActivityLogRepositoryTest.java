@@ -0,0 +1,137 @@
+package app.repository;
+
+import app.model.ActivityLog;
+import app.retention.RetentionPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ActivityLogRepositoryTest {
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Test
+    public void testSave_ShouldAssignTimeOrderedId() {
+        ActivityLog activityLog = activityLogRepository.saveAndFlush(ActivityLog.builder()
+                .userId(UUID.randomUUID())
+                .action("action1")
+                .createdOn(LocalDateTime.now())
+                .build());
+
+        assertEquals(7, activityLog.getId().version());
+        assertTrue(activityLogRepository.findById(activityLog.getId()).isPresent());
+    }
+
+    @Test
+    public void testSoftDeleteChunkByUserId_ShouldFlagAtMostChunkSizeRows() {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            activityLogRepository.save(activityLog(userId));
+        }
+        activityLogRepository.saveAndFlush(activityLog(otherUserId));
+
+        assertEquals(2, activityLogRepository.softDeleteChunkByUserId(userId, 2));
+        assertEquals(2, activityLogRepository.softDeleteChunkByUserId(userId, 2));
+        assertEquals(1, activityLogRepository.softDeleteChunkByUserId(userId, 2));
+        assertEquals(0, activityLogRepository.softDeleteChunkByUserId(userId, 2));
+
+        assertTrue(activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(userId).isEmpty());
+        assertEquals(1, activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(otherUserId).size());
+    }
+
+    @Test
+    public void testFindPageByUserIdAfter_ShouldWalkHistoryWithoutGapsOrDuplicates() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime sameInstant = LocalDateTime.of(2025, 3, 10, 15, 0);
+        List<ActivityLog> saved = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Several rows share a timestamp so the id tiebreaker is exercised.
+            LocalDateTime createdOn = i < 4 ? sameInstant : sameInstant.plusMinutes(i);
+            saved.add(activityLogRepository.save(activityLog(userId, createdOn)));
+        }
+        activityLogRepository.save(activityLog(UUID.randomUUID(), sameInstant));
+        activityLogRepository.flush();
+
+        List<UUID> walked = new ArrayList<>();
+        List<ActivityLog> page = activityLogRepository.findPageByUserId(userId, RetentionPolicy.UNBOUNDED, Limit.of(3));
+        while (!page.isEmpty()) {
+            page.forEach(activityLog -> walked.add(activityLog.getId()));
+            ActivityLog last = page.get(page.size() - 1);
+            page = activityLogRepository.findPageByUserIdAfter(
+                    userId, RetentionPolicy.UNBOUNDED, last.getCreatedOn(), last.getId(), Limit.of(3));
+        }
+
+        List<UUID> expected = activityLogRepository.findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(userId)
+                .stream()
+                .map(ActivityLog::getId)
+                .toList();
+        assertEquals(7, walked.size());
+        assertEquals(saved.size(), walked.stream().distinct().count());
+        assertEquals(expected.subList(0, 3), walked.subList(0, 3));
+    }
+
+    @Test
+    public void testFindPageByUserIdNewerThan_ShouldReturnLaterRowsOldestFirst() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime sameInstant = LocalDateTime.of(2025, 3, 10, 15, 0);
+        List<ActivityLog> saved = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            LocalDateTime createdOn = i < 3 ? sameInstant : sameInstant.plusMinutes(i);
+            saved.add(activityLogRepository.save(activityLog(userId, createdOn)));
+        }
+        activityLogRepository.flush();
+
+        List<ActivityLog> oldestFirst = new ArrayList<>(
+                activityLogRepository.findAllByUserIdSince(userId, RetentionPolicy.UNBOUNDED));
+        Collections.reverse(oldestFirst);
+        ActivityLog seen = oldestFirst.get(1);
+
+        List<ActivityLog> newer = activityLogRepository.findPageByUserIdNewerThan(
+                userId, RetentionPolicy.UNBOUNDED, seen.getCreatedOn(), seen.getId(), Limit.of(10));
+
+        assertEquals(oldestFirst.subList(2, 5).stream().map(ActivityLog::getId).toList(),
+                newer.stream().map(ActivityLog::getId).toList());
+    }
+
+    @Test
+    public void testFindAllByUserIdSince_ShouldSkipRowsOlderThanRetentionBound() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        ActivityLog recent = activityLogRepository.save(activityLog(userId, now));
+        activityLogRepository.saveAndFlush(activityLog(userId, now.minusDays(400)));
+
+        List<ActivityLog> visible = activityLogRepository.findAllByUserIdSince(userId, now.minusDays(365));
+
+        assertEquals(List.of(recent.getId()), visible.stream().map(ActivityLog::getId).toList());
+        assertEquals(2, activityLogRepository.findAllByUserIdSince(userId, RetentionPolicy.UNBOUNDED).size());
+    }
+
+    private static ActivityLog activityLog(UUID userId) {
+        return activityLog(userId, LocalDateTime.now());
+    }
+
+    private static ActivityLog activityLog(UUID userId, LocalDateTime createdOn) {
+        return ActivityLog.builder()
+                .userId(userId)
+                .action("action1")
+                .createdOn(createdOn)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package app.repository;
+
+import app.config.DatabaseProperties;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.model.id.TimeOrderedUuids;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The stateless session commits on a connection of its own, so each test writes rows for fresh users.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableConfigurationProperties(DatabaseProperties.class)
+@Import({ActivityLogStatelessWriter.class, Shards.class})
+@ActiveProfiles("test")
+public class ActivityLogStatelessWriterTest {
+
+    @Autowired
+    private ActivityLogStatelessWriter statelessWriter;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testInsert_ShouldAssignTimeOrderedId() {
+        ActivityLog activityLog = statelessWriter.insert(activityLog(UUID.randomUUID(), "action1"));
+
+        assertEquals(7, activityLog.getId().version());
+        assertEquals("action1", activityLogRepository.findById(activityLog.getId()).orElseThrow().getAction());
+    }
+
+    @Test
+    public void testInsertAll_ShouldStoreEveryEvent() {
+        UUID userId = UUID.randomUUID();
+        List<ActivityLog> activityLogs = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            ActivityLog activityLog = activityLog(userId, "action" + i);
+            activityLog.setId(TimeOrderedUuids.next());
+            activityLogs.add(activityLog);
+        }
+
+        assertEquals(120, statelessWriter.insertAll(activityLogs));
+        assertEquals(0, statelessWriter.insertAll(List.of()));
+
+        assertEquals(120, jdbcTemplate.queryForObject(
+                "select count(*) from activity_log where user_id = ?", Integer.class, userId));
+        assertEquals(activityLogs.stream().map(ActivityLog::getId).collect(Collectors.toSet()),
+                activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(userId).stream()
+                        .map(ActivityLog::getId)
+                        .collect(Collectors.toSet()));
+    }
+
+    private static ActivityLog activityLog(UUID userId, String action) {
+        return ActivityLog.builder()
+                .userId(userId)
+                .action(action)
+                .storedAction(action)
+                .createdOn(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package app.retention;
+
+import app.config.DatabaseProperties;
+import app.config.RetentionProperties;
+import app.ingestion.WriteBehindQueue;
+import app.jdbc.Shards;
+import app.repository.ActivityLogPartitionManager;
+import app.repository.ActivityLogPurger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RetentionPurgeJobTest {
+
+    @Mock
+    private ActivityLogPurger purger;
+
+    @Mock
+    private ActivityLogPartitionManager partitionManager;
+
+    @Mock
+    private WriteBehindQueue writeBehindQueue;
+
+    private RetentionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RetentionPurgeJob job;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RetentionProperties();
+        properties.setEnabled(true);
+        properties.setChunkSize(2);
+        properties.setPauseBetweenChunks(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        job = new RetentionPurgeJob(properties, new RetentionPolicy(properties), purger, partitionManager,
+                writeBehindQueue, new Shards(new DatabaseProperties(), null, null), meterRegistry);
+    }
+
+    @Test
+    public void testPurge_ShouldDeleteExpiredRowsInChunks_WhenStrategyIsRows() {
+        when(purger.deleteCreatedBefore(any(LocalDateTime.class), eq(2))).thenReturn(2, 2, 1);
+        when(purger.deleteSoftDeletedBefore(any(LocalDateTime.class), eq(2))).thenReturn(0);
+
+        job.purge();
+
+        verify(purger, times(3)).deleteCreatedBefore(any(LocalDateTime.class), eq(2));
+        verify(purger, times(1)).deleteSoftDeletedBefore(any(LocalDateTime.class), eq(2));
+        verifyNoInteractions(partitionManager);
+        assertEquals(5.0, meterRegistry.get("activitylog.retention.purged").tag("reason", "expired").counter().count());
+    }
+
+    @Test
+    public void testPurge_ShouldDropPartitionsInsteadOfDeletingRows_WhenStrategyIsPartitions() {
+        properties.setStrategy(RetentionProperties.Strategy.PARTITIONS);
+        when(partitionManager.dropPartitionsBefore(any(LocalDate.class))).thenReturn(1);
+
+        job.purge();
+
+        verify(partitionManager).addPartitionsThrough(YearMonth.now().plusMonths(properties.getPartitionsAhead()));
+        verify(partitionManager).dropPartitionsBefore(LocalDate.now().minusDays(365));
+        verify(purger, never()).deleteCreatedBefore(any(), anyInt());
+        verify(purger, times(1)).deleteSoftDeletedBefore(any(LocalDateTime.class), eq(2));
+        assertEquals(1.0, meterRegistry.get("activitylog.retention.partitions.dropped").counter().count());
+    }
+
+    @Test
+    public void testPurge_ShouldWaitForIngestionQueueToDrain_WhenQueueIsAboveThreshold() {
+        properties.setYieldAboveQueueDepth(10);
+        when(purger.deleteCreatedBefore(any(LocalDateTime.class), eq(2))).thenReturn(2, 0);
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(writeBehindQueue.size()).thenReturn(50, 20, 5);
+
+        job.purge();
+
+        verify(writeBehindQueue, times(3)).size();
+        verify(purger, times(2)).deleteCreatedBefore(any(LocalDateTime.class), eq(2));
+    }
+
+    @Test
+    public void testPurge_ShouldStopEarly_WhenRunTimeBudgetIsUsedUp() {
+        properties.setMaxRunTime(Duration.ZERO);
+        when(purger.deleteCreatedBefore(any(LocalDateTime.class), eq(2))).thenReturn(2);
+
+        job.purge();
+
+        verify(purger, times(1)).deleteCreatedBefore(any(LocalDateTime.class), eq(2));
+    }
+}
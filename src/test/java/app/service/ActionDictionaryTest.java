@@ -0,0 +1,174 @@
+package app.service;
+
+import app.config.ActionDictionaryProperties;
+import app.config.DatabaseProperties;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.model.id.TimeOrderedUuids;
+import app.repository.ActivityLogBatchWriter;
+import app.repository.ActivityLogRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ActionDictionaryTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties({ActionDictionaryProperties.class, DatabaseProperties.class})
+    @Import({ActionDictionary.class, ActivityLogBatchWriter.class, Shards.class})
+    static class Config {
+    }
+
+    @Autowired
+    private ActionDictionary actionDictionary;
+
+    @Autowired
+    private ActionDictionaryProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Autowired
+    private ActivityLogBatchWriter batchWriter;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        // The properties bean is shared by the cached context, so reset everything a test may change.
+        properties.setEnabled(true);
+        properties.setAdmitAfter(2);
+        properties.setMaxEntries(10_000);
+    }
+
+    @Test
+    public void testCodeFor_ShouldAssignCode_WhenActionWasSeenOftenEnough() {
+        String action = "LOGIN " + UUID.randomUUID();
+
+        assertNull(actionDictionary.codeFor(action), "First sighting should stay inline");
+        Integer code = actionDictionary.codeFor(action);
+
+        assertNotNull(code);
+        assertEquals(code, actionDictionary.codeFor(action));
+        assertSame(actionDictionary.actionFor(code), actionDictionary.actionFor(code));
+    }
+
+    @Test
+    public void testCodeFor_ShouldStayInline_WhenActionIsTooLongToEncode() {
+        String action = "x".repeat(500);
+
+        actionDictionary.codeFor(action);
+
+        assertNull(actionDictionary.codeFor(action));
+    }
+
+    @Test
+    public void testCodeFor_ShouldStayInline_WhenDictionaryIsFull() {
+        properties.setMaxEntries(actionDictionary.size());
+        String action = "ORDER_PLACED " + UUID.randomUUID();
+
+        actionDictionary.codeFor(action);
+
+        assertNull(actionDictionary.codeFor(action));
+    }
+
+    @Test
+    public void testCodeFor_ShouldNotAdmitNewActions_WhenDisabled() {
+        properties.setEnabled(false);
+        String action = "LOGOUT " + UUID.randomUUID();
+
+        actionDictionary.codeFor(action);
+
+        assertNull(actionDictionary.codeFor(action));
+    }
+
+    @Test
+    public void testActionFor_ShouldReadFromDatabase_WhenCodeWasAddedElsewhere() {
+        jdbcTemplate.update("insert into activity_action (action) values (?)", "ADDED_ELSEWHERE");
+        Integer code = jdbcTemplate.queryForObject(
+                "select id from activity_action where action = ?", Integer.class, "ADDED_ELSEWHERE");
+
+        assertEquals("ADDED_ELSEWHERE", actionDictionary.actionFor(code));
+        assertEquals(code, actionDictionary.codeFor("ADDED_ELSEWHERE"));
+    }
+
+    @Test
+    public void testCodesStartingWith_ShouldMatchWildcardCharactersLiterally() {
+        String prefix = "CART_ITEM% " + UUID.randomUUID();
+        jdbcTemplate.update("insert into activity_action (action) values (?)", prefix + " added");
+        jdbcTemplate.update("insert into activity_action (action) values (?)", prefix.replace("_", "-") + " added");
+        Integer code = jdbcTemplate.queryForObject(
+                "select id from activity_action where action = ?", Integer.class, prefix + " added");
+
+        assertEquals(List.of(code), actionDictionary.codesStartingWith(prefix));
+    }
+
+    @Test
+    public void testEncode_ShouldStoreCodeAndResolveActionOnLoad() {
+        UUID userId = UUID.randomUUID();
+        String action = "RECIPE_UPDATED " + UUID.randomUUID();
+        actionDictionary.codeFor(action);
+
+        ActivityLog viaRepository = activityLog(userId, action);
+        actionDictionary.encode(viaRepository);
+        activityLogRepository.saveAndFlush(viaRepository);
+
+        ActivityLog viaBatch = activityLog(userId, action);
+        viaBatch.setId(TimeOrderedUuids.next());
+        actionDictionary.encode(viaBatch);
+        batchWriter.insertAll(List.of(viaBatch));
+        entityManager.clear();
+
+        List<ActivityLog> loaded = activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(userId);
+
+        assertEquals(2, loaded.size());
+        for (ActivityLog activityLog : loaded) {
+            assertNotNull(activityLog.getActionCode());
+            assertNull(activityLog.getStoredAction());
+            assertEquals(action, activityLog.getAction());
+        }
+    }
+
+    @Test
+    public void testEncode_ShouldKeepRareActionInline() {
+        UUID userId = UUID.randomUUID();
+        ActivityLog activityLog = activityLog(userId, "ONE_OFF " + UUID.randomUUID());
+        actionDictionary.encode(activityLog);
+        activityLogRepository.saveAndFlush(activityLog);
+        entityManager.clear();
+
+        ActivityLog loaded = activityLogRepository.findById(activityLog.getId()).orElseThrow();
+
+        assertNull(loaded.getActionCode());
+        assertEquals(activityLog.getAction(), loaded.getAction());
+    }
+
+    private static ActivityLog activityLog(UUID userId, String action) {
+        return ActivityLog.builder()
+                .userId(userId)
+                .action(action)
+                .createdOn(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,192 @@
+package app.service;
+
+import app.config.ActionDictionaryProperties;
+import app.config.DatabaseProperties;
+import app.config.PaginationProperties;
+import app.config.RetentionProperties;
+import app.config.SearchProperties;
+import app.exception.InvalidRangeException;
+import app.exception.InvalidSearchException;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.model.ActivityLogPage;
+import app.model.ActivityLogSearch;
+import app.model.ActivityLogView;
+import app.repository.ActivityLogRepository;
+import app.retention.RetentionPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ActivityLogSearchServiceTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties({SearchProperties.class, PaginationProperties.class,
+            RetentionProperties.class, ActionDictionaryProperties.class, DatabaseProperties.class})
+    @Import({ActivityLogSearchService.class, ActionDictionary.class, RetentionPolicy.class, Shards.class})
+    static class Config {
+    }
+
+    // A window no other test writes to, so searches without a user filter only see this test's rows.
+    private static final LocalDateTime START = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+    @Autowired
+    private ActivityLogSearchService searchService;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Autowired
+    private ActionDictionary actionDictionary;
+
+    @Autowired
+    private ActionDictionaryProperties dictionaryProperties;
+
+    @MockitoBean
+    private ActivityLogMetrics activityLogMetrics;
+
+    @Test
+    public void testSearch_ShouldReturnMatchingEventsOfAllUsersNewestFirst() {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        ActivityLog first = save(userId, "LOGIN", 1);
+        ActivityLog second = save(otherUserId, "LOGIN", 2);
+        save(userId, "LOGOUT", 3);
+        save(userId, "LOGIN", 30);
+        ActivityLog deleted = save(otherUserId, "LOGIN", 4);
+        deleted.setDeleted(true);
+        activityLogRepository.saveAndFlush(deleted);
+
+        ActivityLogPage page = searchService.search(ActivityLogSearch.builder()
+                .actionPrefix("LOGI")
+                .from(START)
+                .to(START.plusMinutes(10))
+                .build());
+
+        assertEquals(List.of(second.getId(), first.getId()), ids(page.items()));
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    public void testSearch_ShouldMatchDictionaryEncodedActionsByPrefix() {
+        UUID userId = UUID.randomUUID();
+        String action = "RECIPE_CREATED " + UUID.randomUUID();
+        dictionaryProperties.setEnabled(true);
+        dictionaryProperties.setAdmitAfter(1);
+        assertNotNull(actionDictionary.codeFor(action));
+        ActivityLog encoded = activityLog(userId, action, 1);
+        actionDictionary.encode(encoded);
+        activityLogRepository.saveAndFlush(encoded);
+        ActivityLog inline = save(userId, "RECIPE_DELETED", 2);
+        save(userId, "COMMENT_ADDED", 3);
+
+        ActivityLogPage page = searchService.search(ActivityLogSearch.builder()
+                .userIds(Set.of(userId))
+                .actionPrefix("RECIPE_")
+                .from(START)
+                .to(START.plusHours(1))
+                .build());
+
+        assertEquals(List.of(inline.getId(), encoded.getId()), ids(page.items()));
+        assertEquals(action, page.items().get(1).action());
+    }
+
+    @Test
+    public void testSearch_ShouldNotTreatLikeWildcardsInPrefixAsPatterns() {
+        UUID userId = UUID.randomUUID();
+        ActivityLog literal = save(userId, "50%_OFF", 1);
+        save(userId, "50 OFF", 2);
+
+        ActivityLogPage page = searchService.search(ActivityLogSearch.builder()
+                .userIds(Set.of(userId))
+                .actionPrefix("50%_")
+                .from(START)
+                .to(START.plusHours(1))
+                .build());
+
+        assertEquals(List.of(literal.getId()), ids(page.items()));
+    }
+
+    @Test
+    public void testSearch_ShouldWalkResultsWithoutGapsOrDuplicates() {
+        Set<UUID> userIds = Set.of(UUID.randomUUID(), UUID.randomUUID());
+        List<ActivityLog> saved = new ArrayList<>();
+        IntStream.range(0, 7).forEach(i -> {
+            // Rows of both users share timestamps so the id tiebreaker is exercised.
+            for (UUID userId : userIds) {
+                saved.add(save(userId, "VIEW", i / 3));
+            }
+        });
+        saved.sort((a, b) -> b.getCreatedOn().equals(a.getCreatedOn())
+                ? b.getId().compareTo(a.getId())
+                : b.getCreatedOn().compareTo(a.getCreatedOn()));
+
+        List<UUID> walked = new ArrayList<>();
+        ActivityLogPage page = null;
+        do {
+            page = searchService.search(ActivityLogSearch.builder()
+                    .userIds(userIds)
+                    .from(START)
+                    .to(START.plusHours(1))
+                    .after(page == null ? null : page.nextCursor())
+                    .limit(4)
+                    .build());
+            walked.addAll(ids(page.items()));
+        } while (page.nextCursor() != null);
+
+        assertEquals(saved.stream().map(ActivityLog::getId).toList(), walked);
+    }
+
+    @Test
+    public void testSearch_ShouldRejectInvalidRanges() {
+        ActivityLogSearch reversed = ActivityLogSearch.builder().from(START).to(START).build();
+        ActivityLogSearch tooLong = ActivityLogSearch.builder().from(START).to(START.plusDays(32)).build();
+
+        assertThrows(InvalidRangeException.class, () -> searchService.search(reversed));
+        assertThrows(InvalidRangeException.class, () -> searchService.search(tooLong));
+    }
+
+    @Test
+    public void testSearch_ShouldRejectTooManyUsers() {
+        Set<UUID> userIds = new HashSet<>();
+        IntStream.range(0, 101).forEach(i -> userIds.add(UUID.randomUUID()));
+
+        assertThrows(InvalidSearchException.class,
+                () -> searchService.search(ActivityLogSearch.builder().userIds(userIds).build()));
+    }
+
+    private ActivityLog save(UUID userId, String action, int minutes) {
+        return activityLogRepository.saveAndFlush(activityLog(userId, action, minutes));
+    }
+
+    private static ActivityLog activityLog(UUID userId, String action, int minutes) {
+        return ActivityLog.builder()
+                .userId(userId)
+                .action(action)
+                .createdOn(START.plusMinutes(minutes))
+                .build();
+    }
+
+    private static List<UUID> ids(List<ActivityLogView> activityLogs) {
+        return activityLogs.stream().map(ActivityLogView::id).toList();
+    }
+}
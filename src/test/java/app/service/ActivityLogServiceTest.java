@@ -1,22 +1,68 @@
 package app.service;
 
+import app.archive.ActivityLogArchive;
+import app.cache.RecentActivityCache;
+import app.config.CacheProperties;
+import app.config.DataAccessProperties;
+import app.config.DatabaseProperties;
+import app.config.DeletionProperties;
+import app.config.IngestionProperties;
+import app.config.PaginationProperties;
+import app.config.RetentionProperties;
+import app.event.ActivityLogsDeletedEvent;
+import app.event.ActivityLogsWrittenEvent;
+import app.exception.InvalidBulkItemException;
+import app.exception.InvalidIdempotencyKeyException;
+import app.exception.MalformedBulkPayloadException;
+import app.ingestion.IdempotencyGuard;
+import app.ingestion.ActivityLogSpool;
+import app.ingestion.WriteBehindQueue;
+import app.jdbc.ReplicaRouting;
+import app.jdbc.Shards;
 import app.model.ActivityLog;
+import app.model.ActivityLogCursor;
+import app.model.ActivityLogPage;
+import app.model.ActivityLogView;
+import app.repository.ActivityLogBatchWriter;
+import app.repository.ActivityLogEntityReader;
+import app.repository.ActivityLogProjectionReader;
 import app.repository.ActivityLogRepository;
+import app.repository.ActivityLogStatelessWriter;
+import app.retention.RetentionPolicy;
 import app.web.dto.ActivityLogRequest;
+import app.web.dto.BulkIngestResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,13 +71,72 @@ public class ActivityLogServiceTest {
     @Mock
     private ActivityLogRepository activityLogRepository;
 
+    @Mock
+    private ActivityLogBatchWriter activityLogBatchWriter;
+
+    @Mock
+    private ActivityLogEntityReader activityLogEntityReader;
+
+    @Mock
+    private ActivityLogProjectionReader activityLogProjectionReader;
+
+    @Mock
+    private ActivityLogStatelessWriter activityLogStatelessWriter;
+
+    @Spy
+    private DataAccessProperties dataAccessProperties = new DataAccessProperties();
+
+    @Mock
+    private WriteBehindQueue writeBehindQueue;
+
+    @Mock
+    private ActivityLogSpool activityLogSpool;
+
+    @Spy
+    private IngestionProperties ingestionProperties = new IngestionProperties();
+
+    @Spy
+    private DeletionProperties deletionProperties = new DeletionProperties();
+
+    @Spy
+    private PaginationProperties paginationProperties = new PaginationProperties();
+
+    @Mock
+    private EntityManager entityManager;
+
+    // Disabled, so every read goes through to the repository mocks.
+    @Spy
+    private RecentActivityCache recentActivityCache =
+            new RecentActivityCache(new CacheProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    private RetentionPolicy retentionPolicy = new RetentionPolicy(new RetentionProperties());
+
+    @Mock
+    private ActionDictionary actionDictionary;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ActivityLogMetrics activityLogMetrics;
+
+    @Mock
+    private IdempotencyGuard idempotencyGuard;
+
+    // Unsharded, so every call goes to the repository mocks.
+    @Spy
+    private Shards shards = new Shards(new DatabaseProperties(), null, null);
+
+    @Mock
+    private ActivityLogArchive activityLogArchive;
+
     @InjectMocks
     private ActivityLogService activityLogService;
 
     private UUID userId;
     private ActivityLog activityLog1;
     private ActivityLog activityLog2;
-    private List<ActivityLog> activities;
 
     @BeforeEach
     void setUp() {
@@ -48,8 +153,6 @@ public class ActivityLogServiceTest {
                 .action("action2")
                 .createdOn(LocalDateTime.now())
                 .build();
-
-        activities = List.of(activityLog1, activityLog2);
     }
 
     @Test
@@ -67,67 +170,446 @@ public class ActivityLogServiceTest {
         assertEquals(activityLogRequest.getAction(), loggedActivity.getAction());
 
         verify(activityLogRepository, times(1)).save(any());
+        verify(actionDictionary, times(1)).encode(any(ActivityLog.class));
+        verify(recentActivityCache, times(1)).append(activityLog1);
+        verify(eventPublisher, times(1)).publishEvent(new ActivityLogsWrittenEvent(List.of(activityLog1)));
+    }
+
+    @Test
+    public void testLogActivity_ShouldReturnOriginal_WhenIdempotencyKeyIsKnown() {
+        ActivityLogRequest activityLogRequest = ActivityLogRequest.builder()
+                .userId(userId)
+                .action("action1")
+                .build();
+
+        when(idempotencyGuard.findOriginal(userId, "retry-1")).thenReturn(Optional.of(activityLog1));
+
+        assertSame(activityLog1, activityLogService.logActivity(activityLogRequest, "retry-1"));
+
+        verifyNoInteractions(activityLogRepository, activityLogBatchWriter, eventPublisher);
+    }
+
+    @Test
+    public void testLogActivity_ShouldStoreKeyWithEvent_WhenIdempotencyKeyIsNew() {
+        ActivityLogRequest activityLogRequest = ActivityLogRequest.builder()
+                .userId(userId)
+                .action("action1")
+                .build();
+
+        when(idempotencyGuard.findOriginal(userId, "retry-1")).thenReturn(Optional.empty());
+        when(activityLogBatchWriter.insertAll(anyList())).thenReturn(1);
+
+        ActivityLog loggedActivity = activityLogService.logActivity(activityLogRequest, "retry-1");
+
+        assertNotNull(loggedActivity.getId());
+        assertEquals("retry-1", loggedActivity.getIdempotencyKey());
+        verify(activityLogBatchWriter, times(1)).insertAll(List.of(loggedActivity));
+        verify(activityLogRepository, never()).save(any());
+        verify(idempotencyGuard, times(1)).remember(loggedActivity);
+        verify(eventPublisher, times(1)).publishEvent(new ActivityLogsWrittenEvent(List.of(loggedActivity)));
+    }
+
+    @Test
+    public void testLogActivity_ShouldReturnStoredOriginal_WhenKeyWasStoredConcurrently() {
+        ActivityLogRequest activityLogRequest = ActivityLogRequest.builder()
+                .userId(userId)
+                .action("action1")
+                .build();
+
+        when(idempotencyGuard.findOriginal(userId, "retry-1")).thenReturn(Optional.empty());
+        when(activityLogBatchWriter.insertAll(anyList())).thenReturn(0);
+        when(idempotencyGuard.loadOriginal(userId, "retry-1")).thenReturn(Optional.of(activityLog1));
+
+        assertSame(activityLog1, activityLogService.logActivity(activityLogRequest, "retry-1"));
+
+        verify(idempotencyGuard, never()).remember(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    public void testLogActivity_ShouldThrow_WhenIdempotencyKeyIsTooLong() {
+        ActivityLogRequest activityLogRequest = ActivityLogRequest.builder()
+                .userId(userId)
+                .action("action1")
+                .build();
+
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> activityLogService.logActivity(activityLogRequest, "k".repeat(65)));
+
+        verifyNoInteractions(idempotencyGuard, activityLogRepository, activityLogBatchWriter);
+    }
+
+    @Test
+    public void testLogActivity_ShouldEnqueueWithAssignedId_WhenWriteBehindIsEnabled() {
+        ActivityLogRequest activityLogRequest = ActivityLogRequest.builder()
+                .userId(userId)
+                .action("action1")
+                .build();
+
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+
+        ActivityLog loggedActivity = activityLogService.logActivity(activityLogRequest);
+
+        assertNotNull(loggedActivity.getId());
+        assertNotNull(loggedActivity.getCreatedOn());
+        assertEquals(userId, loggedActivity.getUserId());
+
+        verify(writeBehindQueue, times(1)).enqueue(loggedActivity);
+        verify(recentActivityCache, times(1)).append(loggedActivity);
+        verify(activityLogRepository, times(0)).save(any());
+    }
+
+    @Test
+    public void testLogActivity_ShouldEnqueueOnce_WhenWriteBehindRetriesShareKeyConcurrently() throws Exception {
+        ActivityLogRequest activityLogRequest = ActivityLogRequest.builder()
+                .userId(userId)
+                .action("action1")
+                .build();
+        ConcurrentHashMap<String, ActivityLog> remembered = new ConcurrentHashMap<>();
+        CountDownLatch bothChecking = new CountDownLatch(2);
+
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(idempotencyGuard.findOriginal(userId, "retry-1")).thenAnswer(invocation -> {
+            // Gives the other retry time to reach the check as well, which it must not do before this one remembers.
+            bothChecking.countDown();
+            bothChecking.await(200, TimeUnit.MILLISECONDS);
+            return Optional.ofNullable(remembered.get("retry-1"));
+        });
+        doAnswer(invocation -> {
+            ActivityLog activityLog = invocation.getArgument(0);
+            remembered.put(activityLog.getIdempotencyKey(), activityLog);
+            return null;
+        }).when(idempotencyGuard).remember(any());
+
+        CompletableFuture<ActivityLog> first =
+                CompletableFuture.supplyAsync(() -> activityLogService.logActivity(activityLogRequest, "retry-1"));
+        CompletableFuture<ActivityLog> second =
+                CompletableFuture.supplyAsync(() -> activityLogService.logActivity(activityLogRequest, "retry-1"));
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        verify(writeBehindQueue, times(1)).enqueue(any());
+    }
+
+    @Test
+    public void testLogActivity_ShouldAppendToSpoolWithAssignedId_WhenSpoolIsEnabled() {
+        ActivityLogRequest activityLogRequest = ActivityLogRequest.builder()
+                .userId(userId)
+                .action("action1")
+                .build();
+
+        when(activityLogSpool.isEnabled()).thenReturn(true);
+
+        ActivityLog loggedActivity = activityLogService.logActivity(activityLogRequest);
+
+        assertNotNull(loggedActivity.getId());
+        assertTrue(activityLogService.isWriteBehind());
+        verify(activityLogSpool, times(1)).append(loggedActivity);
+        verify(writeBehindQueue, never()).enqueue(any());
+        verify(activityLogRepository, never()).save(any());
+    }
+
+    @Test
+    public void testLogActivity_ShouldInsertStatelessly_WhenWritePathIsStateless() {
+        dataAccessProperties.setWritePath(DataAccessProperties.WritePath.STATELESS);
+        when(activityLogStatelessWriter.insert(any(ActivityLog.class))).thenReturn(activityLog1);
+
+        ActivityLog loggedActivity = activityLogService.logActivity(request(userId, "action1"));
+
+        assertSame(activityLog1, loggedActivity);
+        verify(activityLogRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(new ActivityLogsWrittenEvent(List.of(activityLog1)));
+
+        activityLogService.logActivities(iterator(List.of(() -> request(userId, "action2"))));
+
+        verify(activityLogStatelessWriter, times(1)).insertAll(anyList());
+        verify(activityLogBatchWriter, never()).insertAll(anyList());
+    }
+
+    @Test
+    public void testLogActivities_ShouldPersistInChunks_AndReportRejectedItems() {
+        ingestionProperties.getBulk().setChunkSize(2);
+        when(activityLogBatchWriter.insertAll(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        List<Supplier<ActivityLogRequest>> items = List.of(
+                () -> request(userId, "action1"),
+                () -> request(null, "action2"),
+                () -> request(userId, "action3"),
+                () -> {
+                    throw new InvalidBulkItemException("Cannot deserialize userId");
+                },
+                () -> request(userId, " "),
+                () -> request(userId, "action6"),
+                () -> request(userId, "action7"));
+
+        BulkIngestResponse response = activityLogService.logActivities(iterator(items));
+
+        assertEquals(4, response.getAccepted());
+        assertEquals(3, response.getRejected());
+        assertEquals(List.of(1L, 3L, 4L), response.getErrors().stream().map(error -> error.getIndex()).toList());
+        assertEquals("userId is required", response.getErrors().get(0).getMessage());
+        verify(activityLogBatchWriter, times(2)).insertAll(anyList());
+    }
+
+    @Test
+    public void testLogActivities_ShouldRejectWholeChunk_WhenChunkCannotBePersisted() {
+        ingestionProperties.getBulk().setChunkSize(2);
+        when(activityLogBatchWriter.insertAll(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenReturn(1);
+
+        List<Supplier<ActivityLogRequest>> items = List.of(
+                () -> request(userId, "action1"),
+                () -> request(userId, "action2"),
+                () -> request(userId, "action3"));
+
+        BulkIngestResponse response = activityLogService.logActivities(iterator(items));
+
+        assertEquals(1, response.getAccepted());
+        assertEquals(2, response.getRejected());
+        assertEquals(0, response.getErrors().get(0).getIndex());
+    }
+
+    @Test
+    public void testLogActivities_ShouldKeepAcceptedItems_WhenPayloadIsTruncated() {
+        when(activityLogBatchWriter.insertAll(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        List<Supplier<ActivityLogRequest>> items = List.of(
+                () -> request(userId, "action1"),
+                () -> {
+                    throw new MalformedBulkPayloadException("Unexpected end-of-input");
+                });
+
+        BulkIngestResponse response = activityLogService.logActivities(iterator(items));
+
+        assertEquals(1, response.getAccepted());
+        assertEquals(0, response.getRejected());
+        assertEquals(1, response.getErrors().size());
+        assertEquals(1, response.getErrors().get(0).getIndex());
     }
 
     @Test
     public void testGetByUserId_ShouldReturnActivityLog_WhenThereAreActivitiesInDatabase() {
-        when(activityLogRepository.findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(any(UUID.class)))
-                .thenReturn(List.of(activityLog1, activityLog2));
+        when(activityLogEntityReader.findAllByUserIdSince(any(UUID.class), eq(RetentionPolicy.UNBOUNDED)))
+                .thenReturn(views(activityLog1, activityLog2));
 
-        List<ActivityLog> activitiesByUserId = activityLogService.getByUserId(userId);
+        List<ActivityLogView> activitiesByUserId = activityLogService.getByUserId(userId);
 
         assertEquals(2, activitiesByUserId.size());
-        assertEquals(activityLog1, activitiesByUserId.get(0));
-        assertEquals(activityLog2, activitiesByUserId.get(1));
+        assertEquals(ActivityLogView.of(activityLog1), activitiesByUserId.get(0));
+        assertEquals(ActivityLogView.of(activityLog2), activitiesByUserId.get(1));
 
-        verify(activityLogRepository, times(1)).findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(any(UUID.class));
+        verify(activityLogEntityReader, times(1)).findAllByUserIdSince(any(UUID.class), eq(RetentionPolicy.UNBOUNDED));
         verify(activityLogRepository, times(0)).findAllByUserIdAndIsDeletedIsFalse(any(UUID.class));
     }
 
+    @Test
+    public void testGetByUserId_ShouldReadFromReplica_WhenCacheIsDisabled() {
+        List<Boolean> fromReplica = new ArrayList<>();
+        when(activityLogEntityReader.findAllByUserIdSince(userId, RetentionPolicy.UNBOUNDED)).thenAnswer(invocation -> {
+            fromReplica.add(ReplicaRouting.isActive());
+            return views(activityLog1);
+        });
+
+        activityLogService.getByUserId(userId);
+
+        assertEquals(List.of(true), fromReplica);
+    }
+
+    @Test
+    public void testGetByUserId_ShouldLoadFromPrimary_WhenCacheIsEnabled() {
+        List<Boolean> fromReplica = new ArrayList<>();
+        doReturn(true).when(recentActivityCache).isEnabled();
+        when(activityLogEntityReader.findAllByUserIdSince(userId, RetentionPolicy.UNBOUNDED)).thenAnswer(invocation -> {
+            fromReplica.add(ReplicaRouting.isActive());
+            return views(activityLog1);
+        });
+
+        activityLogService.getByUserId(userId);
+
+        assertEquals(List.of(false), fromReplica);
+    }
+
     @Test
     public void testGetByUserId_ShouldReturnEmpty_WhenThereAreNoActivitiesInDatabase() {
-        when(activityLogRepository.findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(any(UUID.class)))
+        when(activityLogEntityReader.findAllByUserIdSince(any(UUID.class), eq(RetentionPolicy.UNBOUNDED)))
                 .thenReturn(new ArrayList<>());
 
-        List<ActivityLog> activitiesByUserId = activityLogService.getByUserId(userId);
+        List<ActivityLogView> activitiesByUserId = activityLogService.getByUserId(userId);
 
         assertEquals(0, activitiesByUserId.size());
 
-        verify(activityLogRepository, times(1)).findAllByUserIdAndIsDeletedIsFalseOrderByCreatedOnDesc(any(UUID.class));
+        verify(activityLogEntityReader, times(1)).findAllByUserIdSince(any(UUID.class), eq(RetentionPolicy.UNBOUNDED));
         verify(activityLogRepository, times(0)).findAllByUserIdAndIsDeletedIsFalse(any(UUID.class));
     }
 
     @Test
-    public void testDeleteByUserId_ShouldDeleteActivityLog_WhenThereAreActivitiesInDatabaseForUser() {
-        when(activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(userId))
-                .thenReturn(activities);
-        when(activityLogRepository.existsByUserId(userId)).thenReturn(true);
+    public void testGetByUserId_ShouldReadProjections_WhenReadPathIsProjection() {
+        dataAccessProperties.setReadPath(DataAccessProperties.ReadPath.PROJECTION);
+        when(activityLogProjectionReader.findAllByUserIdSince(userId, RetentionPolicy.UNBOUNDED))
+                .thenReturn(views(activityLog1));
 
-        assertEquals(2, activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(userId).size());
+        assertEquals(views(activityLog1), activityLogService.getByUserId(userId));
 
-        boolean isDeleted = activityLogService.deleteByUserId(userId);
+        verify(activityLogEntityReader, never()).findAllByUserIdSince(any(UUID.class), any(LocalDateTime.class));
+    }
 
-        assertTrue(isDeleted, "Deletion should return true");
+    @Test
+    public void testGetPageByUserId_ShouldReturnNextCursor_WhenMoreRowsExist() {
+        ActivityLog activityLog3 = ActivityLog.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .action("action3")
+                .createdOn(LocalDateTime.now())
+                .build();
+        activityLog2.setId(UUID.randomUUID());
+        when(activityLogEntityReader.findPageByUserId(userId, RetentionPolicy.UNBOUNDED, Limit.of(3)))
+                .thenReturn(views(activityLog1, activityLog2, activityLog3));
 
-        for (ActivityLog log : activities) {
-            assertTrue(log.isDeleted(), "Activity log should be marked as deleted");
-        }
+        ActivityLogPage page = activityLogService.getPageByUserId(userId, null, 2);
 
-        verify(activityLogRepository, times(1)).existsByUserId(userId);
-        verify(activityLogRepository, times(2)).findAllByUserIdAndIsDeletedIsFalse(userId);
-        verify(activityLogRepository, times(activities.size())).save(any(ActivityLog.class));
+        assertEquals(views(activityLog1, activityLog2), page.items());
+        assertEquals(ActivityLogCursor.of(activityLog2), page.nextCursor());
     }
 
     @Test
-    public void testDeleteByUserId_ShouldNotDeleteActivityLog_WhenThereNotActivitiesInDatabaseFoUser() {
-        when(activityLogRepository.existsByUserId(userId)).thenReturn(false);
+    public void testGetPageByUserId_ShouldContinueAfterCursor_AndReturnNoCursorOnLastPage() {
+        ActivityLogCursor cursor = new ActivityLogCursor(LocalDateTime.now(), UUID.randomUUID());
+        when(activityLogEntityReader.findPageByUserIdAfter(userId, RetentionPolicy.UNBOUNDED, cursor.createdOn(), cursor.id(), Limit.of(101)))
+                .thenReturn(views(activityLog1));
 
-        boolean isDeleted = activityLogService.deleteByUserId(userId);
+        ActivityLogPage page = activityLogService.getPageByUserId(userId, cursor, null);
 
-        assertFalse(isDeleted, "Deletion should return false");
+        assertEquals(views(activityLog1), page.items());
+        assertNull(page.nextCursor());
+        verify(activityLogEntityReader, times(0)).findPageByUserId(any(), any(), any());
+    }
 
-        verify(activityLogRepository, times(1)).existsByUserId(userId);
+    @Test
+    public void testGetPageByUserId_ShouldClampLimitToMaxPageSize() {
+        paginationProperties.setMaxPageSize(10);
+        when(activityLogEntityReader.findPageByUserId(userId, RetentionPolicy.UNBOUNDED, Limit.of(11))).thenReturn(List.of());
+
+        ActivityLogPage page = activityLogService.getPageByUserId(userId, null, 5000);
+
+        assertTrue(page.items().isEmpty());
+        verify(activityLogEntityReader, times(1)).findPageByUserId(userId, RetentionPolicy.UNBOUNDED, Limit.of(11));
+    }
+
+    @Test
+    public void testGetPageByUserId_ShouldMergeArchivedRows_WhenTableRunsOut() {
+        activityLog1.setId(UUID.randomUUID());
+        ActivityLog archived1 = archived(LocalDateTime.now().minusMonths(4));
+        ActivityLog archived2 = archived(LocalDateTime.now().minusMonths(5));
+        when(activityLogArchive.isEnabled()).thenReturn(true);
+        when(activityLogEntityReader.findPageByUserId(userId, RetentionPolicy.UNBOUNDED, Limit.of(3)))
+                .thenReturn(views(activityLog1));
+        when(activityLogArchive.find(userId, RetentionPolicy.UNBOUNDED, null, 3))
+                .thenReturn(views(archived1, archived2));
+
+        ActivityLogPage page = activityLogService.getPageByUserId(userId, null, 2);
+
+        assertEquals(views(activityLog1, archived1), page.items());
+        assertEquals(ActivityLogCursor.of(archived1), page.nextCursor());
+    }
+
+    @Test
+    public void testGetPageByUserId_ShouldNotReadArchive_WhenTablePageEndsAfterArchivedMonths() {
+        ActivityLogCursor cursor = new ActivityLogCursor(LocalDateTime.now(), UUID.randomUUID());
+        when(activityLogArchive.isEnabled()).thenReturn(true);
+        when(activityLogArchive.archivedThrough()).thenReturn(LocalDateTime.now().minusMonths(3));
+        when(activityLogEntityReader.findPageByUserIdAfter(userId, RetentionPolicy.UNBOUNDED, cursor.createdOn(), cursor.id(), Limit.of(2)))
+                .thenReturn(views(activityLog1, activityLog2));
+
+        ActivityLogPage page = activityLogService.getPageByUserId(userId, cursor, 1);
+
+        assertEquals(views(activityLog1), page.items());
+        verify(activityLogArchive, never()).find(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    public void testExportByUserId_ShouldHandRowsToConsumerAndDetachThem() {
+        when(activityLogRepository.streamByUserId(userId, RetentionPolicy.UNBOUNDED)).thenReturn(Stream.of(activityLog1, activityLog2));
+        List<ActivityLog> exported = new ArrayList<>();
+
+        activityLogService.exportByUserId(userId, exported::add);
+
+        assertEquals(List.of(activityLog1, activityLog2), exported);
+        verify(entityManager, times(1)).detach(activityLog1);
+        verify(entityManager, times(1)).detach(activityLog2);
+    }
+
+    @Test
+    public void testDeleteByUserId_ShouldDeleteActivityLogInChunks_WhenThereAreActivitiesInDatabaseForUser() {
+        deletionProperties.setChunkSize(2);
+        when(activityLogRepository.softDeleteChunkByUserId(userId, 2))
+                .thenReturn(2)
+                .thenReturn(1)
+                .thenReturn(0);
+
+        long deleted = activityLogService.deleteByUserId(userId);
+
+        assertEquals(3, deleted, "Deletion should return the number of rows flagged");
+
+        verify(activityLogRepository, times(3)).softDeleteChunkByUserId(userId, 2);
+        verify(recentActivityCache, times(1)).invalidate(userId);
+        verify(eventPublisher, times(1)).publishEvent(new ActivityLogsDeletedEvent(userId, 3));
         verify(activityLogRepository, times(0)).findAllByUserIdAndIsDeletedIsFalse(userId);
         verify(activityLogRepository, times(0)).save(any(ActivityLog.class));
     }
+
+    @Test
+    public void testDeleteByUserId_ShouldNotDeleteActivityLog_WhenThereNotActivitiesInDatabaseFoUser() {
+        when(activityLogRepository.softDeleteChunkByUserId(eq(userId), anyInt())).thenReturn(0);
+
+        long deleted = activityLogService.deleteByUserId(userId);
+
+        assertEquals(0, deleted, "Deletion should return 0");
+
+        verify(activityLogRepository, times(1)).softDeleteChunkByUserId(eq(userId), anyInt());
+        verify(activityLogRepository, times(0)).save(any(ActivityLog.class));
+    }
+
+    @Test
+    public void testDeleteByUserId_ShouldCountArchivedRows_WhenArchiveIsEnabled() {
+        when(activityLogRepository.softDeleteChunkByUserId(eq(userId), anyInt())).thenReturn(0);
+        when(activityLogArchive.deleteByUserId(userId)).thenReturn(4L);
+
+        long deleted = activityLogService.deleteByUserId(userId);
+
+        assertEquals(4, deleted);
+        verify(eventPublisher, times(1)).publishEvent(new ActivityLogsDeletedEvent(userId, 4));
+    }
+
+    private static List<ActivityLogView> views(ActivityLog... activityLogs) {
+        return Stream.of(activityLogs).map(ActivityLogView::of).toList();
+    }
+
+    private ActivityLog archived(LocalDateTime createdOn) {
+        return new ActivityLog(UUID.randomUUID(), userId, "archived", null, createdOn);
+    }
+
+    private static ActivityLogRequest request(UUID userId, String action) {
+        return ActivityLogRequest.builder()
+                .userId(userId)
+                .action(action)
+                .build();
+    }
+
+    private static Iterator<ActivityLogRequest> iterator(List<Supplier<ActivityLogRequest>> items) {
+        Iterator<Supplier<ActivityLogRequest>> delegate = items.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public ActivityLogRequest next() {
+                if (!delegate.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return delegate.next().get();
+            }
+        };
+    }
 }
@@ -0,0 +1,215 @@
+package app.service;
+
+import app.archive.ActivityLogArchive;
+import app.config.DatabaseProperties;
+import app.config.RollupProperties;
+import app.event.ActivityLogsDeletedEvent;
+import app.event.ActivityLogsWrittenEvent;
+import app.exception.InvalidRangeException;
+import app.jdbc.Shards;
+import app.model.ActivityLog;
+import app.model.ActivityRollup;
+import app.model.RollupGranularity;
+import app.model.id.TimeOrderedUuids;
+import app.repository.ActivityLogBatchWriter;
+import app.repository.ActivityRollupRepository;
+import app.repository.ActivityRollupWriter;
+import app.retention.RetentionPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ActivityRollupServiceTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties({RollupProperties.class, DatabaseProperties.class})
+    @Import({ActivityRollupService.class, ActivityRollupWriter.class, ActivityLogBatchWriter.class, Shards.class})
+    static class Config {
+    }
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 10, 0, 0);
+
+    @Autowired
+    private ActivityRollupService rollupService;
+
+    @Autowired
+    private ActivityRollupRepository rollupRepository;
+
+    @Autowired
+    private ActivityLogBatchWriter batchWriter;
+
+    @MockitoBean
+    private ActivityLogArchive activityLogArchive;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    public void testFlush_ShouldAddPendingCountsToStoredCounters() {
+        rollupService.onWritten(written(activityLog("LOGIN", DAY.plusMinutes(5)), activityLog("LOGIN", DAY.plusMinutes(50))));
+        rollupService.flush();
+        rollupService.onWritten(written(activityLog("LOGIN", DAY.plusMinutes(55))));
+        rollupService.flush();
+
+        List<ActivityRollup> stored = rollupRepository.findByUserIdBetween(userId, DAY, DAY.plusDays(1));
+
+        assertEquals(1, stored.size());
+        assertEquals(DAY, stored.get(0).getBucketStart());
+        assertEquals(3, stored.get(0).getEventCount());
+    }
+
+    @Test
+    public void testGetStats_ShouldMergeStoredAndPendingCounts_WhenGroupedByDay() {
+        rollupService.onWritten(written(activityLog("LOGIN", DAY.plusHours(1)), activityLog("ORDER_PLACED", DAY.plusHours(2))));
+        rollupService.flush();
+        rollupService.onWritten(written(activityLog("LOGIN", DAY.plusHours(20)), activityLog("LOGIN", DAY.plusDays(1))));
+
+        List<ActivityRollup> stats = rollupService.getStats(userId, DAY, DAY.plusDays(2), RollupGranularity.DAY);
+
+        assertEquals(3, stats.size());
+        assertRollup(stats.get(0), DAY, "LOGIN", 2);
+        assertRollup(stats.get(1), DAY, "ORDER_PLACED", 1);
+        assertRollup(stats.get(2), DAY.plusDays(1), "LOGIN", 1);
+    }
+
+    @Test
+    public void testGetStats_ShouldRejectRange_WhenFromIsNotBeforeTo() {
+        assertThrows(InvalidRangeException.class,
+                () -> rollupService.getStats(userId, DAY, DAY, RollupGranularity.HOUR));
+    }
+
+    @Test
+    public void testOnDeleted_ShouldRemoveStoredAndPendingCounts() {
+        rollupService.onWritten(written(activityLog("LOGIN", DAY)));
+        rollupService.flush();
+        rollupService.onWritten(written(activityLog("LOGIN", DAY)));
+
+        rollupService.onDeleted(new ActivityLogsDeletedEvent(userId, 2));
+
+        assertTrue(rollupService.getStats(userId, DAY, DAY.plusDays(1), RollupGranularity.HOUR).isEmpty());
+    }
+
+    @Test
+    public void testRebuild_ShouldReplaceCountersWithCountsFromStoredEvents() {
+        batchWriter.insertAll(List.of(
+                activityLog("LOGIN", DAY.plusMinutes(1)),
+                activityLog("LOGIN", DAY.plusMinutes(2)),
+                activityLog("LOGOUT", DAY.plusHours(3))));
+        // Drifted counter that the rebuild has to correct.
+        rollupService.onWritten(written(activityLog("LOGIN", DAY)));
+        rollupService.flush();
+        rollupService.flush();
+
+        long buckets = rollupService.rebuild(userId);
+
+        assertEquals(2, buckets);
+        List<ActivityRollup> stats = rollupService.getStats(userId, DAY, DAY.plusDays(1), RollupGranularity.HOUR);
+        assertRollup(stats.get(0), DAY, "LOGIN", 2);
+        assertRollup(stats.get(1), DAY.plusHours(3), "LOGOUT", 1);
+    }
+
+    @Test
+    public void testRebuild_ShouldNotCountStoredEventsAgain_WhenTheirCountsArePending() {
+        ActivityLog login = activityLog("LOGIN", DAY.plusMinutes(1));
+        ActivityLog logout = activityLog("LOGOUT", DAY.plusMinutes(2));
+        batchWriter.insertAll(List.of(login, logout));
+        rollupService.onWritten(written(login, logout));
+
+        rollupService.rebuild(userId);
+        rollupService.flush();
+
+        List<ActivityRollup> stats = rollupService.getStats(userId, DAY, DAY.plusDays(1), RollupGranularity.HOUR);
+        assertEquals(2, stats.size());
+        assertRollup(stats.get(0), DAY, "LOGIN", 1);
+        assertRollup(stats.get(1), DAY, "LOGOUT", 1);
+    }
+
+    @Test
+    public void testRebuild_ShouldCountEventsWrittenDuringRebuildOnce() {
+        // The login is stored before the recount reads the table; the logout is stored after, so it is not seen.
+        ActivityLog login = activityLog("LOGIN", DAY.plusMinutes(1));
+        ActivityLog logout = activityLog("LOGOUT", DAY.plusMinutes(2));
+        batchWriter.insertAll(List.of(login));
+        when(activityLogArchive.isEnabled()).thenReturn(true);
+        when(activityLogArchive.archivedThrough()).thenReturn(DAY);
+        doAnswer(invocation -> {
+            rollupService.onWritten(written(login, logout));
+            return null;
+        }).when(activityLogArchive).forEach(eq(userId), eq(RetentionPolicy.UNBOUNDED), any());
+
+        rollupService.rebuild(userId);
+        rollupService.flush();
+
+        List<ActivityRollup> stats = rollupService.getStats(userId, DAY, DAY.plusDays(1), RollupGranularity.HOUR);
+        assertEquals(2, stats.size());
+        assertRollup(stats.get(0), DAY, "LOGIN", 1);
+        assertRollup(stats.get(1), DAY, "LOGOUT", 1);
+    }
+
+    @Test
+    public void testRebuild_ShouldKeepCountsOfArchivedEvents() {
+        // March is archived; one of its rows has not been deleted from the table yet.
+        ActivityLog archivedLogin = activityLog("LOGIN", DAY.plusMinutes(1));
+        ActivityLog archivedAndStored = activityLog("LOGIN", DAY.plusMinutes(2));
+        batchWriter.insertAll(List.of(archivedAndStored, activityLog("LOGOUT", DAY.plusDays(30))));
+        when(activityLogArchive.isEnabled()).thenReturn(true);
+        when(activityLogArchive.archivedThrough()).thenReturn(LocalDateTime.of(2025, 4, 1, 0, 0));
+        doAnswer(invocation -> {
+            Consumer<ActivityLog> consumer = invocation.getArgument(2);
+            consumer.accept(archivedAndStored);
+            consumer.accept(archivedLogin);
+            return null;
+        }).when(activityLogArchive).forEach(eq(userId), eq(RetentionPolicy.UNBOUNDED), any());
+
+        assertEquals(2, rollupService.rebuild(userId));
+
+        List<ActivityRollup> stats = rollupService.getStats(userId, DAY, DAY.plusDays(31), RollupGranularity.DAY);
+        assertEquals(2, stats.size());
+        assertRollup(stats.get(0), DAY, "LOGIN", 2);
+        assertRollup(stats.get(1), DAY.plusDays(30), "LOGOUT", 1);
+    }
+
+    private static void assertRollup(ActivityRollup rollup, LocalDateTime bucketStart, String action, long count) {
+        assertEquals(bucketStart, rollup.getBucketStart());
+        assertEquals(action, rollup.getAction());
+        assertEquals(count, rollup.getEventCount());
+    }
+
+    private static ActivityLogsWrittenEvent written(ActivityLog... activityLogs) {
+        return new ActivityLogsWrittenEvent(List.of(activityLogs));
+    }
+
+    private ActivityLog activityLog(String action, LocalDateTime createdOn) {
+        return ActivityLog.builder()
+                .id(TimeOrderedUuids.next())
+                .userId(userId)
+                .action(action)
+                .createdOn(createdOn)
+                .build();
+    }
+}
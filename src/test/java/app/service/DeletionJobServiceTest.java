@@ -0,0 +1,128 @@
+package app.service;
+
+import app.config.DeletionProperties;
+import app.model.BackgroundJob;
+import app.model.DeletionJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DeletionJobServiceTest {
+
+    @Mock
+    private ActivityLogService activityLogService;
+
+    @Mock
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    private DeletionJobService deletionJobService;
+
+    private final List<Runnable> submittedTasks = new ArrayList<>();
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        deletionJobService = new DeletionJobService(activityLogService, new DeletionProperties(), applicationTaskExecutor);
+        lenient().doAnswer(invocation -> submittedTasks.add(invocation.getArgument(0)))
+                .when(applicationTaskExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void testSubmit_ShouldRunDeletionInBackgroundAndRecordCount() {
+        when(activityLogService.deleteByUserId(userId)).thenReturn(42L);
+
+        DeletionJob job = deletionJobService.submit(userId);
+
+        assertEquals(BackgroundJob.Status.PENDING, job.getStatus());
+        verify(activityLogService, times(0)).deleteByUserId(userId);
+
+        submittedTasks.forEach(Runnable::run);
+
+        DeletionJob finished = deletionJobService.getJob(job.getId()).orElseThrow();
+        assertEquals(BackgroundJob.Status.COMPLETED, finished.getStatus());
+        assertEquals(42L, finished.getDeletedCount());
+        assertNotNull(finished.getFinishedOn());
+    }
+
+    @Test
+    public void testSubmit_ShouldReuseActiveJob_WhenUserAlreadyHasOne() {
+        DeletionJob first = deletionJobService.submit(userId);
+        DeletionJob second = deletionJobService.submit(userId);
+
+        assertSame(first, second);
+        assertEquals(1, submittedTasks.size());
+    }
+
+    @Test
+    public void testSubmit_ShouldStartOneJob_WhenUserSubmitsConcurrently() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<DeletionJob>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return deletionJobService.submit(userId);
+                }));
+            }
+            start.countDown();
+
+            Set<DeletionJob> submitted = new HashSet<>();
+            for (Future<DeletionJob> future : futures) {
+                submitted.add(future.get());
+            }
+            assertEquals(1, submitted.size());
+            assertEquals(1, submittedTasks.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSubmit_ShouldStartNewJob_WhenPreviousOneFinished() {
+        DeletionJob first = deletionJobService.submit(userId);
+        submittedTasks.forEach(Runnable::run);
+
+        DeletionJob second = deletionJobService.submit(userId);
+
+        assertNotSame(first, second);
+        assertEquals(BackgroundJob.Status.PENDING, second.getStatus());
+    }
+
+    @Test
+    public void testSubmit_ShouldMarkJobFailed_WhenDeletionThrows() {
+        when(activityLogService.deleteByUserId(userId)).thenThrow(new IllegalStateException("db down"));
+
+        DeletionJob job = deletionJobService.submit(userId);
+        submittedTasks.forEach(Runnable::run);
+
+        assertEquals(BackgroundJob.Status.FAILED, job.getStatus());
+        assertEquals("db down", job.getError());
+    }
+
+    @Test
+    public void testGetJob_ShouldReturnEmpty_WhenJobIsUnknown() {
+        assertTrue(deletionJobService.getJob(UUID.randomUUID()).isEmpty());
+    }
+}
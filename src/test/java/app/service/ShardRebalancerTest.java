@@ -0,0 +1,90 @@
+package app.service;
+
+import app.config.DatabaseProperties;
+import app.jdbc.Shards;
+import app.model.BackgroundJob;
+import app.model.RebalanceJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ShardRebalancerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ActivityRollupService activityRollupService;
+
+    @Mock
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    private ShardRebalancer shardRebalancer;
+
+    private final List<Runnable> submittedTasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Unsharded, so no user is ever on the wrong shard.
+        Shards shards = new Shards(new DatabaseProperties(), null, null);
+        shardRebalancer = new ShardRebalancer(shards, jdbcTemplate, activityRollupService, new DatabaseProperties(),
+                applicationTaskExecutor);
+        lenient().doAnswer(invocation -> submittedTasks.add(invocation.getArgument(0)))
+                .when(applicationTaskExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void testSubmit_ShouldRunInBackgroundAndComplete() {
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<byte[]>>any(), any(Object[].class))).thenReturn(List.of());
+
+        RebalanceJob job = shardRebalancer.submit();
+
+        assertEquals(BackgroundJob.Status.PENDING, job.getStatus());
+        verifyNoInteractions(jdbcTemplate);
+
+        submittedTasks.forEach(Runnable::run);
+
+        assertEquals(BackgroundJob.Status.COMPLETED, job.getStatus());
+        assertEquals(0, job.getMovedUsers());
+        assertSame(job, shardRebalancer.getJob(job.getId()).orElseThrow());
+    }
+
+    @Test
+    public void testSubmit_ShouldReturnRunningJob_WhenOneIsNotFinished() {
+        RebalanceJob first = shardRebalancer.submit();
+        RebalanceJob second = shardRebalancer.submit();
+
+        assertSame(first, second);
+        assertEquals(1, submittedTasks.size());
+    }
+
+    @Test
+    public void testSubmit_ShouldStartNewJob_WhenPreviousOneFailed() {
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<byte[]>>any(), any(Object[].class)))
+                .thenThrow(new IllegalStateException("db down"));
+
+        RebalanceJob first = shardRebalancer.submit();
+        submittedTasks.forEach(Runnable::run);
+        RebalanceJob second = shardRebalancer.submit();
+
+        assertEquals(BackgroundJob.Status.FAILED, first.getStatus());
+        assertEquals("db down", first.getError());
+        assertNotSame(first, second);
+        assertTrue(shardRebalancer.getJob(first.getId()).isEmpty());
+    }
+}
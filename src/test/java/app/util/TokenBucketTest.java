@@ -0,0 +1,85 @@
+package app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testTryAcquire_ShouldGrantBurstAtOnce_ThenRejectWithWaitOfOneInterval() {
+        TokenBucket limit = new TokenBucket(10, 5);
+        AtomicLong bucket = limit.newBucket();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limit.tryAcquire(bucket, 0));
+        }
+
+        assertEquals(SECOND / 10, limit.tryAcquire(bucket, 0));
+    }
+
+    @Test
+    public void testTryAcquire_ShouldRefillAtConfiguredRate() {
+        TokenBucket limit = new TokenBucket(10, 1);
+        AtomicLong bucket = limit.newBucket();
+        int granted = 0;
+
+        for (long now = 0; now < SECOND; now += SECOND / 100) {
+            if (limit.tryAcquire(bucket, now) == 0) {
+                granted++;
+            }
+        }
+
+        assertEquals(10, granted);
+    }
+
+    @Test
+    public void testTryAcquire_ShouldNotSaveUpBeyondBurst_WhenIdleForLong() {
+        TokenBucket limit = new TokenBucket(10, 2);
+        AtomicLong bucket = limit.newBucket();
+        long later = 60 * SECOND;
+
+        assertEquals(0, limit.tryAcquire(bucket, later));
+        assertEquals(0, limit.tryAcquire(bucket, later));
+        assertTrue(limit.tryAcquire(bucket, later) > 0);
+    }
+
+    @Test
+    public void testRelease_ShouldReturnPermit() {
+        TokenBucket limit = new TokenBucket(1, 1);
+        AtomicLong bucket = limit.newBucket();
+        assertEquals(0, limit.tryAcquire(bucket, 0));
+
+        limit.release(bucket);
+
+        assertEquals(0, limit.tryAcquire(bucket, 0));
+    }
+
+    @Test
+    public void testTryAcquire_ShouldGrantExactlyBurst_WhenContended() throws Exception {
+        TokenBucket limit = new TokenBucket(0.001, 1000);
+        AtomicLong bucket = limit.newBucket();
+        AtomicLong granted = new AtomicLong();
+        Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (limit.tryAcquire(bucket, System.nanoTime()) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, granted.get());
+    }
+}
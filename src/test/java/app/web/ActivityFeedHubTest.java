@@ -0,0 +1,156 @@
+package app.web;
+
+import app.config.LiveTailProperties;
+import app.event.ActivityLogsWrittenEvent;
+import app.exception.SubscriptionLimitExceededException;
+import app.model.ActivityLog;
+import app.model.ActivityLogCursor;
+import app.model.ActivityLogView;
+import app.model.id.TimeOrderedUuids;
+import app.service.ActivityLogService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class ActivityFeedHubTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private LiveTailProperties properties;
+    private ActivityLogService activityLogService;
+    private SimpleMeterRegistry meterRegistry;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LiveTailProperties();
+        activityLogService = mock(ActivityLogService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    public void testOnWritten_ShouldSendEventsOnlyToSubscribersOfThatUser() throws Exception {
+        ActivityFeedHub hub = hub(new SyncTaskExecutor());
+        SseEmitter emitter = hub.subscribe(userId, null);
+        SseEmitter otherEmitter = hub.subscribe(UUID.randomUUID(), null);
+        ActivityLog activityLog = activityLog(userId, 0);
+
+        hub.onWritten(new ActivityLogsWrittenEvent(List.of(activityLog)));
+
+        assertEquals(List.of(ActivityLogCursor.of(activityLog).encode()), sentIds(emitter));
+        verify(otherEmitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    public void testSubscribe_ShouldReplayMissedEventsOnce_WhenResumingFromCursor() throws Exception {
+        ActivityLog seen = activityLog(userId, 0);
+        ActivityLog missed = activityLog(userId, 1);
+        ActivityLog live = activityLog(userId, 2);
+        when(activityLogService.getNewerThan(userId, ActivityLogCursor.of(seen), properties.getMaxReplay() + 1))
+                .thenReturn(List.of(ActivityLogView.of(missed)));
+        List<Runnable> tasks = new ArrayList<>();
+        ActivityFeedHub hub = hub(tasks::add);
+
+        SseEmitter emitter = hub.subscribe(userId, ActivityLogCursor.of(seen));
+        // Written between registration and replay, so it arrives both ways.
+        hub.onWritten(new ActivityLogsWrittenEvent(List.of(missed, live)));
+        tasks.forEach(Runnable::run);
+
+        assertEquals(List.of(ActivityLogCursor.of(missed).encode(), ActivityLogCursor.of(live).encode()), sentIds(emitter));
+    }
+
+    @Test
+    public void testSubscribe_ShouldSendReset_WhenTooFarBehindToReplay() throws Exception {
+        properties.setMaxReplay(1);
+        ActivityLog seen = activityLog(userId, 0);
+        when(activityLogService.getNewerThan(userId, ActivityLogCursor.of(seen), 2))
+                .thenReturn(List.of(ActivityLogView.of(activityLog(userId, 1)),
+                        ActivityLogView.of(activityLog(userId, 2))));
+        ActivityFeedHub hub = hub(new SyncTaskExecutor());
+
+        SseEmitter emitter = hub.subscribe(userId, ActivityLogCursor.of(seen));
+
+        assertEquals(List.of(), sentIds(emitter));
+        assertTrue(sentText(emitter).contains("event:" + ActivityFeedHub.RESET_EVENT));
+    }
+
+    @Test
+    public void testOnWritten_ShouldDisconnectSubscriber_WhenBufferIsFull() {
+        properties.setBufferSize(2);
+        List<Runnable> tasks = new ArrayList<>();
+        ActivityFeedHub hub = hub(tasks::add);
+        SseEmitter emitter = hub.subscribe(userId, null);
+
+        hub.onWritten(new ActivityLogsWrittenEvent(
+                List.of(activityLog(userId, 0), activityLog(userId, 1), activityLog(userId, 2))));
+
+        verify(emitter).complete();
+        assertEquals(0, hub.getSubscriberCount());
+        assertEquals(1.0, meterRegistry.get("activitylog.feed.disconnected").counter().count());
+    }
+
+    @Test
+    public void testSubscribe_ShouldThrow_WhenSubscriberLimitIsReached() {
+        properties.setMaxSubscribers(1);
+        ActivityFeedHub hub = hub(new SyncTaskExecutor());
+        hub.subscribe(userId, null);
+
+        assertThrows(SubscriptionLimitExceededException.class, () -> hub.subscribe(userId, null));
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    private ActivityFeedHub hub(TaskExecutor executor) {
+        ActivityFeedHub hub = spy(new ActivityFeedHub(properties, activityLogService, executor, meterRegistry));
+        doAnswer(invocation -> mock(SseEmitter.class)).when(hub).newEmitter(anyLong());
+        return hub;
+    }
+
+    private ActivityLog activityLog(UUID userId, int minutes) {
+        return ActivityLog.builder()
+                .id(TimeOrderedUuids.next())
+                .userId(userId)
+                .action("action" + minutes)
+                .createdOn(now.plusMinutes(minutes))
+                .build();
+    }
+
+    private static List<String> sentIds(SseEmitter emitter) throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (String line : sentText(emitter).split("\n")) {
+            if (line.startsWith("id:")) {
+                ids.add(line.substring("id:".length()));
+            }
+        }
+        return ids;
+    }
+
+    private static String sentText(SseEmitter emitter) throws Exception {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> events = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, atLeast(0)).send(events.capture());
+
+        StringBuilder text = new StringBuilder();
+        for (SseEmitter.SseEventBuilder event : events.getAllValues()) {
+            for (ResponseBodyEmitter.DataWithMediaType part : event.build()) {
+                if (part.getData() instanceof String data) {
+                    text.append(data);
+                }
+            }
+        }
+        return text.toString();
+    }
+}
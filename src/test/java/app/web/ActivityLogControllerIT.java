@@ -13,10 +13,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -62,6 +64,69 @@ class ActivityLogControllerIT {
         assertEquals(1, activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(request.getUserId()).size());
     }
 
+    @Test
+    void testLogActivities_shouldPersistValidItemsAndReportInvalidOnes() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String body = "[{\"userId\":\"" + userId + "\",\"action\":\"action1\"},"
+                + "{\"action\":\"missing user\"},"
+                + "{\"userId\":\"" + userId + "\",\"action\":\"action3\"}]";
+
+        mockMvc.perform(post("/api/v1/activity-log/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1));
+
+        assertEquals(2, activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(userId).size());
+    }
+
+    @Test
+    void testSearchActivityLog_shouldFindRecentEventsOfSeveralUsersByActionPrefix() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        String body = "[{\"userId\":\"" + userId + "\",\"action\":\"RECIPE_CREATED\"},"
+                + "{\"userId\":\"" + otherUserId + "\",\"action\":\"RECIPE_DELETED\"},"
+                + "{\"userId\":\"" + otherUserId + "\",\"action\":\"LOGIN\"},"
+                + "{\"userId\":\"" + UUID.randomUUID() + "\",\"action\":\"RECIPE_CREATED\"}]";
+        mockMvc.perform(post("/api/v1/activity-log/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/activity-log/search")
+                        .param("userId", userId.toString(), otherUserId.toString())
+                        .param("action", "RECIPE_")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].action").value(startsWith("RECIPE_")))
+                .andExpect(header().exists("X-Next-Cursor"));
+    }
+
+    @Test
+    void testLogActivity_shouldStoreRetriesWithSameIdempotencyKeyOnce() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String body = "{\"userId\":\"" + userId + "\",\"action\":\"action1\"}";
+
+        String first = mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "retry-1")
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String retry = mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "retry-1")
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, retry);
+        assertEquals(1, activityLogRepository.findAllByUserIdAndIsDeletedIsFalse(userId).size());
+    }
+
     @Test
     void testGetActivityLog_shouldGetActivityLog() throws Exception {
         UUID userId = UUID.randomUUID();
@@ -81,6 +146,32 @@ class ActivityLogControllerIT {
                 .andExpect(jsonPath("$[0].createdOn").isNotEmpty());
     }
 
+    @Test
+    void testExportActivityLog_shouldStreamWholeHistory() throws Exception {
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            activityLogRepository.save(ActivityLog.builder()
+                    .userId(userId)
+                    .action("action" + i)
+                    .createdOn(LocalDateTime.now().minusMinutes(i))
+                    .build());
+        }
+
+        MvcResult result = mockMvc.perform(get("/api/v1/activity-log/export")
+                        .param("userId", userId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String ndjson = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(3, ndjson.lines().count());
+        assertTrue(ndjson.startsWith("{\"action\":\"action0\""));
+    }
+
     @Test
     void testDeleteActivityLog_shouldDeleteActivityLog() throws Exception {
         UUID userId = UUID.randomUUID();
@@ -139,4 +230,81 @@ class ActivityLogControllerIT {
                         .param("userId", userId.toString()))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void testGetActivityStats_shouldCountLoggedActivitiesPerAction() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String body = "{\"userId\":\"" + userId + "\",\"action\":\"action1\"}\n"
+                + "{\"userId\":\"" + userId + "\",\"action\":\"action1\"}\n"
+                + "{\"userId\":\"" + userId + "\",\"action\":\"action2\"}\n";
+
+        mockMvc.perform(post("/api/v1/activity-log/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/activity-log/stats")
+                        .param("userId", userId.toString())
+                        .param("granularity", "day"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].action").value("action1"))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[1].count").value(1));
+
+        mockMvc.perform(delete("/api/v1/activity-log")
+                        .param("userId", userId.toString()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/activity-log/stats")
+                        .param("userId", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void testStreamActivityLog_shouldPushNewActivitiesAndResumeFromLastEventId() throws Exception {
+        UUID userId = UUID.randomUUID();
+        MvcResult stream = mockMvc.perform(get("/api/v1/activity-log/stream")
+                        .param("userId", userId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"" + userId + "\",\"action\":\"action1\"}"))
+                .andExpect(status().isCreated());
+
+        String firstEvent = awaitContent(stream, "action1");
+        String lastEventId = firstEvent.lines()
+                .filter(line -> line.startsWith("id:"))
+                .findFirst()
+                .orElseThrow()
+                .substring("id:".length());
+
+        mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"" + userId + "\",\"action\":\"action2\"}"))
+                .andExpect(status().isCreated());
+
+        MvcResult resumed = mockMvc.perform(get("/api/v1/activity-log/stream")
+                        .param("userId", userId.toString())
+                        .header("Last-Event-ID", lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String replayed = awaitContent(resumed, "action2");
+        assertTrue(!replayed.contains("action1"), replayed);
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
 }
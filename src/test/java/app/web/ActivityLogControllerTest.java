@@ -1,34 +1,70 @@
 package app.web;
 
+import app.config.CborConfig;
 import app.model.ActivityLog;
+import app.model.ActivityRollup;
+import app.model.RollupGranularity;
+import app.model.ActivityLogCursor;
+import app.model.ActivityLogPage;
+import app.model.ActivityLogSearch;
+import app.model.ActivityLogView;
+import app.model.DeletionJob;
+import app.model.RebalanceJob;
+import app.exception.InvalidRangeException;
+import app.exception.RateLimitExceededException;
+import app.ingestion.IngestionRateLimiter;
+import app.service.ActivityLogSearchService;
 import app.service.ActivityLogService;
+import app.service.ActivityRollupService;
+import app.service.DeletionJobService;
+import app.service.ShardRebalancer;
 import app.web.dto.ActivityLogRequest;
 import app.web.dto.ActivityLogResponse;
+import app.web.dto.BulkIngestResponse;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import app.util.UuidBytes;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(ActivityLogController.class)
+@Import({ActivityLogRequestReader.class, ActivityLogExportWriter.class, CborConfig.class})
 public class ActivityLogControllerTest {
 
     @Autowired
@@ -37,6 +73,24 @@ public class ActivityLogControllerTest {
     @MockitoBean
     private ActivityLogService activityLogService;
 
+    @MockitoBean
+    private DeletionJobService deletionJobService;
+
+    @MockitoBean
+    private ActivityRollupService activityRollupService;
+
+    @MockitoBean
+    private ActivityFeedHub activityFeedHub;
+
+    @MockitoBean
+    private ActivityLogSearchService activityLogSearchService;
+
+    @MockitoBean
+    private ShardRebalancer shardRebalancer;
+
+    @MockitoBean
+    private IngestionRateLimiter ingestionRateLimiter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -60,11 +114,13 @@ public class ActivityLogControllerTest {
                 .action("Test activity log")
                 .createdOn(createdOn)
                 .build();
+
+        when(ingestionRateLimiter.limit(any())).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Test
     public void testLogActivity_ShouldReturnCreated() throws Exception {
-        when(activityLogService.logActivity(any(ActivityLogRequest.class))).thenReturn(activityLog);
+        when(activityLogService.logActivity(any(ActivityLogRequest.class), isNull())).thenReturn(activityLog);
 
         mockMvc.perform(post("/api/v1/activity-log")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -82,12 +138,85 @@ public class ActivityLogControllerTest {
                 }); // Java serializes and deserializes LocalDateTime differently:
         // The actual output trims unnecessary trailing zeros in the nanosecond field.
 
-        verify(activityLogService, times(1)).logActivity(any(ActivityLogRequest.class));
+        verify(activityLogService, times(1)).logActivity(any(ActivityLogRequest.class), isNull());
+    }
+
+    @Test
+    public void testLogActivity_ShouldReturnAccepted_WhenWriteBehindIsEnabled() throws Exception {
+        when(activityLogService.logActivity(any(ActivityLogRequest.class), isNull())).thenReturn(activityLog);
+        when(activityLogService.isWriteBehind()).thenReturn(true);
+
+        mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.action").value(activityLog.getAction()))
+                .andExpect(jsonPath("$.userId").value(userId.toString()));
+    }
+
+    @Test
+    public void testLogActivity_ShouldPassIdempotencyKeyToService() throws Exception {
+        when(activityLogService.logActivity(any(ActivityLogRequest.class), eq("retry-1"))).thenReturn(activityLog);
+
+        mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "retry-1")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.userId").value(userId.toString()));
+
+        verify(activityLogService, times(1)).logActivity(any(ActivityLogRequest.class), eq("retry-1"));
+    }
+
+    @Test
+    public void testLogActivity_ShouldReturnTooManyRequests_WhenRateLimitIsExceeded() throws Exception {
+        doThrow(new RateLimitExceededException("Activity log rate limit exceeded", Duration.ofMillis(1500)))
+                .when(ingestionRateLimiter).acquire(userId);
+
+        mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+
+        verify(activityLogService, never()).logActivity(any(), any());
+    }
+
+    @Test
+    public void testLogActivities_ShouldStreamNdjsonItemsToService() throws Exception {
+        when(activityLogService.logActivities(any())).thenAnswer(invocation -> {
+            Iterator<ActivityLogRequest> requests = invocation.getArgument(0);
+            long count = 0;
+            while (requests.hasNext()) {
+                requests.next();
+                count++;
+            }
+            return BulkIngestResponse.builder().accepted(count).rejected(0).errors(List.of()).build();
+        });
+
+        String body = objectMapper.writeValueAsString(request) + "\n" + objectMapper.writeValueAsString(request) + "\n";
+
+        mockMvc.perform(post("/api/v1/activity-log/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(0));
+
+        verify(activityLogService, times(1)).logActivities(any());
+    }
+
+    @Test
+    public void testLogActivities_ShouldRejectUnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/api/v1/activity-log/bulk")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("hello"))
+                .andExpect(status().isUnsupportedMediaType());
     }
 
     @Test
     public void testGetActivityLog_ShouldReturnListOfLogs() throws Exception {
-        when(activityLogService.getByUserId(userId)).thenReturn(List.of(activityLog));
+        when(activityLogService.getByUserId(userId)).thenReturn(List.of(ActivityLogView.of(activityLog)));
 
         mockMvc.perform(get("/api/v1/activity-log")
                         .param("userId", userId.toString()))
@@ -107,13 +236,169 @@ public class ActivityLogControllerTest {
         verify(activityLogService, times(1)).getByUserId(userId);
     }
 
+    @Test
+    public void testGetActivityLog_ShouldEncodeCompactCbor_WhenRequested() throws Exception {
+        when(activityLogService.getByUserId(userId)).thenReturn(List.of(ActivityLogView.of(activityLog)));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/activity-log")
+                        .param("userId", userId.toString())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        JsonNode item = new CBORMapper().readTree(body).get(0);
+        assertArrayEquals(UuidBytes.toBytes(userId), item.get("userId").binaryValue());
+        assertEquals(EpochMicrosModule.toEpochMicros(activityLog.getCreatedOn()), item.get("createdOn").longValue());
+
+        ActivityLogResponse[] decoded = CborConfig.cborObjectMapper(new Jackson2ObjectMapperBuilder())
+                .readValue(body, ActivityLogResponse[].class);
+        assertEquals(userId, decoded[0].getUserId());
+        assertEquals(activityLog.getCreatedOn().truncatedTo(ChronoUnit.MICROS), decoded[0].getCreatedOn());
+    }
+
+    @Test
+    public void testGetActivityLog_ShouldReturnPageWithNextCursor_WhenLimitIsGiven() throws Exception {
+        ActivityLogCursor nextCursor = ActivityLogCursor.of(activityLog);
+        when(activityLogService.getPageByUserId(userId, null, 1))
+                .thenReturn(new ActivityLogPage(List.of(ActivityLogView.of(activityLog)), nextCursor));
+
+        mockMvc.perform(get("/api/v1/activity-log")
+                        .param("userId", userId.toString())
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(header().string("X-Next-Cursor", nextCursor.encode()));
+
+        verify(activityLogService, times(0)).getByUserId(any());
+    }
+
+    @Test
+    public void testGetActivityLog_ShouldDecodeCursor_AndOmitHeaderOnLastPage() throws Exception {
+        ActivityLogCursor cursor = ActivityLogCursor.of(activityLog);
+        when(activityLogService.getPageByUserId(userId, cursor, null))
+                .thenReturn(new ActivityLogPage(List.of(), null));
+
+        mockMvc.perform(get("/api/v1/activity-log")
+                        .param("userId", userId.toString())
+                        .param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(0))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    public void testGetActivityLog_ShouldReturnBadRequest_WhenCursorIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/v1/activity-log")
+                        .param("userId", userId.toString())
+                        .param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testSearchActivityLog_ShouldPassFiltersAndReturnNextCursor() throws Exception {
+        UUID otherUserId = UUID.randomUUID();
+        ActivityLogCursor cursor = ActivityLogCursor.of(activityLog);
+        ActivityLogSearch search = ActivityLogSearch.builder()
+                .userIds(Set.of(userId, otherUserId))
+                .actionPrefix("LOGIN")
+                .from(LocalDateTime.of(2025, 3, 1, 0, 0))
+                .to(LocalDateTime.of(2025, 3, 2, 0, 0))
+                .after(cursor)
+                .limit(1)
+                .build();
+        when(activityLogSearchService.search(search)).thenReturn(new ActivityLogPage(List.of(ActivityLogView.of(activityLog)), cursor));
+
+        mockMvc.perform(get("/api/v1/activity-log/search")
+                        .param("userId", userId.toString(), otherUserId.toString())
+                        .param("action", "LOGIN")
+                        .param("from", "2025-03-01T00:00:00")
+                        .param("to", "2025-03-02T00:00:00")
+                        .param("cursor", cursor.encode())
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(header().string("X-Next-Cursor", cursor.encode()));
+    }
+
+    @Test
+    public void testSearchActivityLog_ShouldReturnBadRequest_WhenRangeIsInvalid() throws Exception {
+        when(activityLogSearchService.search(any())).thenThrow(new InvalidRangeException("from must be before to"));
+
+        mockMvc.perform(get("/api/v1/activity-log/search")
+                        .param("from", "2025-03-02T00:00:00")
+                        .param("to", "2025-03-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportActivityLog_ShouldStreamCsvAttachment() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ActivityLog> consumer = invocation.getArgument(1);
+            consumer.accept(activityLog);
+            return null;
+        }).when(activityLogService).exportByUserId(eq(userId), any());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/activity-log/export")
+                        .param("userId", userId.toString())
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"activity-log-" + userId + ".csv\""))
+                .andExpect(content().string(org.hamcrest.Matchers.startsWith("userId,action,createdOn\n" + userId + ",Test activity log,")));
+    }
+
+    @Test
+    public void testExportActivityLog_ShouldGzipNdjson_WhenRequested() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ActivityLog> consumer = invocation.getArgument(1);
+            consumer.accept(activityLog);
+            consumer.accept(activityLog);
+            return null;
+        }).when(activityLogService).exportByUserId(eq(userId), any());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/activity-log/export")
+                        .param("userId", userId.toString())
+                        .param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        String ndjson;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(2, ndjson.lines().count());
+        assertTrue(ndjson.startsWith("{\"action\":\"Test activity log\""));
+    }
+
+    @Test
+    public void testExportActivityLog_ShouldReturnBadRequest_WhenFormatIsUnknown() throws Exception {
+        mockMvc.perform(get("/api/v1/activity-log/export")
+                        .param("userId", userId.toString())
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testDeleteActivityLog_ShouldReturnOk() throws Exception {
-        when(activityLogService.deleteByUserId(userId)).thenReturn(true);
+        when(activityLogService.deleteByUserId(userId)).thenReturn(2L);
 
         mockMvc.perform(delete("/api/v1/activity-log")
                         .param("userId", userId.toString()))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Deleted-Count", "2"))
                 .andExpect(content().string("Activity logs deleted for user: " + userId));
 
         verify(activityLogService, times(1)).deleteByUserId(userId);
@@ -121,7 +406,7 @@ public class ActivityLogControllerTest {
 
     @Test
     public void testDeleteActivityLog_ShouldReturnNotFound() throws Exception {
-        when(activityLogService.deleteByUserId(userId)).thenReturn(false);
+        when(activityLogService.deleteByUserId(userId)).thenReturn(0L);
 
         mockMvc.perform(delete("/api/v1/activity-log")
                         .param("userId", userId.toString()))
@@ -129,4 +414,145 @@ public class ActivityLogControllerTest {
 
         verify(activityLogService, times(1)).deleteByUserId(userId);
     }
+
+    @Test
+    public void testDeleteActivityLogAsync_ShouldReturnAcceptedWithJobLocation() throws Exception {
+        DeletionJob job = new DeletionJob(UUID.randomUUID(), userId, LocalDateTime.now());
+        when(deletionJobService.submit(userId)).thenReturn(job);
+
+        mockMvc.perform(delete("/api/v1/activity-log")
+                        .param("userId", userId.toString())
+                        .param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/activity-log/deletion-jobs/" + job.getId()))
+                .andExpect(jsonPath("$.jobId").value(job.getId().toString()))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        verify(activityLogService, times(0)).deleteByUserId(any());
+    }
+
+    @Test
+    public void testGetDeletionJob_ShouldReturnJobStatus() throws Exception {
+        DeletionJob job = new DeletionJob(UUID.randomUUID(), userId, LocalDateTime.now());
+        job.markCompleted(7);
+        when(deletionJobService.getJob(job.getId())).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/v1/activity-log/deletion-jobs/" + job.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.deletedCount").value(7));
+    }
+
+    @Test
+    public void testGetDeletionJob_ShouldReturnNotFound_WhenJobIsUnknown() throws Exception {
+        when(deletionJobService.getJob(any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/activity-log/deletion-jobs/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testGetActivityStats_ShouldReturnBucketsForRequestedGranularity() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 3, 8, 0, 0);
+        ActivityRollup rollup = ActivityRollup.builder()
+                .userId(userId)
+                .bucketStart(LocalDateTime.of(2025, 3, 2, 0, 0))
+                .action("LOGIN")
+                .eventCount(5)
+                .build();
+        when(activityRollupService.getStats(userId, from, to, RollupGranularity.DAY)).thenReturn(List.of(rollup));
+
+        mockMvc.perform(get("/api/v1/activity-log/stats")
+                        .param("userId", userId.toString())
+                        .param("from", "2025-03-01T00:00:00")
+                        .param("to", "2025-03-08T00:00:00")
+                        .param("granularity", "day"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].action").value("LOGIN"))
+                .andExpect(jsonPath("$[0].count").value(5));
+    }
+
+    @Test
+    public void testGetActivityStats_ShouldReturnBadRequest_WhenGranularityIsUnsupported() throws Exception {
+        mockMvc.perform(get("/api/v1/activity-log/stats")
+                        .param("userId", userId.toString())
+                        .param("granularity", "week"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(activityRollupService);
+    }
+
+    @Test
+    public void testRebuildActivityStats_ShouldRebuildSingleUser_WhenUserIdIsGiven() throws Exception {
+        when(activityRollupService.rebuild(userId)).thenReturn(12L);
+
+        mockMvc.perform(post("/api/v1/activity-log/stats/rebuild")
+                        .param("userId", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users").value(1))
+                .andExpect(jsonPath("$.buckets").value(12));
+
+        verify(activityRollupService, never()).rebuildAll();
+    }
+
+    @Test
+    public void testRebalanceShards_ShouldReturnAcceptedWithJobLocation() throws Exception {
+        RebalanceJob job = new RebalanceJob(UUID.randomUUID(), LocalDateTime.now());
+        when(shardRebalancer.submit()).thenReturn(job);
+
+        mockMvc.perform(post("/api/v1/activity-log/shards/rebalance"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/activity-log/shards/rebalance/" + job.getId()))
+                .andExpect(jsonPath("$.jobId").value(job.getId().toString()))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    public void testGetRebalanceJob_ShouldReturnMovedCounts() throws Exception {
+        RebalanceJob job = new RebalanceJob(UUID.randomUUID(), LocalDateTime.now());
+        job.recordMove(42);
+        job.markCompleted();
+        when(shardRebalancer.getJob(job.getId())).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/v1/activity-log/shards/rebalance/{jobId}", job.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.users").value(1))
+                .andExpect(jsonPath("$.events").value(42));
+    }
+
+    @Test
+    public void testStreamActivityLog_ShouldSubscribeFromLastEventId_WhenNoCursorIsGiven() throws Exception {
+        ActivityLogCursor lastSeen = ActivityLogCursor.of(activityLog);
+        when(activityFeedHub.subscribe(userId, lastSeen)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/v1/activity-log/stream")
+                        .param("userId", userId.toString())
+                        .header("Last-Event-ID", lastSeen.encode()))
+                .andExpect(request().asyncStarted());
+
+        verify(activityFeedHub).subscribe(userId, lastSeen);
+    }
+
+    @Test
+    public void testStreamActivityLog_ShouldSubscribeFromNow_WhenNothingToResumeFrom() throws Exception {
+        when(activityFeedHub.subscribe(userId, null)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/v1/activity-log/stream")
+                        .param("userId", userId.toString()))
+                .andExpect(request().asyncStarted());
+
+        verify(activityFeedHub).subscribe(userId, null);
+    }
+
+    @Test
+    public void testStreamActivityLog_ShouldReturnBadRequest_WhenCursorIsMalformed() throws Exception {
+        mockMvc.perform(get("/api/v1/activity-log/stream")
+                        .param("userId", userId.toString())
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(activityFeedHub);
+    }
 }
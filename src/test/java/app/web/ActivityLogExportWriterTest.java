@@ -0,0 +1,62 @@
+package app.web;
+
+import app.web.dto.ActivityLogResponse;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ActivityLogExportWriterTest {
+
+    private final ActivityLogExportWriter exportWriter =
+            new ActivityLogExportWriter(Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build());
+
+    private final UUID userId = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private final LocalDateTime createdOn = LocalDateTime.of(2025, 3, 10, 15, 27, 40, 689_781_000);
+
+    @Test
+    public void testOpen_ShouldWriteOneJsonObjectPerLine_WhenFormatIsNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (ActivityLogExportWriter.RowWriter rows = exportWriter.open(ExportFormat.NDJSON, out)) {
+            rows.write(row("action1"));
+            rows.write(row("action2"));
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals("{\"action\":\"action1\",\"userId\":\"" + userId + "\",\"createdOn\":\"2025-03-10T15:27:40.689781\"}", lines[0]);
+        assertEquals("", lines[2]);
+    }
+
+    @Test
+    public void testOpen_ShouldWriteHeaderAndQuoteActions_WhenFormatIsCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (ActivityLogExportWriter.RowWriter rows = exportWriter.open(ExportFormat.CSV, out)) {
+            rows.write(row("plain"));
+            rows.write(row("You have successfully commented [Say \"hi\", friend], on recipe: Pie"));
+        }
+
+        assertEquals("userId,action,createdOn\n"
+                + userId + ",plain,2025-03-10T15:27:40.689781\n"
+                + userId + ",\"You have successfully commented [Say \"\"hi\"\", friend], on recipe: Pie\",2025-03-10T15:27:40.689781\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    private ActivityLogResponse row(String action) {
+        return ActivityLogResponse.builder()
+                .userId(userId)
+                .action(action)
+                .createdOn(createdOn)
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package app.web;
+
+import app.exception.InvalidBulkItemException;
+import app.exception.MalformedBulkPayloadException;
+import app.web.dto.ActivityLogRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActivityLogRequestReaderTest {
+
+    private final ActivityLogRequestReader reader = new ActivityLogRequestReader(Jackson2ObjectMapperBuilder.json().build());
+
+    @Test
+    public void testRead_ShouldReadEveryElement_WhenBodyIsJsonArray() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String body = "[{\"userId\":\"" + userId + "\",\"action\":\"a1\"},{\"userId\":\"" + userId + "\",\"action\":\"a2\"}]";
+
+        Iterator<ActivityLogRequest> requests = read(body);
+
+        assertEquals("a1", requests.next().getAction());
+        ActivityLogRequest second = requests.next();
+        assertEquals("a2", second.getAction());
+        assertEquals(userId, second.getUserId());
+        assertFalse(requests.hasNext());
+    }
+
+    @Test
+    public void testRead_ShouldReadEveryLine_WhenBodyIsNdjson() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String body = "{\"userId\":\"" + userId + "\",\"action\":\"a1\"}\n"
+                + "{\"userId\":\"" + userId + "\",\"action\":\"a2\"}\n";
+
+        Iterator<ActivityLogRequest> requests = read(body);
+
+        assertEquals("a1", requests.next().getAction());
+        assertEquals("a2", requests.next().getAction());
+        assertFalse(requests.hasNext());
+    }
+
+    @Test
+    public void testRead_ShouldSkipBrokenItemAndContinue_WhenItemCannotBeBound() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String body = "{\"userId\":\"not-a-uuid\",\"action\":\"a1\",\"nested\":{\"x\":[1,2]}}\n"
+                + "{\"userId\":\"" + userId + "\",\"action\":\"a2\"}\n";
+
+        Iterator<ActivityLogRequest> requests = read(body);
+
+        assertThrows(InvalidBulkItemException.class, requests::next);
+        assertEquals("a2", requests.next().getAction());
+        assertFalse(requests.hasNext());
+    }
+
+    @Test
+    public void testRead_ShouldFail_WhenPayloadIsNotValidJson() throws Exception {
+        Iterator<ActivityLogRequest> requests = read("{\"action\": \"a1\"}\n{\"action\" oops}");
+
+        assertEquals("a1", requests.next().getAction());
+        assertThrows(MalformedBulkPayloadException.class, requests::next);
+    }
+
+    private Iterator<ActivityLogRequest> read(String body) throws Exception {
+        return reader.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,63 @@
+package app.web;
+
+import app.web.dto.ActivityLogRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=prometheus")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class MetricsIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testPrometheus_shouldExposeMetricsForEveryLayer() throws Exception {
+        UUID userId = UUID.randomUUID();
+        ActivityLogRequest request = ActivityLogRequest.builder()
+                .userId(userId)
+                .action("action1")
+                .build();
+
+        mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/v1/activity-log").param("userId", userId.toString()))
+                .andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"), "HTTP latency histogram");
+        assertTrue(scrape.contains("activitylog_service_seconds_bucket{"), "Service method histogram");
+        assertTrue(scrape.contains("method=\"getByUserId\""), "Service timers are tagged by method");
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{"), "Repository histogram");
+        assertTrue(scrape.contains("activitylog_events_written_total"), "Written events counter");
+        assertTrue(scrape.contains("activitylog_query_result_size_events_bucket"), "Result size distribution");
+        assertTrue(scrape.contains("hikaricp_connections_pending"), "Pool saturation gauge");
+        assertTrue(scrape.contains("activitylog_db_permits_available"), "Permit gauge");
+    }
+}
@@ -0,0 +1,82 @@
+package app.web;
+
+import app.model.id.TimeOrderedUuids;
+import app.util.UuidBytes;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A second in-memory H2 database stands in for the replica; nothing replicates into it, so each read shows its source.
+@SpringBootTest(properties = {
+        "activity-log.database.replicas[0].url=" + ReadReplicaRoutingIT.REPLICA_URL,
+        "activity-log.database.replicas[0].username=sa",
+        "activity-log.database.replicas[0].password=password"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ActiveProfiles("test")
+class ReadReplicaRoutingIT {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MYSQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcTemplate replica;
+
+    @BeforeAll
+    void copySchemaToReplica() {
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "password"));
+        jdbcTemplate.queryForList("script nodata", String.class).stream()
+                .filter(statement -> statement.startsWith("CREATE") && !statement.startsWith("CREATE USER"))
+                .forEach(replica::execute);
+    }
+
+    @Test
+    void testLogActivity_shouldWriteToPrimaryAndReadFromReplica() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"" + userId + "\",\"action\":\"on primary\"}"))
+                .andExpect(status().isCreated());
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from activity_log where user_id = ?", Integer.class, userId));
+        mockMvc.perform(get("/api/v1/activity-log").param("userId", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        replica.update("insert into activity_log (id, user_id, action, created_on, is_deleted) values (?, ?, ?, ?, false)",
+                UuidBytes.toBytes(TimeOrderedUuids.next()), userId, "on replica", Timestamp.valueOf(LocalDateTime.now()));
+
+        mockMvc.perform(get("/api/v1/activity-log").param("userId", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].action").value("on replica"));
+        mockMvc.perform(get("/api/v1/activity-log").param("userId", userId.toString()).param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].action").value("on replica"));
+    }
+}
@@ -0,0 +1,259 @@
+package app.web;
+
+import app.jdbc.Shards;
+import app.model.id.TimeOrderedUuids;
+import app.util.UuidBytes;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Two more in-memory H2 databases join the test database as shards; each is read directly to see where rows went.
+@SpringBootTest(properties = {
+        "activity-log.database.shards[0].name=east",
+        "activity-log.database.shards[0].url=" + ShardingIT.EAST_URL,
+        "activity-log.database.shards[0].username=sa",
+        "activity-log.database.shards[0].password=password",
+        "activity-log.database.shards[1].name=west",
+        "activity-log.database.shards[1].url=" + ShardingIT.WEST_URL,
+        "activity-log.database.shards[1].username=sa",
+        "activity-log.database.shards[1].password=password",
+        // Small enough for users and events to be paged
+        "activity-log.database.rebalance-chunk-size=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ShardingIT {
+
+    static final String EAST_URL = "jdbc:h2:mem:shard-east;MODE=MYSQL;DB_CLOSE_DELAY=-1";
+    static final String WEST_URL = "jdbc:h2:mem:shard-west;MODE=MYSQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Shards shards;
+
+    private final Map<String, JdbcTemplate> databases = Map.of(
+            "east", new JdbcTemplate(new DriverManagerDataSource(EAST_URL, "sa", "password")),
+            "west", new JdbcTemplate(new DriverManagerDataSource(WEST_URL, "sa", "password")));
+
+    @Test
+    void testLogActivity_shouldStoreEachUserOnItsShardOnly() throws Exception {
+        List<UUID> userIds = users(30);
+        for (UUID userId : userIds) {
+            logActivity(userId, "placed");
+        }
+
+        Set<String> used = new HashSet<>();
+        for (UUID userId : userIds) {
+            String owner = shards.shardFor(userId);
+            used.add(owner);
+            for (String shard : shards.names()) {
+                assertEquals(shard.equals(owner) ? 1 : 0, countOn(shard, userId), userId + " on " + shard);
+            }
+            mockMvc.perform(get("/api/v1/activity-log").param("userId", userId.toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].action").value("placed"));
+        }
+        assertEquals(Set.of("primary", "east", "west"), used);
+    }
+
+    @Test
+    void testLogActivities_shouldStoreEachUserOfABulkRequestOnItsShard() throws Exception {
+        List<UUID> userIds = users(30);
+        StringBuilder body = new StringBuilder();
+        for (UUID userId : userIds) {
+            body.append("{\"userId\":\"").append(userId).append("\",\"action\":\"bulk\"}\n");
+        }
+
+        mockMvc.perform(post("/api/v1/activity-log/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(30));
+
+        assertOnOwningShardOnly(userIds, "activity_log");
+    }
+
+    @Test
+    void testRebuildActivityStats_shouldWriteEachUsersRollupsOnItsShard() throws Exception {
+        List<UUID> userIds = users(30);
+        for (UUID userId : userIds) {
+            logActivity(userId, "counted");
+        }
+        for (JdbcTemplate database : List.of(jdbcTemplate, databases.get("east"), databases.get("west"))) {
+            database.update("delete from activity_rollup");
+        }
+
+        mockMvc.perform(post("/api/v1/activity-log/stats/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users").value(greaterThanOrEqualTo(30)));
+
+        assertOnOwningShardOnly(userIds, "activity_rollup");
+    }
+
+    @Test
+    void testDeleteActivityLog_shouldSoftDeleteOnTheUsersShard() throws Exception {
+        UUID userId = UUID.randomUUID();
+        logActivity(userId, "to delete");
+
+        mockMvc.perform(delete("/api/v1/activity-log").param("userId", userId.toString()))
+                .andExpect(status().isOk());
+
+        assertEquals(1, database(shards.shardFor(userId)).queryForObject(
+                "select count(*) from activity_log where user_id = ? and is_deleted", Integer.class, userId));
+        mockMvc.perform(get("/api/v1/activity-log").param("userId", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void testSearch_shouldMergeResultsFromAllShards() throws Exception {
+        String action = "SEARCH_" + UUID.randomUUID();
+        List<UUID> userIds = users(12);
+        for (UUID userId : userIds) {
+            logActivity(userId, action);
+        }
+
+        mockMvc.perform(get("/api/v1/activity-log/search")
+                        .param("action", action)
+                        .param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(12))
+                .andExpect(jsonPath("$[0].userId").value(userIds.get(11).toString()))
+                .andExpect(jsonPath("$[11].userId").value(userIds.get(0).toString()));
+        mockMvc.perform(get("/api/v1/activity-log/search")
+                        .param("userId", userIds.get(3).toString(), userIds.get(4).toString())
+                        .param("action", action))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[0].action").value(startsWith("SEARCH_")));
+    }
+
+    @Test
+    void testRebalance_shouldMoveRowsToTheOwningShard() throws Exception {
+        List<UUID> userIds = users(3);
+        Map<UUID, String> strays = new HashMap<>();
+        for (UUID userId : userIds) {
+            String owner = shards.shardFor(userId);
+            String stray = shards.names().stream().filter(shard -> !shard.equals(owner)).findFirst().orElseThrow();
+            strays.put(userId, stray);
+            for (int i = 0; i < 3; i++) {
+                database(stray).update(
+                        "insert into activity_log (id, user_id, action, created_on, is_deleted) values (?, ?, ?, ?, false)",
+                        UuidBytes.toBytes(TimeOrderedUuids.next()), userId, "stray" + i,
+                        Timestamp.valueOf(LocalDateTime.now()));
+            }
+            database(stray).update(
+                    "insert into idempotency_key (user_id, idempotency_key, activity_log_id, created_on) values (?, ?, ?, ?)",
+                    userId, "key-1", UuidBytes.toBytes(TimeOrderedUuids.next()), Timestamp.valueOf(LocalDateTime.now()));
+        }
+
+        rebalance()
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.users").value(3))
+                .andExpect(jsonPath("$.events").value(9));
+
+        for (UUID userId : userIds) {
+            String owner = shards.shardFor(userId);
+            assertEquals(0, countOn(strays.get(userId), userId));
+            assertEquals(3, countOn(owner, userId));
+            assertEquals(1, database(owner).queryForObject(
+                    "select count(*) from idempotency_key where user_id = ?", Integer.class, userId));
+            assertTrue(database(owner).queryForObject(
+                    "select count(*) from activity_rollup where user_id = ?", Integer.class, userId) > 0);
+            mockMvc.perform(get("/api/v1/activity-log").param("userId", userId.toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(3));
+        }
+
+        rebalance()
+                .andExpect(jsonPath("$.users").value(0));
+    }
+
+    private void assertOnOwningShardOnly(List<UUID> userIds, String table) {
+        Set<String> used = new HashSet<>();
+        for (UUID userId : userIds) {
+            String owner = shards.shardFor(userId);
+            used.add(owner);
+            for (String shard : shards.names()) {
+                int rows = database(shard).queryForObject(
+                        "select count(*) from " + table + " where user_id = ?", Integer.class, userId);
+                assertEquals(shard.equals(owner), rows > 0, userId + " in " + table + " on " + shard);
+            }
+        }
+        assertEquals(Set.of("primary", "east", "west"), used);
+    }
+
+    private ResultActions rebalance() throws Exception {
+        String location = mockMvc.perform(post("/api/v1/activity-log/shards/rebalance"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader("Location");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            ResultActions job = mockMvc.perform(get(location)).andExpect(status().isOk());
+            String status = JsonPath.read(job.andReturn().getResponse().getContentAsString(), "$.status");
+            if (status.equals("COMPLETED") || status.equals("FAILED") || System.nanoTime() > deadline) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private void logActivity(UUID userId, String action) throws Exception {
+        mockMvc.perform(post("/api/v1/activity-log")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"" + userId + "\",\"action\":\"" + action + "\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private int countOn(String shard, UUID userId) {
+        return database(shard).queryForObject(
+                "select count(*) from activity_log where user_id = ?", Integer.class, userId);
+    }
+
+    private JdbcTemplate database(String shard) {
+        return Shards.PRIMARY.equals(shard) ? jdbcTemplate : databases.get(shard);
+    }
+
+    private static List<UUID> users(int count) {
+        List<UUID> userIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            userIds.add(UUID.randomUUID());
+        }
+        return userIds;
+    }
+}
@@ -1,7 +1,12 @@
 package app.web.mapper;
 
 import app.model.ActivityLog;
+import app.model.ActivityLogView;
+import app.model.ActivityRollup;
+import app.model.DeletionJob;
 import app.web.dto.ActivityLogResponse;
+import app.web.dto.ActivityStatsResponse;
+import app.web.dto.DeletionJobResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -30,4 +35,46 @@ public class DtoMapperTest {
         assertEquals(activityLogResponse.getCreatedOn(), activityLog.getCreatedOn());
         assertEquals(activityLogResponse.getCreatedOn(), activityLog.getCreatedOn());
     }
+
+    @Test
+    public void testFromActivityLogView_ShouldMapTo_ActivityLogResponse() {
+        ActivityLogView activityLog = new ActivityLogView(UUID.randomUUID(), UUID.randomUUID(), "Test Action",
+                LocalDateTime.now());
+
+        ActivityLogResponse activityLogResponse = DtoMapper.fromActivityLogView(activityLog);
+
+        assertEquals(activityLog.userId(), activityLogResponse.getUserId());
+        assertEquals(activityLog.action(), activityLogResponse.getAction());
+        assertEquals(activityLog.createdOn(), activityLogResponse.getCreatedOn());
+    }
+
+    @Test
+    public void testFromDeletionJob_ShouldMapTo_DeletionJobResponse() {
+        DeletionJob deletionJob = new DeletionJob(UUID.randomUUID(), UUID.randomUUID(), LocalDateTime.now());
+        deletionJob.markCompleted(12);
+
+        DeletionJobResponse deletionJobResponse = DtoMapper.fromDeletionJob(deletionJob);
+
+        assertEquals(deletionJob.getId(), deletionJobResponse.getJobId());
+        assertEquals(deletionJob.getUserId(), deletionJobResponse.getUserId());
+        assertEquals("COMPLETED", deletionJobResponse.getStatus());
+        assertEquals(12, deletionJobResponse.getDeletedCount());
+        assertEquals(deletionJob.getFinishedOn(), deletionJobResponse.getFinishedOn());
+    }
+
+    @Test
+    public void testFromActivityRollup_ShouldMapTo_ActivityStatsResponse() {
+        ActivityRollup activityRollup = ActivityRollup.builder()
+                .userId(UUID.randomUUID())
+                .bucketStart(LocalDateTime.of(2025, 3, 10, 15, 0))
+                .action("Test Action")
+                .eventCount(7)
+                .build();
+
+        ActivityStatsResponse activityStatsResponse = DtoMapper.fromActivityRollup(activityRollup);
+
+        assertEquals(activityRollup.getBucketStart(), activityStatsResponse.getBucketStart());
+        assertEquals(activityRollup.getAction(), activityStatsResponse.getAction());
+        assertEquals(7, activityStatsResponse.getCount());
+    }
 }